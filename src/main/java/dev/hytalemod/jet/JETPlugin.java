@@ -9,18 +9,23 @@ import com.hypixel.hytale.server.core.asset.type.item.config.CraftingRecipe;
 import com.hypixel.hytale.server.core.asset.type.item.config.Item;
 import com.hypixel.hytale.server.core.asset.type.item.config.ItemDropList;
 import com.hypixel.hytale.server.core.event.events.entity.LivingEntityInventoryChangeEvent;
-import com.hypixel.hytale.server.core.inventory.MaterialQuantity;
+import com.hypixel.hytale.server.core.event.events.player.PlayerDisconnectEvent;
 import com.hypixel.hytale.server.core.plugin.JavaPlugin;
 import com.hypixel.hytale.server.core.plugin.JavaPluginInit;
 import com.hypixel.hytale.server.core.modules.interaction.interaction.config.Interaction;
 import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+import dev.hytalemod.jet.calc.CraftingCalculator;
+import dev.hytalemod.jet.calc.Progression;
+import dev.hytalemod.jet.calc.ShoppingList;
 import dev.hytalemod.jet.command.*;
 import dev.hytalemod.jet.component.JETKeybindComponent;
 import dev.hytalemod.jet.component.RecipeHudComponent;
 import dev.hytalemod.jet.config.JETConfig;
+import dev.hytalemod.jet.gui.JETGui;
 import dev.hytalemod.jet.interaction.OpenJETInteraction;
 import dev.hytalemod.jet.registry.DropListRegistry;
 import dev.hytalemod.jet.registry.ItemRegistry;
+import dev.hytalemod.jet.registry.RecipeGraph;
 import dev.hytalemod.jet.registry.RecipeRegistry;
 import dev.hytalemod.jet.registry.SetRegistry;
 import dev.hytalemod.jet.config.JETUserConfig;
@@ -28,17 +33,17 @@ import dev.hytalemod.jet.storage.BrowserStateStorage;
 import dev.hytalemod.jet.storage.PinnedItemsStorage;
 import dev.hytalemod.jet.storage.UserConfigStorage;
 import dev.hytalemod.jet.system.AltKeyBind;
-import dev.hytalemod.jet.system.RecipeHudUpdateSystem;
+import dev.hytalemod.jet.system.InventoryTrackingSystem;
 
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
-import java.lang.reflect.Method;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 import java.text.SimpleDateFormat;
 import java.util.Date;
@@ -63,11 +68,11 @@ public class JETPlugin extends JavaPlugin {
 
     private JETConfig config;
 
+    // Player UUID -> merged plan over their pinned items and HUD recipes
+    private final Map<UUID, ShoppingList> shoppingLists = new ConcurrentHashMap<>();
+
     public static Map<String, Item> ITEMS = new HashMap<>();
-    public static Map<String, CraftingRecipe> RECIPES = new HashMap<>();
     public static Map<String, ItemDropList> DROP_LISTS = new HashMap<>();
-    public static Map<String, List<String>> ITEM_TO_RECIPES = new HashMap<>();
-    public static Map<String, List<String>> ITEM_FROM_RECIPES = new HashMap<>();
 
     // Custom JET log file writer
     private PrintWriter jetLogWriter;
@@ -156,7 +161,8 @@ public class JETPlugin extends JavaPlugin {
         getEventRegistry().register(LoadedAssetsEvent.class, Item.class, JETPlugin::onItemsLoaded);
         getEventRegistry().register(LoadedAssetsEvent.class, CraftingRecipe.class, JETPlugin::onRecipesLoaded);
         getEventRegistry().register(LoadedAssetsEvent.class, ItemDropList.class, JETPlugin::onDropListsLoaded);
-        getEventRegistry().registerGlobal(LivingEntityInventoryChangeEvent.class, RecipeHudUpdateSystem::onInventoryChange);
+        getEventRegistry().registerGlobal(LivingEntityInventoryChangeEvent.class, InventoryTrackingSystem::onInventoryChange);
+        getEventRegistry().register(PlayerDisconnectEvent.class, JETPlugin::onPlayerDisconnect);
 
         // Register custom interaction for Pex Glyph item
         Interaction.CODEC.register("OpenJET", OpenJETInteraction.class, OpenJETInteraction.CODEC);
@@ -216,6 +222,7 @@ public class JETPlugin extends JavaPlugin {
         ITEMS = assetMap.getAssetMap();
         instance.itemRegistry.reload(ITEMS);
         instance.setRegistry.reload(ITEMS);
+        refreshCraftableIndex();
         instance.log(Level.INFO, "[JET] Loaded " + instance.itemRegistry.size() + " items, " + instance.setRegistry.size() + " sets");
 
     }
@@ -229,87 +236,60 @@ public class JETPlugin extends JavaPlugin {
             return;
         }
 
-        Method getInputMethod = null;
-        try {
-            getInputMethod = CraftingRecipe.class.getMethod("getInput");
-        } catch (NoSuchMethodException e) {
-        }
-
-        for (CraftingRecipe recipe : recipes.values()) {
-            RECIPES.put(recipe.getId(), recipe);
-            for (MaterialQuantity output : recipe.getOutputs()) {
-                ITEM_TO_RECIPES.computeIfAbsent(output.getItemId(), k -> new ArrayList<>()).add(recipe.getId());
-            }
-
-            if (getInputMethod != null) {
-                try {
-                    Object inputsObj = getInputMethod.invoke(recipe);
-                    if (inputsObj != null) {
-                        processRecipeInputs(inputsObj, recipe.getId());
-                    }
-                } catch (Exception e) {
-                }
-            } else {
-                String[] methodNames = {"getInputs", "getIngredients", "getMaterials", "getRecipeInputs", "getRequiredMaterials"};
-                for (String methodName : methodNames) {
-                    try {
-                        Method fallbackMethod = CraftingRecipe.class.getMethod(methodName);
-                        Object inputsObj = fallbackMethod.invoke(recipe);
-                        if (inputsObj != null) {
-                            processRecipeInputs(inputsObj, recipe.getId());
-                            break;
-                        }
-                    } catch (Exception e) {
-                    }
-                }
-            }
-        }
-
         instance.recipeRegistry.reload(recipes);
+        refreshCraftableIndex();
         instance.log(Level.INFO, "[JET] Loaded " + instance.recipeRegistry.size() + " recipes");
-        instance.log(Level.INFO, "[JET] Built recipe maps - ITEM_TO_RECIPES: " + ITEM_TO_RECIPES.size() + " items, ITEM_FROM_RECIPES: " + ITEM_FROM_RECIPES.size() + " items");
     }
 
-    private static void processRecipeInputs(Object inputsObj, String recipeId) {
-        if (inputsObj instanceof MaterialQuantity) {
-            MaterialQuantity input = (MaterialQuantity) inputsObj;
-            if (input != null && input.getItemId() != null) {
-                ITEM_FROM_RECIPES.computeIfAbsent(input.getItemId(), k -> new ArrayList<>()).add(recipeId);
-            }
-        } else if (inputsObj instanceof List) {
-            List<MaterialQuantity> inputs = (List<MaterialQuantity>) inputsObj;
-            if (inputs != null && !inputs.isEmpty()) {
-                for (MaterialQuantity input : inputs) {
-                    if (input != null && input.getItemId() != null) {
-                        ITEM_FROM_RECIPES.computeIfAbsent(input.getItemId(), k -> new ArrayList<>()).add(recipeId);
-                    }
-                }
-            }
-        } else if (inputsObj instanceof MaterialQuantity[]) {
-            MaterialQuantity[] inputs = (MaterialQuantity[]) inputsObj;
-            if (inputs != null && inputs.length > 0) {
-                for (MaterialQuantity input : inputs) {
-                    if (input != null && input.getItemId() != null) {
-                        ITEM_FROM_RECIPES.computeIfAbsent(input.getItemId(), k -> new ArrayList<>()).add(recipeId);
-                    }
-                }
-            }
-        } else if (inputsObj instanceof Collection) {
-            Collection<MaterialQuantity> inputs = (Collection<MaterialQuantity>) inputsObj;
-            if (inputs != null && !inputs.isEmpty()) {
-                for (MaterialQuantity input : inputs) {
-                    if (input != null && input.getItemId() != null) {
-                        ITEM_FROM_RECIPES.computeIfAbsent(input.getItemId(), k -> new ArrayList<>()).add(recipeId);
-                    }
-                }
-            }
-        }
+    /**
+     * Items and recipes load independently, so the craftable bitmaps and progression keys are refreshed after either.
+     */
+    private static void refreshCraftableIndex() {
+        instance.itemRegistry.getSearchIndex().updateCraftable(getRecipeGraph()::isCraftable);
+        Progression progression = getCraftingCalculator().getProgression();
+        instance.itemRegistry.getSearchIndex().updateProgression(progression::tier, progression::depth);
+        JETGui.invalidateResultCache();
     }
 
     public static JETPlugin getInstance() {
         return instance;
     }
 
+    /**
+     * Current recipe graph; safe to read from any thread.
+     */
+    public static RecipeGraph getRecipeGraph() {
+        return instance != null ? instance.recipeRegistry.getGraph() : RecipeGraph.EMPTY;
+    }
+
+    /**
+     * Crafting calculator for the current recipe graph; safe to read from any thread.
+     */
+    public static CraftingCalculator getCraftingCalculator() {
+        return instance != null ? instance.recipeRegistry.getCalculator() : CraftingCalculator.EMPTY;
+    }
+
+    /**
+     * The player's aggregated plan, brought in line with their current pins. Kept between calls so
+     * a pin change only re-plans what it touches; replaced when the recipe graph is rebuilt.
+     */
+    public ShoppingList getShoppingList(UUID playerUuid, Collection<String> hudRecipes) {
+        CraftingCalculator calculator = getCraftingCalculator();
+        ShoppingList list = shoppingLists.compute(playerUuid,
+                (uuid, existing) -> existing != null && existing.getCalculator() == calculator ? existing : calculator.shoppingList());
+        list.sync(pinnedItemsStorage.getPinnedItems(playerUuid), hudRecipes != null ? hudRecipes : Collections.emptySet());
+        return list;
+    }
+
+    /**
+     * Forget the player's plan and inventory tracking; both are rebuilt on demand after they rejoin.
+     */
+    private static void onPlayerDisconnect(PlayerDisconnectEvent event) {
+        UUID uuid = event.getPlayerRef().getUuid();
+        instance.shoppingLists.remove(uuid);
+        InventoryTrackingSystem.clearPlayer(uuid);
+    }
+
     public ItemRegistry getItemRegistry() {
         return itemRegistry;
     }
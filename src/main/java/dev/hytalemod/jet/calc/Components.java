@@ -0,0 +1,85 @@
+package dev.hytalemod.jet.calc;
+
+import java.util.Arrays;
+
+/**
+ * Strongly connected components of an item graph (iterative Tarjan, so deep chains cannot overflow the stack).
+ * Components are numbered in completion order: every edge between two components points to the lower id,
+ * so ascending ids are a dependencies-first topological order of the condensed graph.
+ */
+final class Components {
+
+    /**
+     * Outgoing edges of a graph over ordinals 0..n-1.
+     */
+    interface Edges {
+        int count(int node);
+
+        /**
+         * Target of the i-th edge, or -1 to skip it.
+         */
+        int target(int node, int i);
+    }
+
+    private Components() {}
+
+    static int[] of(int n, Edges edges) {
+        int[] result = new int[n];
+        int[] index = new int[n];
+        int[] low = new int[n];
+        boolean[] onStack = new boolean[n];
+        Arrays.fill(index, -1);
+
+        int[] stack = new int[n];
+        int sp = 0;
+        int[] callNode = new int[n];
+        int[] callEdge = new int[n];
+        int counter = 0;
+        int nextComponent = 0;
+
+        for (int start = 0; start < n; start++) {
+            if (index[start] >= 0) continue;
+            int top = 0;
+            callNode[0] = start;
+            callEdge[0] = 0;
+            index[start] = low[start] = counter++;
+            stack[sp++] = start;
+            onStack[start] = true;
+
+            while (top >= 0) {
+                int v = callNode[top];
+                if (callEdge[top] < edges.count(v)) {
+                    int w = edges.target(v, callEdge[top]++);
+                    if (w < 0) continue;
+                    if (index[w] < 0) {
+                        index[w] = low[w] = counter++;
+                        stack[sp++] = w;
+                        onStack[w] = true;
+                        top++;
+                        callNode[top] = w;
+                        callEdge[top] = 0;
+                    } else if (onStack[w]) {
+                        low[v] = Math.min(low[v], index[w]);
+                    }
+                    continue;
+                }
+
+                if (low[v] == index[v]) {
+                    int w;
+                    do {
+                        w = stack[--sp];
+                        onStack[w] = false;
+                        result[w] = nextComponent;
+                    } while (w != v);
+                    nextComponent++;
+                }
+                top--;
+                if (top >= 0) {
+                    int parent = callNode[top];
+                    low[parent] = Math.min(low[parent], low[v]);
+                }
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,879 @@
+package dev.hytalemod.jet.calc;
+
+import com.hypixel.hytale.protocol.BenchRequirement;
+import com.hypixel.hytale.server.core.asset.type.item.config.CraftingRecipe;
+import dev.hytalemod.jet.registry.RecipeGraph;
+import dev.hytalemod.jet.util.InventorySnapshot;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Crafting calculator engine shared by the browser and the pinned items page, built once per recipe graph.
+ *
+ * A recipe-choice configuration picks one non-salvager recipe per item. For each configuration the
+ * item graph is split into strongly connected components (Tarjan), so cycles such as ingot / nugget
+ * compression are cut at the component boundary instead of with a per-walk visited set, and the
+ * components come out in reverse topological order. For each item asked about, the expanded sub-graph
+ * is flattened once into a topologically ordered plan holding its raw materials per unit; a new
+ * quantity is then a scale of that vector, or one linear sweep when batch sizes need rounding.
+ */
+public final class CraftingCalculator {
+
+    public static final CraftingCalculator EMPTY = new CraftingCalculator(RecipeGraph.EMPTY);
+
+    public static final String RESOURCE_PREFIX = "resource:";
+
+    private static final String SALVAGE_BENCH = "Salvagebench";
+
+    // Configurations are small, but each choice a player cycles through creates one, with a Tarjan pass over the graph
+    private static final int MAX_CONFIGURATIONS = 64;
+
+    // Guards the tree view against diamond-heavy graphs now that there is no depth cut-off
+    private static final int MAX_TREE_NODES = 2000;
+
+    // Upper end of the max craftable search; anything above reads as "plenty"
+    private static final long MAX_CRAFTABLE = 1_000_000;
+
+    /**
+     * One row of the crafting tree view.
+     */
+    public static final class TreeNode {
+        public final String itemId;
+        public final long quantity;
+        public final int depth;
+        public final boolean isCraftable;
+        public final boolean isExpanded;
+        public final boolean isResourceType;
+        public final int recipeIndex;
+        public final int recipeCount;
+        public final long available;  // part of the quantity covered by the inventory, 0 without a snapshot
+
+        TreeNode(String itemId, long quantity, int depth, boolean isCraftable, boolean isExpanded,
+                 boolean isResourceType, int recipeIndex, int recipeCount, long available) {
+            this.itemId = itemId;
+            this.quantity = quantity;
+            this.depth = depth;
+            this.isCraftable = isCraftable;
+            this.isExpanded = isExpanded;
+            this.isResourceType = isResourceType;
+            this.recipeIndex = recipeIndex;
+            this.recipeCount = recipeCount;
+            this.available = available;
+        }
+    }
+
+    private final RecipeGraph graph;
+
+    // Non-salvager recipes per item, CSR over item ordinals, in load order
+    private final int[] choiceOffsets;
+    private final int[] choices;
+
+    private final Configuration defaults;
+    // Least recently used configurations are dropped first; guarded by itself
+    private final Map<String, Configuration> configurations = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Configuration> eldest) {
+            return size() > MAX_CONFIGURATIONS;
+        }
+    };
+    // Snapshot -> recipe ordinal -> max crafts; a snapshot stands for one inventory version
+    private final Map<InventorySnapshot, Map<Integer, Long>> maxCraftsCache = Collections.synchronizedMap(new WeakHashMap<>());
+    private final Map<RecipeSolver.CostFunction, RecipeSolver> solvers = new ConcurrentHashMap<>();
+    private final Reachability reachability;
+    private volatile Progression progression;
+
+    public CraftingCalculator(RecipeGraph graph) {
+        this.graph = graph;
+
+        boolean[] salvage = new boolean[graph.recipeCount()];
+        for (int r = 0; r < salvage.length; r++) {
+            salvage[r] = isSalvagerRecipe(graph.getRecipe(r));
+        }
+
+        int items = graph.itemCount();
+        this.choiceOffsets = new int[items + 1];
+        int total = 0;
+        for (int item = 0; item < items; item++) {
+            for (int i = 0; i < graph.producerCount(item); i++) {
+                if (!salvage[graph.producer(item, i)]) total++;
+            }
+            choiceOffsets[item + 1] = total;
+        }
+        this.choices = new int[total];
+        int next = 0;
+        for (int item = 0; item < items; item++) {
+            for (int i = 0; i < graph.producerCount(item); i++) {
+                int recipe = graph.producer(item, i);
+                if (!salvage[recipe]) choices[next++] = recipe;
+            }
+        }
+
+        this.defaults = new Configuration(new int[0], new int[0]);
+        this.reachability = new Reachability(graph);
+    }
+
+    public RecipeGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * Number of recipes the calculator can pick between for an item (salvage recipes excluded).
+     */
+    public int choiceCount(String itemId) {
+        int item = graph.itemOrdinal(itemId);
+        return item >= 0 ? choiceCount(item) : 0;
+    }
+
+    /**
+     * The player's recipe choice for an item, wrapped into range.
+     */
+    public int choiceIndex(String itemId, Map<String, Integer> recipeChoices) {
+        int count = choiceCount(itemId);
+        if (count <= 1 || recipeChoices == null) return 0;
+        Integer choice = recipeChoices.get(itemId);
+        return choice != null ? Math.floorMod(choice, count) : 0;
+    }
+
+    /**
+     * Cost-optimal recipe choices under a cost function, solved for the whole graph on first use.
+     */
+    public RecipeSolver solver(RecipeSolver.CostFunction cost) {
+        return solvers.computeIfAbsent(cost, c -> new RecipeSolver(this, c));
+    }
+
+    /**
+     * Crafting depth and bench tier per item, computed on first use.
+     */
+    public Progression getProgression() {
+        Progression result = progression;
+        if (result == null) {
+            result = new Progression(this);
+            progression = result;
+        }
+        return result;
+    }
+
+    /**
+     * Raw materials for a quantity of an item, keyed by item ID or {@link #RESOURCE_PREFIX} plus resource type ID,
+     * in the order they are first met walking the recipes. An uncraftable item is its own raw material.
+     */
+    public Map<String, Long> rawMaterials(String itemId, long quantity, Map<String, Integer> recipeChoices) {
+        Map<String, Long> result = new LinkedHashMap<>();
+        Plan plan = plan(itemId, recipeChoices);
+        if (plan == null) {
+            if (itemId != null && quantity > 0) result.put(itemId, quantity);
+            return result;
+        }
+        long[] amounts = plan.scale(quantity);
+        for (int i = 0; i < amounts.length; i++) {
+            if (amounts[i] > 0) result.put(plan.rawKeys[i], amounts[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Raw materials needed per unit of an item, ignoring batch rounding; read-only.
+     */
+    public Map<String, Double> rawPerUnit(String itemId, Map<String, Integer> recipeChoices) {
+        Plan plan = plan(itemId, recipeChoices);
+        if (plan == null) return itemId != null ? Collections.singletonMap(itemId, 1.0) : Collections.emptyMap();
+        Map<String, Double> result = new LinkedHashMap<>();
+        for (int i = 0; i < plan.rawKeys.length; i++) {
+            result.put(plan.rawKeys[i], plan.perUnit[i]);
+        }
+        return Collections.unmodifiableMap(result);
+    }
+
+    /**
+     * Raw materials and crafts still needed for a quantity of an item after spending the snapshot's holdings.
+     * Demand is summed per item in topological order, so held intermediates are spent before their own
+     * inputs are asked for; resource pools are spent last, from whatever items are left.
+     * The target itself is always crafted, never taken from the inventory.
+     */
+    public InventoryPlan planWithInventory(String itemId, long quantity, Map<String, Integer> recipeChoices,
+                                           InventorySnapshot snapshot) {
+        Map<String, Long> missing = new LinkedHashMap<>();
+        Map<String, Long> crafts = new LinkedHashMap<>();
+        Map<String, Long> used = new LinkedHashMap<>();
+        Set<String> watchedItems = new LinkedHashSet<>();
+        Set<String> watchedResources = new LinkedHashSet<>();
+
+        Plan plan = plan(itemId, recipeChoices);
+        if (plan == null) {
+            if (itemId != null && quantity > 0) missing.put(itemId, quantity);
+            return new InventoryPlan(snapshot, missing, crafts, used, watchedItems, watchedResources);
+        }
+
+        InventorySnapshot.Ledger ledger = snapshot.ledger();
+        long[] demand = new long[plan.nodes.length];
+        long[] rawDemand = new long[plan.rawKeys.length];
+        demand[0] = quantity;
+        for (int i = 0; i < plan.nodes.length; i++) {
+            String nodeId = graph.getItemId(plan.nodes[i]);
+            if (i > 0) {
+                watchedItems.add(nodeId);
+                long taken = ledger.take(nodeId, demand[i]);
+                if (taken > 0) used.merge(nodeId, taken, Long::sum);
+                demand[i] -= taken;
+            }
+            if (demand[i] == 0) continue;
+
+            long count = ceilDiv(demand[i], plan.yields[i]);
+            crafts.put(nodeId, count);
+            for (int e = plan.edgeOffsets[i]; e < plan.edgeOffsets[i + 1]; e++) {
+                long amount = count * plan.edgeQuantities[e];
+                if (plan.edgeTargets[e] >= 0) demand[plan.edgeTargets[e]] += amount;
+                else rawDemand[-plan.edgeTargets[e] - 1] += amount;
+            }
+        }
+
+        // Plain items before resource pools, so a pool never spends an item named outright
+        long[] shortfall = new long[rawDemand.length];
+        for (int pass = 0; pass < 2; pass++) {
+            for (int r = 0; r < rawDemand.length; r++) {
+                String key = plan.rawKeys[r];
+                boolean resource = key.startsWith(RESOURCE_PREFIX);
+                if (resource != (pass == 1) || rawDemand[r] == 0) continue;
+                long taken;
+                if (resource) {
+                    String resourceId = key.substring(RESOURCE_PREFIX.length());
+                    watchedResources.add(resourceId);
+                    taken = ledger.takeResource(resourceId, rawDemand[r]);
+                } else {
+                    watchedItems.add(key);
+                    taken = ledger.take(key, rawDemand[r]);
+                }
+                if (taken > 0) used.merge(key, taken, Long::sum);
+                shortfall[r] = rawDemand[r] - taken;
+            }
+        }
+        for (int r = 0; r < shortfall.length; r++) {
+            if (shortfall[r] > 0) missing.put(plan.rawKeys[r], shortfall[r]);
+        }
+        return new InventoryPlan(snapshot, missing, crafts, used, watchedItems, watchedResources);
+    }
+
+    /**
+     * How many of an item the snapshot covers, crafting missing intermediates first. Starts from the
+     * estimate the memoized raw-material vector gives, then gallops and binary-searches on a sweep over
+     * the plan's holdings that spends held intermediates before their inputs, so ingredients shared by
+     * several branches are only counted once.
+     */
+    public long maxCraftable(String itemId, Map<String, Integer> recipeChoices, InventorySnapshot snapshot) {
+        Plan plan = plan(itemId, recipeChoices);
+        if (plan == null) return 0;
+        Holdings holdings = new Holdings(plan, snapshot);
+        if (!holdings.covers(1)) return 0;
+
+        double estimate = MAX_CRAFTABLE;
+        for (int r = 0; r < plan.rawKeys.length; r++) {
+            if (plan.perUnit[r] <= 0) continue;
+            String key = plan.rawKeys[r];
+            long have = key.startsWith(RESOURCE_PREFIX)
+                    ? snapshot.resourceCount(key.substring(RESOURCE_PREFIX.length()))
+                    : snapshot.count(key);
+            estimate = Math.min(estimate, have / plan.perUnit[r]);
+        }
+
+        long low = 1;
+        long high = Math.max(2, Math.min(MAX_CRAFTABLE, (long) estimate + 1));
+        while (high < MAX_CRAFTABLE && holdings.covers(high)) {
+            low = high;
+            high = Math.min(MAX_CRAFTABLE, high * 2);
+        }
+        if (high == MAX_CRAFTABLE && holdings.covers(high)) return MAX_CRAFTABLE;
+        while (high - low > 1) {
+            long middle = low + (high - low) / 2;
+            if (holdings.covers(middle)) low = middle;
+            else high = middle;
+        }
+        return low;
+    }
+
+    /**
+     * How many crafts of a recipe the snapshot covers, with {@link #maxCraftable} on its output.
+     * Recipes the calculator never picks (salvage) only count their direct inputs.
+     * Answers are kept per snapshot, so every view of one inventory version searches a recipe once.
+     */
+    public long maxCrafts(String recipeId, InventorySnapshot snapshot) {
+        int recipe = graph.recipeOrdinal(recipeId);
+        if (recipe < 0 || graph.inputCount(recipe) == 0) return 0;
+        Map<Integer, Long> answers = maxCraftsCache.computeIfAbsent(snapshot, s -> new ConcurrentHashMap<>());
+        Long cached = answers.get(recipe);
+        if (cached != null) return cached;
+        long crafts = searchMaxCrafts(recipe, snapshot);
+        answers.put(recipe, crafts);
+        return crafts;
+    }
+
+    private long searchMaxCrafts(int recipe, InventorySnapshot snapshot) {
+        int output = graph.outputCount(recipe) > 0 ? graph.outputItem(recipe, 0) : -1;
+        for (int index = 0; output >= 0 && index < choiceCount(output); index++) {
+            if (choice(output, index) != recipe) continue;
+            String outputId = graph.getItemId(output);
+            long items = maxCraftable(outputId, Collections.singletonMap(outputId, index), snapshot);
+            return items / batchSize(recipe, output);
+        }
+
+        long crafts = MAX_CRAFTABLE;
+        for (int i = 0; i < graph.inputCount(recipe); i++) {
+            int input = graph.inputItem(recipe, i);
+            long have = input >= 0 ? snapshot.count(graph.getItemId(input))
+                    : snapshot.resourceCount(graph.getResourceId(graph.inputResource(recipe, i)));
+            crafts = Math.min(crafts, have / Math.max(1, graph.inputQuantity(recipe, i)));
+        }
+        return crafts;
+    }
+
+    /**
+     * Mark the item and resource type ordinals whose held counts {@link #maxCrafts} reads for the recipe:
+     * its inputs, plus every intermediate and raw material of the plan it uses for its output.
+     */
+    public void watch(String recipeId, BitSet items, BitSet resources) {
+        int recipe = graph.recipeOrdinal(recipeId);
+        if (recipe < 0) return;
+        for (int i = 0; i < graph.inputCount(recipe); i++) {
+            int input = graph.inputItem(recipe, i);
+            if (input >= 0) items.set(input);
+            else resources.set(graph.inputResource(recipe, i));
+        }
+        int output = graph.outputCount(recipe) > 0 ? graph.outputItem(recipe, 0) : -1;
+        for (int index = 0; output >= 0 && index < choiceCount(output); index++) {
+            if (choice(output, index) != recipe) continue;
+            String outputId = graph.getItemId(output);
+            Plan plan = plan(outputId, Collections.singletonMap(outputId, index));
+            for (int i = 1; i < plan.nodes.length; i++) items.set(plan.nodes[i]);
+            for (String key : plan.rawKeys) watchKey(key, items, resources);
+            return;
+        }
+    }
+
+    /**
+     * Mark the ordinal of a raw material key as returned by {@link #rawMaterials}.
+     */
+    public void watchKey(String key, BitSet items, BitSet resources) {
+        if (key.startsWith(RESOURCE_PREFIX)) {
+            int resource = graph.resourceOrdinal(key.substring(RESOURCE_PREFIX.length()));
+            if (resource >= 0) resources.set(resource);
+        } else {
+            int item = graph.itemOrdinal(key);
+            if (item >= 0) items.set(item);
+        }
+    }
+
+    /**
+     * Item ordinals of the graph with at least one recipe whose inputs the snapshot covers outright.
+     * Only recipes reachable from a held item or held resource type through the consumer indexes are
+     * evaluated, against count tables filled once from the snapshot, so the cost follows the recipes
+     * touching the inventory rather than the size of the catalogue.
+     */
+    public BitSet craftableWith(InventorySnapshot snapshot) {
+        BitSet craftable = new BitSet(graph.itemCount());
+        if (snapshot.getItems().isEmpty()) return craftable;
+
+        int[] held = new int[graph.itemCount()];
+        int[] heldResources = new int[graph.resourceCount()];
+        BitSet candidates = new BitSet(graph.recipeCount());
+        for (Map.Entry<String, Integer> entry : snapshot.getItems().entrySet()) {
+            int item = graph.itemOrdinal(entry.getKey());
+            if (item < 0 || entry.getValue() <= 0) continue;
+            held[item] = entry.getValue();
+            for (int c = 0; c < graph.consumerCount(item); c++) candidates.set(graph.consumer(item, c));
+        }
+        for (String resourceId : snapshot.getResourceTypes()) {
+            int resource = graph.resourceOrdinal(resourceId);
+            if (resource < 0) continue;
+            heldResources[resource] = snapshot.resourceCount(resourceId);
+            if (heldResources[resource] <= 0) continue;
+            for (int c = 0; c < graph.resourceConsumerCount(resource); c++) candidates.set(graph.resourceConsumer(resource, c));
+        }
+
+        for (int recipe = candidates.nextSetBit(0); recipe >= 0; recipe = candidates.nextSetBit(recipe + 1)) {
+            boolean covered = true;
+            for (int i = 0; i < graph.inputCount(recipe) && covered; i++) {
+                int input = graph.inputItem(recipe, i);
+                int have = input >= 0 ? held[input] : heldResources[graph.inputResource(recipe, i)];
+                covered = have >= graph.inputQuantity(recipe, i);
+            }
+            if (!covered) continue;
+            for (int o = 0; o < graph.outputCount(recipe); o++) craftable.set(graph.outputItem(recipe, o));
+        }
+        return craftable;
+    }
+
+    /**
+     * Item ordinals of the graph the snapshot can reach through any number of crafts, intermediates included.
+     * See {@link Reachability} for what "reach" promises about quantities.
+     */
+    public BitSet reachableWith(InventorySnapshot snapshot) {
+        return reachability.reachableWith(snapshot);
+    }
+
+    /**
+     * Crafting tree rows below an item, depth first. Every path is expanded to its raw materials;
+     * inputs that would close a cycle are shown as raw, and collapsed items are not expanded.
+     */
+    public List<TreeNode> expand(String itemId, long quantity, Map<String, Integer> recipeChoices, Set<String> collapsed) {
+        return expand(itemId, quantity, recipeChoices, collapsed, null);
+    }
+
+    /**
+     * Crafting tree rows, spending the snapshot's holdings along the walk when one is given:
+     * a row covered by the inventory is not expanded, and only its shortfall is crafted.
+     */
+    public List<TreeNode> expand(String itemId, long quantity, Map<String, Integer> recipeChoices, Set<String> collapsed,
+                                 InventorySnapshot snapshot) {
+        List<TreeNode> result = new ArrayList<>();
+        int root = graph.itemOrdinal(itemId);
+        if (root < 0 || choiceCount(root) == 0) return result;
+
+        Configuration config = configuration(recipeChoices);
+        int recipe = config.chosen(root);
+        long crafts = ceilDiv(quantity, batchSize(recipe, root));
+        InventorySnapshot.Ledger ledger = snapshot != null ? snapshot.ledger() : null;
+        for (int i = 0; i < graph.inputCount(recipe); i++) {
+            expandInput(result, config, root, recipe, i, crafts, 0, collapsed, ledger);
+        }
+        return result;
+    }
+
+    private void expandInput(List<TreeNode> result, Configuration config, int parent, int recipe, int input,
+                             long parentCrafts, int depth, Set<String> collapsed, InventorySnapshot.Ledger ledger) {
+        if (result.size() >= MAX_TREE_NODES) return;
+
+        long needed = (long) graph.inputQuantity(recipe, input) * parentCrafts;
+        int item = graph.inputItem(recipe, input);
+        if (item < 0) {
+            String resourceId = graph.getResourceId(graph.inputResource(recipe, input));
+            long available = ledger != null ? ledger.takeResource(resourceId, needed) : 0;
+            result.add(new TreeNode(resourceId, needed, depth, false, false, true, 0, 0, available));
+            return;
+        }
+
+        String itemId = graph.getItemId(item);
+        int count = choiceCount(item);
+        long available = ledger != null ? ledger.take(itemId, needed) : 0;
+        long remaining = needed - available;
+        boolean craftable = count > 0 && !config.closesCycle(parent, item);
+        boolean expanded = craftable && remaining > 0 && (collapsed == null || !collapsed.contains(itemId));
+        int index = craftable ? config.choiceIndex(item) : 0;
+        result.add(new TreeNode(itemId, needed, depth, craftable, expanded, false, index, craftable ? count : 0, available));
+
+        if (expanded) {
+            int subRecipe = config.chosen(item);
+            long crafts = ceilDiv(remaining, batchSize(subRecipe, item));
+            for (int i = 0; i < graph.inputCount(subRecipe); i++) {
+                expandInput(result, config, item, subRecipe, i, crafts, depth + 1, collapsed, ledger);
+            }
+        }
+    }
+
+    /**
+     * A fresh, empty aggregated plan over this graph's default recipe choices.
+     */
+    public ShoppingList shoppingList() {
+        return new ShoppingList(this);
+    }
+
+    private Plan plan(String itemId, Map<String, Integer> recipeChoices) {
+        int root = itemId != null ? graph.itemOrdinal(itemId) : -1;
+        if (root < 0 || choiceCount(root) == 0) return null;
+        Configuration config = configuration(recipeChoices);
+        return config.plans.computeIfAbsent(root, r -> new Plan(config, r));
+    }
+
+    // Default-choice views for ShoppingList, which merges several roots into one sweep
+
+    /**
+     * Items expanded below a craftable root under the default choices, root first; read-only.
+     */
+    int[] expandedItems(int root) {
+        return defaults.plans.computeIfAbsent(root, r -> new Plan(defaults, r)).nodes;
+    }
+
+    int defaultRecipe(int item) {
+        return defaults.chosen(item);
+    }
+
+    int defaultComponent(int item) {
+        return defaults.component[item];
+    }
+
+    /**
+     * Whether an input is crafted rather than bought when the parent asks for it; a parent of -1 has no cycle.
+     */
+    boolean expands(int parent, int input) {
+        return input >= 0 && choiceCount(input) > 0 && (parent < 0 || !defaults.closesCycle(parent, input));
+    }
+
+    /**
+     * Raw material key of a recipe input: the item ID, or {@link #RESOURCE_PREFIX} plus the resource type ID.
+     */
+    String rawKey(int recipe, int e) {
+        int input = graph.inputItem(recipe, e);
+        return input >= 0 ? graph.getItemId(input) : RESOURCE_PREFIX + graph.getResourceId(graph.inputResource(recipe, e));
+    }
+
+    private Configuration configuration(Map<String, Integer> recipeChoices) {
+        if (recipeChoices == null || recipeChoices.isEmpty()) return defaults;
+
+        // Only choices that pick something other than the first recipe change the graph
+        List<int[]> picked = new ArrayList<>();
+        for (Map.Entry<String, Integer> entry : recipeChoices.entrySet()) {
+            int item = graph.itemOrdinal(entry.getKey());
+            if (item < 0 || entry.getValue() == null) continue;
+            int count = choiceCount(item);
+            int index = count > 1 ? Math.floorMod(entry.getValue(), count) : 0;
+            if (index != 0) picked.add(new int[]{item, index});
+        }
+        if (picked.isEmpty()) return defaults;
+
+        picked.sort((a, b) -> Integer.compare(a[0], b[0]));
+        int[] items = new int[picked.size()];
+        int[] indices = new int[picked.size()];
+        StringBuilder key = new StringBuilder();
+        for (int i = 0; i < items.length; i++) {
+            items[i] = picked.get(i)[0];
+            indices[i] = picked.get(i)[1];
+            key.append(items[i]).append(':').append(indices[i]).append(',');
+        }
+
+        String signature = key.toString();
+        Configuration config;
+        synchronized (configurations) {
+            config = configurations.get(signature);
+        }
+        if (config != null) return config;
+
+        // Built outside the lock; a racing build of the same signature is discarded
+        Configuration built = new Configuration(items, indices);
+        synchronized (configurations) {
+            config = configurations.putIfAbsent(signature, built);
+        }
+        return config != null ? config : built;
+    }
+
+    int choiceCount(int item) {
+        return choiceOffsets[item + 1] - choiceOffsets[item];
+    }
+
+    /**
+     * Recipe ordinal of an item's index-th choice.
+     */
+    int choice(int item, int index) {
+        return choices[choiceOffsets[item] + index];
+    }
+
+    int batchSize(int recipe, int item) {
+        return Math.max(1, graph.outputQuantityOf(recipe, item));
+    }
+
+    private static long ceilDiv(long value, long divisor) {
+        return (value + divisor - 1) / divisor;
+    }
+
+    private static boolean isSalvagerRecipe(CraftingRecipe recipe) {
+        if (recipe == null) return false;
+        try {
+            BenchRequirement[] benchRequirements = recipe.getBenchRequirement();
+            if (benchRequirements != null) {
+                for (BenchRequirement bench : benchRequirements) {
+                    if (bench != null && SALVAGE_BENCH.equals(bench.id)) return true;
+                }
+            }
+        } catch (Exception ignored) {}
+        return false;
+    }
+
+    /**
+     * One recipe choice per item, the item graph's strongly connected components under those choices,
+     * and the plans built so far.
+     */
+    private final class Configuration {
+        private final int[] chosenIndex;  // per item, index into its choices
+        private final int[] component;    // Tarjan component per item; dependencies get lower ids
+        private final Map<Integer, Plan> plans = new ConcurrentHashMap<>();
+
+        Configuration(int[] items, int[] indices) {
+            this.chosenIndex = new int[graph.itemCount()];
+            for (int i = 0; i < items.length; i++) {
+                chosenIndex[items[i]] = indices[i];
+            }
+            this.component = Components.of(graph.itemCount(), new Components.Edges() {
+                @Override
+                public int count(int item) {
+                    int recipe = chosen(item);
+                    return recipe >= 0 ? graph.inputCount(recipe) : 0;
+                }
+
+                @Override
+                public int target(int item, int i) {
+                    return graph.inputItem(chosen(item), i);
+                }
+            });
+        }
+
+        int choiceIndex(int item) {
+            return chosenIndex[item];
+        }
+
+        /**
+         * Chosen recipe ordinal for an item, or -1 if it has none.
+         */
+        int chosen(int item) {
+            return choiceCount(item) > 0 ? choice(item, chosenIndex[item]) : -1;
+        }
+
+        /**
+         * Whether expanding the input from this parent would walk back into the parent's own cycle.
+         */
+        boolean closesCycle(int parent, int input) {
+            return component[parent] == component[input];
+        }
+    }
+
+    /**
+     * The items expanded below one root under one configuration, in topological order (root first),
+     * with their input edges flattened to local indices and the raw materials per unit of the root.
+     */
+    private final class Plan {
+        private final int[] nodes;         // item ordinal per local index
+        private final int[] yields;
+        private final int[] edgeOffsets;
+        private final int[] edgeTargets;   // local node index, or -(raw index + 1)
+        private final int[] edgeQuantities;
+        private final String[] rawKeys;
+        private final double[] perUnit;
+        private final long[] unitCounts;   // exact per-unit counts when every batch is a single item, else null
+
+        Plan(Configuration config, int root) {
+            // Discover expanded items and raw materials in walk order
+            List<Integer> discovered = new ArrayList<>();
+            Map<Integer, Integer> discoveredAt = new LinkedHashMap<>();
+            Map<String, Integer> rawIndex = new LinkedHashMap<>();
+            discover(config, root, discovered, discoveredAt, rawIndex);
+
+            // Cross-component edges always point to a lower component, so sorting by component
+            // descending is a topological order; the root owns the highest reachable component
+            Integer[] order = discovered.toArray(new Integer[0]);
+            Arrays.sort(order, (a, b) -> config.component[b] != config.component[a]
+                    ? Integer.compare(config.component[b], config.component[a])
+                    : Integer.compare(discoveredAt.get(a), discoveredAt.get(b)));
+            Map<Integer, Integer> local = new LinkedHashMap<>();
+            for (int i = 0; i < order.length; i++) local.put(order[i], i);
+
+            this.nodes = new int[order.length];
+            for (int i = 0; i < order.length; i++) nodes[i] = order[i];
+            this.yields = new int[order.length];
+            this.edgeOffsets = new int[order.length + 1];
+            List<int[]> edges = new ArrayList<>();
+            boolean unitBatches = true;
+            for (int i = 0; i < order.length; i++) {
+                int item = order[i];
+                int recipe = config.chosen(item);
+                yields[i] = batchSize(recipe, item);
+                if (yields[i] != 1) unitBatches = false;
+                for (int e = 0; e < graph.inputCount(recipe); e++) {
+                    int target = inputTarget(config, item, recipe, e, local, rawIndex);
+                    edges.add(new int[]{target, graph.inputQuantity(recipe, e)});
+                }
+                edgeOffsets[i + 1] = edges.size();
+            }
+            this.edgeTargets = new int[edges.size()];
+            this.edgeQuantities = new int[edges.size()];
+            for (int e = 0; e < edges.size(); e++) {
+                edgeTargets[e] = edges.get(e)[0];
+                edgeQuantities[e] = edges.get(e)[1];
+            }
+            this.rawKeys = rawIndex.keySet().toArray(new String[0]);
+
+            // Per-unit vector: one fractional sweep down the topological order
+            double[] demand = new double[order.length];
+            this.perUnit = new double[rawKeys.length];
+            demand[0] = 1;
+            for (int i = 0; i < order.length; i++) {
+                if (demand[i] == 0) continue;
+                double crafts = demand[i] / yields[i];
+                for (int e = edgeOffsets[i]; e < edgeOffsets[i + 1]; e++) {
+                    double amount = crafts * edgeQuantities[e];
+                    if (edgeTargets[e] >= 0) demand[edgeTargets[e]] += amount;
+                    else perUnit[-edgeTargets[e] - 1] += amount;
+                }
+            }
+            this.unitCounts = unitBatches ? sweep(1) : null;
+        }
+
+        /**
+         * Raw materials for a quantity of the root: a vector scale when no batch rounding can occur.
+         */
+        long[] scale(long quantity) {
+            if (unitCounts == null) return sweep(quantity);
+            long[] result = new long[unitCounts.length];
+            for (int i = 0; i < result.length; i++) result[i] = unitCounts[i] * quantity;
+            return result;
+        }
+
+        /**
+         * Demand summed per item before rounding up to whole crafts, so leftovers of one batch
+         * cover every use of that item.
+         */
+        private long[] sweep(long quantity) {
+            long[] demand = new long[yields.length];
+            long[] result = new long[rawKeys.length];
+            demand[0] = quantity;
+            for (int i = 0; i < yields.length; i++) {
+                if (demand[i] == 0) continue;
+                long crafts = ceilDiv(demand[i], yields[i]);
+                for (int e = edgeOffsets[i]; e < edgeOffsets[i + 1]; e++) {
+                    long amount = crafts * edgeQuantities[e];
+                    if (edgeTargets[e] >= 0) demand[edgeTargets[e]] += amount;
+                    else result[-edgeTargets[e] - 1] += amount;
+                }
+            }
+            return result;
+        }
+
+        // Depth-first walk on an explicit stack (as in Components), so long chains cannot overflow the stack;
+        // items and raw materials are discovered in the same order as a recursive walk
+        private void discover(Configuration config, int root, List<Integer> discovered,
+                              Map<Integer, Integer> discoveredAt, Map<String, Integer> rawIndex) {
+            int[] callItem = new int[graph.itemCount()];
+            int[] callEdge = new int[graph.itemCount()];
+            int top = 0;
+            callItem[0] = root;
+            discoveredAt.put(root, discovered.size());
+            discovered.add(root);
+
+            while (top >= 0) {
+                int item = callItem[top];
+                int recipe = config.chosen(item);
+                if (callEdge[top] >= graph.inputCount(recipe)) {
+                    top--;
+                    continue;
+                }
+                int e = callEdge[top]++;
+                int input = graph.inputItem(recipe, e);
+                if (input >= 0 && choiceCount(input) > 0 && !config.closesCycle(item, input)) {
+                    if (!discoveredAt.containsKey(input)) {
+                        discoveredAt.put(input, discovered.size());
+                        discovered.add(input);
+                        top++;
+                        callItem[top] = input;
+                        callEdge[top] = 0;
+                    }
+                } else {
+                    rawIndex.putIfAbsent(rawKey(recipe, e), rawIndex.size());
+                }
+            }
+        }
+
+        private int inputTarget(Configuration config, int item, int recipe, int e,
+                                Map<Integer, Integer> local, Map<String, Integer> rawIndex) {
+            int input = graph.inputItem(recipe, e);
+            if (input >= 0 && choiceCount(input) > 0 && !config.closesCycle(item, input)) {
+                return local.get(input);
+            }
+            return -rawIndex.get(rawKey(recipe, e)) - 1;
+        }
+    }
+
+    /**
+     * What a snapshot holds of everything one plan can spend, in slots: plan nodes, raw items and the
+     * members of its resource pools. Built once per search, so each probe is array work on a reused buffer.
+     */
+    private final class Holdings {
+        private final Plan plan;
+        private final long[] held;
+        private final long[] left;
+        private final int[] nodeSlots;    // per plan node
+        private final int[] rawSlots;     // per raw key, -1 for a resource type
+        private final int[][] poolSlots;  // per raw key, pool members in spend order; null for an item
+        private final long[] demand;
+        private final long[] rawDemand;
+
+        Holdings(Plan plan, InventorySnapshot snapshot) {
+            this.plan = plan;
+            Map<String, Integer> slots = new HashMap<>();
+            List<String> ids = new ArrayList<>();
+            this.nodeSlots = new int[plan.nodes.length];
+            for (int i = 0; i < nodeSlots.length; i++) nodeSlots[i] = slot(graph.getItemId(plan.nodes[i]), slots, ids);
+            this.rawSlots = new int[plan.rawKeys.length];
+            this.poolSlots = new int[plan.rawKeys.length][];
+            for (int r = 0; r < rawSlots.length; r++) {
+                String key = plan.rawKeys[r];
+                if (key.startsWith(RESOURCE_PREFIX)) {
+                    rawSlots[r] = -1;
+                    List<String> members = snapshot.resourceMembers(key.substring(RESOURCE_PREFIX.length()));
+                    poolSlots[r] = new int[members.size()];
+                    for (int m = 0; m < members.size(); m++) poolSlots[r][m] = slot(members.get(m), slots, ids);
+                } else {
+                    rawSlots[r] = slot(key, slots, ids);
+                }
+            }
+            this.held = new long[ids.size()];
+            for (int i = 0; i < held.length; i++) held[i] = snapshot.count(ids.get(i));
+            this.left = new long[held.length];
+            this.demand = new long[plan.nodes.length];
+            this.rawDemand = new long[plan.rawKeys.length];
+        }
+
+        /**
+         * Whether the holdings cover a quantity of the plan's root; the same spending order as
+         * {@link #planWithInventory}, without its bookkeeping.
+         */
+        boolean covers(long quantity) {
+            System.arraycopy(held, 0, left, 0, held.length);
+            Arrays.fill(demand, 0);
+            Arrays.fill(rawDemand, 0);
+            demand[0] = quantity;
+            for (int i = 0; i < demand.length; i++) {
+                if (i > 0) demand[i] -= take(nodeSlots[i], demand[i]);
+                if (demand[i] == 0) continue;
+                long count = ceilDiv(demand[i], plan.yields[i]);
+                for (int e = plan.edgeOffsets[i]; e < plan.edgeOffsets[i + 1]; e++) {
+                    long amount = count * plan.edgeQuantities[e];
+                    if (plan.edgeTargets[e] >= 0) demand[plan.edgeTargets[e]] += amount;
+                    else rawDemand[-plan.edgeTargets[e] - 1] += amount;
+                }
+            }
+            // Plain items before resource pools, so a pool never spends an item named outright
+            for (int r = 0; r < rawDemand.length; r++) {
+                if (rawSlots[r] >= 0 && take(rawSlots[r], rawDemand[r]) < rawDemand[r]) return false;
+            }
+            for (int r = 0; r < rawDemand.length; r++) {
+                if (rawSlots[r] >= 0) continue;
+                long taken = 0;
+                for (int m = 0; m < poolSlots[r].length && taken < rawDemand[r]; m++) {
+                    taken += take(poolSlots[r][m], rawDemand[r] - taken);
+                }
+                if (taken < rawDemand[r]) return false;
+            }
+            return true;
+        }
+
+        private long take(int slot, long amount) {
+            long taken = Math.min(left[slot], Math.max(0, amount));
+            left[slot] -= taken;
+            return taken;
+        }
+
+        private int slot(String itemId, Map<String, Integer> slots, List<String> ids) {
+            Integer slot = slots.get(itemId);
+            if (slot != null) return slot;
+            slots.put(itemId, ids.size());
+            ids.add(itemId);
+            return ids.size() - 1;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package dev.hytalemod.jet.calc;
+
+import dev.hytalemod.jet.util.InventorySnapshot;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A crafting plan evaluated against one inventory snapshot: the raw materials still missing,
+ * the crafts still required per item, and what the plan takes from the inventory.
+ * Remembers which items and resource types it read, so an inventory change elsewhere can be ignored.
+ */
+public final class InventoryPlan {
+
+    private final InventorySnapshot snapshot;
+    private final Map<String, Long> missing;
+    private final Map<String, Long> crafts;
+    private final Map<String, Long> used;
+    private final Set<String> watchedItems;
+    private final Set<String> watchedResources;
+    private final long totalCrafts;
+
+    InventoryPlan(InventorySnapshot snapshot, Map<String, Long> missing, Map<String, Long> crafts, Map<String, Long> used,
+                  Set<String> watchedItems, Set<String> watchedResources) {
+        this.snapshot = snapshot;
+        this.missing = Collections.unmodifiableMap(missing);
+        this.crafts = Collections.unmodifiableMap(crafts);
+        this.used = Collections.unmodifiableMap(used);
+        this.watchedItems = Collections.unmodifiableSet(watchedItems);
+        this.watchedResources = Collections.unmodifiableSet(watchedResources);
+        long total = 0;
+        for (long count : crafts.values()) total += count;
+        this.totalCrafts = total;
+    }
+
+    public InventorySnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Raw materials the inventory does not cover, keyed like {@link CraftingCalculator#rawMaterials}.
+     */
+    public Map<String, Long> getMissing() {
+        return missing;
+    }
+
+    /**
+     * Item ID -> crafts still required, in topological order starting with the target.
+     */
+    public Map<String, Long> getCrafts() {
+        return crafts;
+    }
+
+    /**
+     * Item or resource key -> quantity taken from the inventory.
+     */
+    public Map<String, Long> getUsed() {
+        return used;
+    }
+
+    public long getTotalCrafts() {
+        return totalCrafts;
+    }
+
+    /**
+     * Whether a newer snapshot changes any item or resource pool this plan read.
+     */
+    public boolean isAffectedBy(InventorySnapshot newer) {
+        for (String itemId : watchedItems) {
+            if (snapshot.count(itemId) != newer.count(itemId)) return true;
+        }
+        for (String resourceId : watchedResources) {
+            if (snapshot.resourceCount(resourceId) != newer.resourceCount(resourceId)) return true;
+        }
+        return false;
+    }
+}
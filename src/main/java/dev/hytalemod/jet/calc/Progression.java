@@ -0,0 +1,64 @@
+package dev.hytalemod.jet.calc;
+
+import dev.hytalemod.jet.registry.RecipeGraph;
+
+/**
+ * Where each item sits in the tech tree: the longest chain of crafts from raw materials and the highest
+ * bench tier on the way, both along the easiest route (the recipe minimising each). Computed once per
+ * recipe graph by {@link RecipeSolver}, whose pass over the condensed graph visits every item and edge
+ * once in dependency order; raw materials sit at depth 0, tier 0.
+ */
+public final class Progression {
+
+    // Crafting depth: one more than the deepest input, with raw materials at zero
+    private static final RecipeSolver.CostFunction DEPTH = new RecipeSolver.CostFunction() {
+        @Override
+        public double rawItem(RecipeGraph graph, int item) {
+            return 0;
+        }
+
+        @Override
+        public double rawResource(RecipeGraph graph, int resource) {
+            return 0;
+        }
+
+        @Override
+        public double combine(RecipeGraph graph, int recipe, int item, int batchSize, double[] inputCosts) {
+            double deepest = 0;
+            for (double cost : inputCosts) deepest = Math.max(deepest, cost);
+            return deepest + 1;
+        }
+    };
+
+    private final RecipeGraph graph;
+    private final int[] depths;
+    private final int[] tiers;
+
+    Progression(CraftingCalculator calculator) {
+        this.graph = calculator.getGraph();
+        RecipeSolver depth = calculator.solver(DEPTH);
+        RecipeSolver tier = calculator.solver(RecipeSolver.Objective.BENCH_TIER);
+        this.depths = new int[graph.itemCount()];
+        this.tiers = new int[graph.itemCount()];
+        for (int item = 0; item < depths.length; item++) {
+            depths[item] = (int) depth.cost(item);
+            tiers[item] = (int) tier.cost(item);
+        }
+    }
+
+    /**
+     * Crafts on the longest chain from raw materials to the item; 0 for raw or unknown items.
+     */
+    public int depth(String itemId) {
+        int item = graph.itemOrdinal(itemId);
+        return item >= 0 ? depths[item] : 0;
+    }
+
+    /**
+     * Highest bench tier any craft on the way to the item requires; 0 when none does.
+     */
+    public int tier(String itemId) {
+        int item = graph.itemOrdinal(itemId);
+        return item >= 0 ? tiers[item] : 0;
+    }
+}
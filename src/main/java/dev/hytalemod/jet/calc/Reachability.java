@@ -0,0 +1,143 @@
+package dev.hytalemod.jet.calc;
+
+import dev.hytalemod.jet.registry.RecipeGraph;
+import dev.hytalemod.jet.util.InventorySnapshot;
+
+import java.util.BitSet;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Items an inventory can reach through any number of crafts.
+ *
+ * The static closure of an item or resource type (every item some chain of recipes starting from it
+ * can produce) ignores quantities and is computed once per graph on first use. An evaluation unions the
+ * closures of what is held into a candidate set, then runs a fixed point over the recipes producing
+ * candidates: a recipe fires when the quantities available cover its inputs, and its batch raises the
+ * available quantity of its outputs. Quantities are not spent between recipes, so the answer is
+ * "each of these can be made", not "all of these at once". Crafted items do not join resource pools.
+ */
+final class Reachability {
+
+    // Saturation point for available quantities, far above any real stack
+    private static final long MAX_AVAILABLE = Integer.MAX_VALUE;
+
+    private final RecipeGraph graph;
+    private final Map<Integer, BitSet> itemClosures = new ConcurrentHashMap<>();
+    private final Map<Integer, BitSet> resourceClosures = new ConcurrentHashMap<>();
+
+    Reachability(RecipeGraph graph) {
+        this.graph = graph;
+    }
+
+    BitSet reachableWith(InventorySnapshot snapshot) {
+        BitSet reached = new BitSet(graph.itemCount());
+        if (snapshot.getItems().isEmpty()) return reached;
+
+        long[] available = new long[graph.itemCount()];
+        long[] resources = new long[graph.resourceCount()];
+        BitSet usable = new BitSet(graph.itemCount());
+        BitSet candidates = new BitSet(graph.itemCount());
+        for (Map.Entry<String, Integer> entry : snapshot.getItems().entrySet()) {
+            int item = graph.itemOrdinal(entry.getKey());
+            if (item < 0 || entry.getValue() <= 0) continue;
+            available[item] = entry.getValue();
+            usable.set(item);
+            candidates.or(itemClosure(item));
+        }
+        for (String resourceId : snapshot.getResourceTypes()) {
+            int resource = graph.resourceOrdinal(resourceId);
+            if (resource < 0) continue;
+            resources[resource] = snapshot.resourceCount(resourceId);
+            if (resources[resource] > 0) candidates.or(resourceClosure(resource));
+        }
+        usable.or(candidates);
+
+        // Recipes producing a candidate whose item inputs can all become available at all
+        BitSet recipes = new BitSet(graph.recipeCount());
+        for (int item = candidates.nextSetBit(0); item >= 0; item = candidates.nextSetBit(item + 1)) {
+            for (int p = 0; p < graph.producerCount(item); p++) {
+                int recipe = graph.producer(item, p);
+                if (!recipes.get(recipe) && inputsUsable(recipe, usable, resources)) recipes.set(recipe);
+            }
+        }
+
+        // Available quantities only grow; a chain settles in one pass per recipe on it, and the pass
+        // limit stops loops that yield more than they take from growing forever
+        boolean changed = true;
+        for (int pass = recipes.cardinality() + 1; changed && pass > 0; pass--) {
+            changed = false;
+            for (int recipe = recipes.nextSetBit(0); recipe >= 0; recipe = recipes.nextSetBit(recipe + 1)) {
+                long batches = Long.MAX_VALUE;
+                for (int i = 0; i < graph.inputCount(recipe) && batches > 0; i++) {
+                    int item = graph.inputItem(recipe, i);
+                    long have = item >= 0 ? available[item] : resources[graph.inputResource(recipe, i)];
+                    batches = Math.min(batches, have / Math.max(1, graph.inputQuantity(recipe, i)));
+                }
+                if (batches <= 0 || batches == Long.MAX_VALUE) continue;
+                for (int o = 0; o < graph.outputCount(recipe); o++) {
+                    int item = graph.outputItem(recipe, o);
+                    reached.set(item);
+                    long amount = Math.min(batches * graph.outputQuantity(recipe, o), MAX_AVAILABLE);
+                    if (amount > available[item]) {
+                        available[item] = amount;
+                        changed = true;
+                    }
+                }
+            }
+        }
+        return reached;
+    }
+
+    private boolean inputsUsable(int recipe, BitSet usable, long[] resources) {
+        if (graph.inputCount(recipe) == 0) return false;
+        for (int i = 0; i < graph.inputCount(recipe); i++) {
+            int item = graph.inputItem(recipe, i);
+            if (item >= 0 ? !usable.get(item) : resources[graph.inputResource(recipe, i)] <= 0) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Every item a chain of recipes starting with the item as an input can produce, ignoring quantities.
+     */
+    BitSet itemClosure(int item) {
+        return itemClosures.computeIfAbsent(item, i -> {
+            BitSet closure = new BitSet(graph.itemCount());
+            int[] queue = new int[graph.itemCount()];
+            int tail = addOutputs(graph.consumerCount(i), c -> graph.consumer(i, c), closure, queue, 0);
+            return close(closure, queue, tail);
+        });
+    }
+
+    BitSet resourceClosure(int resource) {
+        return resourceClosures.computeIfAbsent(resource, r -> {
+            BitSet closure = new BitSet(graph.itemCount());
+            int[] queue = new int[graph.itemCount()];
+            int tail = addOutputs(graph.resourceConsumerCount(r), c -> graph.resourceConsumer(r, c), closure, queue, 0);
+            return close(closure, queue, tail);
+        });
+    }
+
+    private BitSet close(BitSet closure, int[] queue, int tail) {
+        for (int head = 0; head < tail; head++) {
+            int item = queue[head];
+            tail = addOutputs(graph.consumerCount(item), c -> graph.consumer(item, c), closure, queue, tail);
+        }
+        return closure;
+    }
+
+    private int addOutputs(int recipeCount, IntUnaryOperator recipeAt, BitSet closure, int[] queue, int tail) {
+        for (int c = 0; c < recipeCount; c++) {
+            int recipe = recipeAt.applyAsInt(c);
+            for (int o = 0; o < graph.outputCount(recipe); o++) {
+                int output = graph.outputItem(recipe, o);
+                if (closure.get(output)) continue;
+                closure.set(output);
+                queue[tail++] = output;
+            }
+        }
+        return tail;
+    }
+}
@@ -0,0 +1,249 @@
+package dev.hytalemod.jet.calc;
+
+import dev.hytalemod.jet.registry.RecipeGraph;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Picks the cheapest recipe for every item under a cost function, once per recipe graph.
+ *
+ * The graph over all non-salvager recipes is condensed into strongly connected components and solved
+ * dependencies first, so every input outside an item's own component already has its final best cost.
+ * Inside a cycle the members are relaxed until nothing improves, the way shortest paths are; an item that
+ * can only be made through its own cycle is costed as raw, matching how the calculator cuts cycles.
+ */
+public final class RecipeSolver {
+
+    /**
+     * Cost of one unit of an item. Raw costs apply to uncraftable items and resource types;
+     * combine costs one unit of a recipe's output from the per-unit costs of its inputs.
+     */
+    public interface CostFunction {
+        double rawItem(RecipeGraph graph, int item);
+
+        double rawResource(RecipeGraph graph, int resource);
+
+        double combine(RecipeGraph graph, int recipe, int item, int batchSize, double[] inputCosts);
+    }
+
+    /**
+     * Built-in objectives offered by the calculator's Optimize action.
+     */
+    public enum Objective implements CostFunction {
+        RAW_ITEMS("Fewest raw items") {
+            @Override
+            public double combine(RecipeGraph graph, int recipe, int item, int batchSize, double[] inputCosts) {
+                double total = 0;
+                for (int i = 0; i < inputCosts.length; i++) {
+                    total += graph.inputQuantity(recipe, i) * inputCosts[i];
+                }
+                return total / batchSize;
+            }
+        },
+        CRAFTS("Fewest crafts") {
+            @Override
+            public double rawItem(RecipeGraph graph, int item) {
+                return 0;
+            }
+
+            @Override
+            public double rawResource(RecipeGraph graph, int resource) {
+                return 0;
+            }
+
+            @Override
+            public double combine(RecipeGraph graph, int recipe, int item, int batchSize, double[] inputCosts) {
+                double total = 1;
+                for (int i = 0; i < inputCosts.length; i++) {
+                    total += graph.inputQuantity(recipe, i) * inputCosts[i];
+                }
+                return total / batchSize;
+            }
+        },
+        BENCH_TIER("Lowest bench tier") {
+            @Override
+            public double rawItem(RecipeGraph graph, int item) {
+                return 0;
+            }
+
+            @Override
+            public double rawResource(RecipeGraph graph, int resource) {
+                return 0;
+            }
+
+            @Override
+            public double combine(RecipeGraph graph, int recipe, int item, int batchSize, double[] inputCosts) {
+                double highest = graph.benchTier(recipe);
+                for (double cost : inputCosts) highest = Math.max(highest, cost);
+                return highest;
+            }
+        };
+
+        private final String displayName;
+
+        Objective(String displayName) {
+            this.displayName = displayName;
+        }
+
+        public String getDisplayName() {
+            return displayName;
+        }
+
+        @Override
+        public double rawItem(RecipeGraph graph, int item) {
+            return 1;
+        }
+
+        @Override
+        public double rawResource(RecipeGraph graph, int resource) {
+            return 1;
+        }
+
+        public Objective next() {
+            Objective[] all = values();
+            return all[(ordinal() + 1) % all.length];
+        }
+    }
+
+    // Improvements smaller than this are float noise and must not keep a cycle relaxing
+    private static final double EPSILON = 1e-9;
+
+    private final CraftingCalculator calculator;
+    private final double[] costs;
+    private final int[] best;    // per item, index into the calculator's choices
+
+    RecipeSolver(CraftingCalculator calculator, CostFunction cost) {
+        this.calculator = calculator;
+        RecipeGraph graph = calculator.getGraph();
+        int n = graph.itemCount();
+        this.costs = new double[n];
+        this.best = new int[n];
+
+        // Every input edge of every choosable recipe, flattened per item for the component pass
+        int[] edgeOffsets = new int[n + 1];
+        for (int item = 0; item < n; item++) {
+            int edges = 0;
+            for (int k = 0; k < calculator.choiceCount(item); k++) {
+                edges += graph.inputCount(calculator.choice(item, k));
+            }
+            edgeOffsets[item + 1] = edgeOffsets[item] + edges;
+        }
+        int[] edgeTargets = new int[edgeOffsets[n]];
+        for (int item = 0, e = 0; item < n; item++) {
+            for (int k = 0; k < calculator.choiceCount(item); k++) {
+                int recipe = calculator.choice(item, k);
+                for (int i = 0; i < graph.inputCount(recipe); i++) {
+                    edgeTargets[e++] = graph.inputItem(recipe, i);
+                }
+            }
+        }
+        int[] component = Components.of(n, new Components.Edges() {
+            @Override
+            public int count(int item) {
+                return edgeOffsets[item + 1] - edgeOffsets[item];
+            }
+
+            @Override
+            public int target(int item, int i) {
+                return edgeTargets[edgeOffsets[item] + i];
+            }
+        });
+
+        // Bucket items by component; ascending component ids put dependencies first
+        int componentCount = 0;
+        for (int c : component) componentCount = Math.max(componentCount, c + 1);
+        int[] memberOffsets = new int[componentCount + 1];
+        for (int c : component) memberOffsets[c + 1]++;
+        for (int c = 0; c < componentCount; c++) memberOffsets[c + 1] += memberOffsets[c];
+        int[] members = new int[n];
+        int[] fill = Arrays.copyOf(memberOffsets, componentCount);
+        for (int item = 0; item < n; item++) members[fill[component[item]]++] = item;
+
+        for (int item = 0; item < n; item++) {
+            costs[item] = calculator.choiceCount(item) > 0 ? Double.POSITIVE_INFINITY : cost.rawItem(graph, item);
+        }
+
+        for (int c = 0; c < componentCount; c++) {
+            int from = memberOffsets[c];
+            int to = memberOffsets[c + 1];
+            // A dependency-free member settles in one round; a cycle of k members within k + 1
+            for (int round = 0; round <= to - from; round++) {
+                boolean improved = false;
+                for (int m = from; m < to; m++) {
+                    improved |= relax(graph, cost, members[m]);
+                }
+                if (!improved) break;
+            }
+            for (int m = from; m < to; m++) {
+                int item = members[m];
+                if (Double.isInfinite(costs[item])) costs[item] = cost.rawItem(graph, item);
+            }
+        }
+    }
+
+    /**
+     * Best per-unit cost of an item, or NaN if the graph does not know it.
+     */
+    public double cost(String itemId) {
+        int item = calculator.getGraph().itemOrdinal(itemId);
+        return item >= 0 ? costs[item] : Double.NaN;
+    }
+
+    double cost(int item) {
+        return costs[item];
+    }
+
+    /**
+     * Recipe choices for every multi-recipe item the best plan for the target goes through,
+     * in the calculator's choice format.
+     */
+    public Map<String, Integer> choicesFor(String itemId) {
+        Map<String, Integer> result = new LinkedHashMap<>();
+        RecipeGraph graph = calculator.getGraph();
+        int root = graph.itemOrdinal(itemId);
+        if (root < 0) return result;
+
+        boolean[] seen = new boolean[graph.itemCount()];
+        Deque<Integer> pending = new ArrayDeque<>();
+        pending.push(root);
+        seen[root] = true;
+        while (!pending.isEmpty()) {
+            int item = pending.pop();
+            int count = calculator.choiceCount(item);
+            if (count == 0) continue;
+            if (count > 1) result.put(graph.getItemId(item), best[item]);
+            int recipe = calculator.choice(item, best[item]);
+            for (int i = 0; i < graph.inputCount(recipe); i++) {
+                int input = graph.inputItem(recipe, i);
+                if (input >= 0 && !seen[input]) {
+                    seen[input] = true;
+                    pending.push(input);
+                }
+            }
+        }
+        return result;
+    }
+
+    private boolean relax(RecipeGraph graph, CostFunction cost, int item) {
+        boolean improved = false;
+        for (int k = 0; k < calculator.choiceCount(item); k++) {
+            int recipe = calculator.choice(item, k);
+            double[] inputCosts = new double[graph.inputCount(recipe)];
+            for (int i = 0; i < inputCosts.length; i++) {
+                int input = graph.inputItem(recipe, i);
+                inputCosts[i] = input >= 0 ? costs[input] : cost.rawResource(graph, graph.inputResource(recipe, i));
+            }
+            double candidate = cost.combine(graph, recipe, item, calculator.batchSize(recipe, item), inputCosts);
+            if (candidate < costs[item] - EPSILON) {
+                costs[item] = candidate;
+                best[item] = k;
+                improved = true;
+            }
+        }
+        return improved;
+    }
+}
@@ -0,0 +1,204 @@
+package dev.hytalemod.jet.calc;
+
+import dev.hytalemod.jet.registry.RecipeGraph;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * One merged plan for several targets: pinned items (one of each) and pinned recipes (one craft each).
+ *
+ * Every target's expanded items are reference counted into one union, kept in the calculator's
+ * topological order, and a single sweep sums demand per item across all targets before rounding up
+ * to whole crafts, so an intermediate shared by two targets is listed and crafted once.
+ * Adding or removing a target only touches that target's items; the sweep reruns on the next read.
+ * Not thread-safe; each player owns one.
+ */
+public final class ShoppingList {
+
+    private final CraftingCalculator calculator;
+    private final RecipeGraph graph;
+    private final int[] memberCount;
+    private final Map<Integer, Long> itemTargets = new LinkedHashMap<>();
+    private final Map<Integer, Long> recipeTargets = new LinkedHashMap<>();
+    private final Map<String, Long> rawTargets = new LinkedHashMap<>();  // pinned items nothing crafts
+    private final Set<String> pinnedItems = new LinkedHashSet<>();
+    private final Set<String> pinnedRecipes = new LinkedHashSet<>();
+
+    private int[] order = new int[0];
+    private boolean orderDirty;
+    private Map<String, Long> rawMaterials = Collections.emptyMap();
+    private Map<String, Long> crafts = Collections.emptyMap();
+    private boolean dirty;
+
+    ShoppingList(CraftingCalculator calculator) {
+        this.calculator = calculator;
+        this.graph = calculator.getGraph();
+        this.memberCount = new int[graph.itemCount()];
+    }
+
+    public CraftingCalculator getCalculator() {
+        return calculator;
+    }
+
+    /**
+     * Bring the targets in line with the given pins, adding and removing only the differences.
+     * @return whether anything changed
+     */
+    public boolean sync(Collection<String> itemIds, Collection<String> recipeIds) {
+        boolean changed = false;
+        for (String itemId : new LinkedHashSet<>(pinnedItems)) {
+            if (!itemIds.contains(itemId)) changed |= removeItem(itemId);
+        }
+        for (String recipeId : new LinkedHashSet<>(pinnedRecipes)) {
+            if (!recipeIds.contains(recipeId)) changed |= removeRecipe(recipeId);
+        }
+        for (String itemId : itemIds) changed |= addItem(itemId);
+        for (String recipeId : recipeIds) changed |= addRecipe(recipeId);
+        return changed;
+    }
+
+    public boolean addItem(String itemId) {
+        if (itemId == null || !pinnedItems.add(itemId)) return false;
+        changeItem(itemId, 1);
+        return true;
+    }
+
+    public boolean removeItem(String itemId) {
+        if (!pinnedItems.remove(itemId)) return false;
+        changeItem(itemId, -1);
+        return true;
+    }
+
+    public boolean addRecipe(String recipeId) {
+        int recipe = graph.recipeOrdinal(recipeId);
+        if (recipe < 0 || !pinnedRecipes.add(recipeId)) return false;
+        changeRecipe(recipe, 1);
+        return true;
+    }
+
+    public boolean removeRecipe(String recipeId) {
+        if (!pinnedRecipes.remove(recipeId)) return false;
+        changeRecipe(graph.recipeOrdinal(recipeId), -1);
+        return true;
+    }
+
+    public boolean isEmpty() {
+        return pinnedItems.isEmpty() && pinnedRecipes.isEmpty();
+    }
+
+    /**
+     * Raw materials for every target together, keyed like {@link CraftingCalculator#rawMaterials}; read-only.
+     */
+    public Map<String, Long> getRawMaterials() {
+        evaluate();
+        return rawMaterials;
+    }
+
+    /**
+     * Item ID -> crafts required across every target, in topological order; read-only.
+     */
+    public Map<String, Long> getCrafts() {
+        evaluate();
+        return crafts;
+    }
+
+    private void changeItem(String itemId, int sign) {
+        int item = graph.itemOrdinal(itemId);
+        if (item < 0 || calculator.choiceCount(item) == 0) {
+            rawTargets.merge(itemId, (long) sign, Long::sum);
+            rawTargets.remove(itemId, 0L);
+        } else {
+            itemTargets.merge(item, (long) sign, Long::sum);
+            itemTargets.remove(item, 0L);
+            changeMembers(item, sign);
+        }
+        dirty = true;
+    }
+
+    private void changeRecipe(int recipe, int sign) {
+        recipeTargets.merge(recipe, (long) sign, Long::sum);
+        recipeTargets.remove(recipe, 0L);
+        int parent = outputOf(recipe);
+        for (int e = 0; e < graph.inputCount(recipe); e++) {
+            int input = graph.inputItem(recipe, e);
+            if (calculator.expands(parent, input)) changeMembers(input, sign);
+        }
+        dirty = true;
+    }
+
+    private void changeMembers(int root, int sign) {
+        for (int item : calculator.expandedItems(root)) {
+            int before = memberCount[item];
+            memberCount[item] += sign;
+            if ((before == 0) != (memberCount[item] == 0)) orderDirty = true;
+        }
+    }
+
+    private int outputOf(int recipe) {
+        return graph.outputCount(recipe) > 0 ? graph.outputItem(recipe, 0) : -1;
+    }
+
+    private void evaluate() {
+        if (!dirty) return;
+        dirty = false;
+        if (orderDirty) {
+            orderDirty = false;
+            int size = 0;
+            for (int count : memberCount) if (count > 0) size++;
+            Integer[] members = new Integer[size];
+            int next = 0;
+            for (int item = 0; item < memberCount.length; item++) if (memberCount[item] > 0) members[next++] = item;
+            Arrays.sort(members, (a, b) -> calculator.defaultComponent(a) != calculator.defaultComponent(b)
+                    ? Integer.compare(calculator.defaultComponent(b), calculator.defaultComponent(a))
+                    : Integer.compare(a, b));
+            order = new int[size];
+            for (int i = 0; i < size; i++) order[i] = members[i];
+        }
+
+        Map<Integer, Integer> local = new HashMap<>();
+        for (int i = 0; i < order.length; i++) local.put(order[i], i);
+        long[] demand = new long[order.length];
+        Map<String, Long> raw = new LinkedHashMap<>();
+        Map<String, Long> craftCounts = new LinkedHashMap<>();
+
+        for (Map.Entry<Integer, Long> target : itemTargets.entrySet()) {
+            demand[local.get(target.getKey())] += target.getValue();
+        }
+        for (Map.Entry<Integer, Long> target : recipeTargets.entrySet()) {
+            int recipe = target.getKey();
+            int output = outputOf(recipe);
+            if (output >= 0) craftCounts.merge(graph.getItemId(output), target.getValue(), Long::sum);
+            addInputs(recipe, output, target.getValue(), local, demand, raw);
+        }
+        raw.putAll(rawTargets);
+
+        // Demand is complete for an item once every item ordered before it has been swept
+        for (int i = 0; i < order.length; i++) {
+            if (demand[i] == 0) continue;
+            int item = order[i];
+            int recipe = calculator.defaultRecipe(item);
+            long count = (demand[i] + calculator.batchSize(recipe, item) - 1) / calculator.batchSize(recipe, item);
+            craftCounts.merge(graph.getItemId(item), count, Long::sum);
+            addInputs(recipe, item, count, local, demand, raw);
+        }
+
+        rawMaterials = Collections.unmodifiableMap(raw);
+        crafts = Collections.unmodifiableMap(craftCounts);
+    }
+
+    private void addInputs(int recipe, int parent, long count, Map<Integer, Integer> local, long[] demand, Map<String, Long> raw) {
+        for (int e = 0; e < graph.inputCount(recipe); e++) {
+            long amount = count * graph.inputQuantity(recipe, e);
+            int input = graph.inputItem(recipe, e);
+            if (calculator.expands(parent, input)) demand[local.get(input)] += amount;
+            else raw.merge(calculator.rawKey(recipe, e), amount, Long::sum);
+        }
+    }
+}
@@ -7,23 +7,34 @@ import com.hypixel.hytale.server.core.Message;
 import com.hypixel.hytale.server.core.command.system.AbstractCommand;
 import com.hypixel.hytale.server.core.command.system.CommandContext;
 import com.hypixel.hytale.server.core.command.system.CommandSender;
+import com.hypixel.hytale.server.core.command.system.arguments.system.OptionalArg;
+import com.hypixel.hytale.server.core.command.system.arguments.types.ArgTypes;
 import com.hypixel.hytale.server.core.entity.entities.Player;
 import com.hypixel.hytale.server.core.universe.PlayerRef;
 import com.hypixel.hytale.server.core.universe.world.World;
 import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
 import dev.hytalemod.jet.JETPlugin;
+import dev.hytalemod.jet.gui.JETGui;
 import dev.hytalemod.jet.gui.JETSettingsGui;
 
 import javax.annotation.Nonnull;
 import java.util.concurrent.CompletableFuture;
 import java.util.logging.Level;
 
+/**
+ * /jetconfig - Opens the JET settings
+ * /jetconfig stats - Shows search statistics
+ */
 public class JETConfigCommand extends AbstractCommand {
 
+    private final OptionalArg<String> actionArg;
+
     public JETConfigCommand() {
         super("jetconfig", "Open JET configuration", false);
         addAliases("jcfg");
         setPermissionGroup(GameMode.Adventure);
+
+        actionArg = withOptionalArg("action", "'stats' to show search statistics", ArgTypes.STRING);
     }
 
     @Override
@@ -51,6 +62,11 @@ public class JETConfigCommand extends AbstractCommand {
                 return;
             }
 
+            if ("stats".equalsIgnoreCase(actionArg.get(context))) {
+                playerRef.sendMessage(Message.raw("[JET] Search stats: " + JETGui.searchStatsSummary()).color("#AAAAAA"));
+                return;
+            }
+
             try {
                 JETSettingsGui gui = new JETSettingsGui(playerRef, JETPlugin.getInstance());
                 player.getPageManager().openCustomPage(ref, store, gui);
@@ -86,7 +86,7 @@ public class JETPinRecipeCommand extends AbstractCommand {
             if (finalRecipeId == null) {
                 // Search for partial match
                 String searchLower = recipeId.toLowerCase();
-                List<String> matches = JETPlugin.RECIPES.keySet().stream()
+                List<String> matches = JETPlugin.getRecipeGraph().getRecipeIds().stream()
                     .filter(id -> id.toLowerCase().contains(searchLower))
                     .limit(5)
                     .toList();
@@ -113,10 +113,10 @@ public class JETPinRecipeCommand extends AbstractCommand {
     }
     
     private String resolveRecipeId(String input) {
-        if (JETPlugin.RECIPES.containsKey(input)) {
+        if (JETPlugin.getRecipeGraph().hasRecipe(input)) {
             return input;
         }
-        if (JETPlugin.RECIPES.containsKey("hytale:" + input)) {
+        if (JETPlugin.getRecipeGraph().hasRecipe("hytale:" + input)) {
             return "hytale:" + input;
         }
         return null;
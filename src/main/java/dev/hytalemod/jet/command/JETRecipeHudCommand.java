@@ -26,7 +26,7 @@ import java.util.concurrent.CompletableFuture;
 
 /**
  * Command to pin/unpin recipes to HUD
- * Usage: /recipehud <recipeId>
+ * Usage: /recipehud <recipeId>, or /recipehud compact to toggle the shopping list view
  */
 public class JETRecipeHudCommand extends AbstractCommand {
     OptionalArg<String> arg;
@@ -94,10 +94,21 @@ public class JETRecipeHudCommand extends AbstractCommand {
                 return;
             }
 
+            // Toggle the merged shopping list view
+            if ("compact".equalsIgnoreCase(args)) {
+                RecipeHudComponent component = store.ensureAndGetComponent(ref, RecipeHudComponent.getComponentType());
+                component.compact = !component.compact;
+                playerRef.sendMessage(Message.raw(component.compact
+                        ? "[JET] HUD shows a shopping list for all pinned items and recipes"
+                        : "[JET] HUD shows pinned recipes").color("#55FF55"));
+                HudUtil.updateHud(ref);
+                return;
+            }
+
             String recipeId = args;
 
             // Verify recipe exists
-            if (!JETPlugin.RECIPES.containsKey(recipeId)) {
+            if (!JETPlugin.getRecipeGraph().hasRecipe(recipeId)) {
                 playerRef.sendMessage(Message.raw("[JET] Recipe not found: " + recipeId).color("#FF5555"));
                 return;
             }
@@ -24,17 +24,25 @@ public class RecipeHudComponent implements Component<EntityStore> {
                     (c, v) -> c.pinnedRecipes = v,
                     c -> c.pinnedRecipes)
             .add()
+            .append(new KeyedCodec<>("Compact", Codec.BOOLEAN),
+                    (c, v) -> c.compact = v != null && v,
+                    c -> c.compact)
+            .add()
             .build();
 
     private static ComponentType<EntityStore, RecipeHudComponent> COMPONENT_TYPE;
 
     public Set<String> pinnedRecipes = new LinkedHashSet<>();
 
+    // Compact mode shows one merged shopping list instead of a panel per recipe
+    public boolean compact;
+
     public RecipeHudComponent() {
     }
 
-    private RecipeHudComponent(Set<String> pinnedRecipes) {
+    private RecipeHudComponent(Set<String> pinnedRecipes, boolean compact) {
         this.pinnedRecipes = new LinkedHashSet<>(pinnedRecipes);
+        this.compact = compact;
     }
 
     public static void init(ComponentType<EntityStore, RecipeHudComponent> type) {
@@ -57,6 +65,13 @@ public class RecipeHudComponent implements Component<EntityStore> {
         return pinnedRecipes.contains(recipeId);
     }
 
+    /**
+     * Whether the HUD has anything to show; compact mode also lists pinned items.
+     */
+    public boolean isActive() {
+        return compact || !pinnedRecipes.isEmpty();
+    }
+
     public void toggleRecipe(String recipeId) {
         if (hasRecipe(recipeId)) {
             removeRecipe(recipeId);
@@ -68,6 +83,6 @@ public class RecipeHudComponent implements Component<EntityStore> {
     @Nullable
     @Override
     public Component<EntityStore> clone() {
-        return new RecipeHudComponent(pinnedRecipes);
+        return new RecipeHudComponent(pinnedRecipes, compact);
     }
 }
\ No newline at end of file
@@ -27,15 +27,25 @@ import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
 import com.hypixel.hytale.server.core.asset.type.item.config.ItemQuality;
 import com.hypixel.hytale.protocol.Color;
 import dev.hytalemod.jet.JETPlugin;
+import dev.hytalemod.jet.calc.CraftingCalculator;
+import dev.hytalemod.jet.calc.InventoryPlan;
+import dev.hytalemod.jet.calc.Progression;
+import dev.hytalemod.jet.calc.RecipeSolver;
 import dev.hytalemod.jet.component.RecipeHudComponent;
 import dev.hytalemod.jet.hud.HudUtil;
 import dev.hytalemod.jet.model.ItemCategory;
 import dev.hytalemod.jet.util.TooltipBuilder;
 import dev.hytalemod.jet.storage.BrowserState;
-import dev.hytalemod.jet.util.CategoryUtil;
 import dev.hytalemod.jet.util.InventoryScanner;
+import dev.hytalemod.jet.util.InventorySnapshot;
+import dev.hytalemod.jet.registry.RecipeGraph;
+import dev.hytalemod.jet.registry.SearchIndex;
 import dev.hytalemod.jet.registry.SetRegistry;
+import dev.hytalemod.jet.util.QueryPlan;
+import dev.hytalemod.jet.util.ResultCache;
 import dev.hytalemod.jet.util.SearchParser;
+import dev.hytalemod.jet.util.SearchStats;
+import dev.hytalemod.jet.util.TrigramIndex;
 import com.hypixel.hytale.server.core.entity.entities.Player;
 
 import com.hypixel.hytale.assetstore.AssetPack;
@@ -83,7 +93,17 @@ public class JETGui extends InteractiveCustomUIPage<JETGui.GuiData> {
     private String calcSelectedIngredient = null; // Ingredient selected for inline recipe detail
     private Set<String> calcCollapsedNodes = new HashSet<>(); // Collapsed tree branches in calc
     private Map<String, Integer> calcRecipeChoices = new HashMap<>(); // Per-item recipe index for multi-recipe items
+    private RecipeSolver.Objective calcObjective; // Objective the recipe choices were last optimized for, or null
+    private boolean calcUseInventory; // Spend the player's inventory in the calc plan
+    private InventoryPlan calcInventoryPlan; // Last inventory-aware evaluation, checked against inventory changes
+    private InventorySnapshot calcPendingSnapshot; // Snapshot an inventory event already took for the next evaluation
+    private List<Object> craftableKey;           // Inventory version, calculator, index and depth the "Can Craft" bits were computed for
+    private BitSet craftableCache;
+    private String compiledQuery; // Query the cached parser was built from
+    private SearchParser compiledParser;
+    private FilterState lastFilter; // Previous evaluation, refined while the player types
     private static final int MAX_HISTORY_SIZE = 20;
+    private static final ResultCache<String, ItemResults> RESULT_CACHE = new ResultCache<>(256);
 
     public JETGui(PlayerRef playerRef, CustomPageLifetime lifetime, String initialSearch, BrowserState saved) {
         super(playerRef, lifetime, GuiData.CODEC);
@@ -249,6 +269,10 @@ public class JETGui extends InteractiveCustomUIPage<JETGui.GuiData> {
                 com.hypixel.hytale.server.core.ui.LocalizableString.fromString("Quality"), "quality"));
         sortEntries.add(new com.hypixel.hytale.server.core.ui.DropdownEntryInfo(
                 com.hypixel.hytale.server.core.ui.LocalizableString.fromString("Craftable First"), "craftable"));
+        sortEntries.add(new com.hypixel.hytale.server.core.ui.DropdownEntryInfo(
+                com.hypixel.hytale.server.core.ui.LocalizableString.fromString("Progression"), "progression"));
+        sortEntries.add(new com.hypixel.hytale.server.core.ui.DropdownEntryInfo(
+                com.hypixel.hytale.server.core.ui.LocalizableString.fromString("Relevance"), "relevance"));
         cmd.set("#SortMode.Entries", sortEntries);
         cmd.set("#SortMode.Value", sortMode != null ? sortMode : "name_asc");
 
@@ -260,16 +284,7 @@ public class JETGui extends InteractiveCustomUIPage<JETGui.GuiData> {
         );
 
         // Mod filter dropdown
-        LinkedHashMap<String, String> packLabels = JETPlugin.getInstance().getItemRegistry().getAvailablePackLabels();
-        List<com.hypixel.hytale.server.core.ui.DropdownEntryInfo> modEntries = new ArrayList<>();
-        modEntries.add(new com.hypixel.hytale.server.core.ui.DropdownEntryInfo(
-                com.hypixel.hytale.server.core.ui.LocalizableString.fromString("All Mods"), ""));
-        for (Map.Entry<String, String> pe : packLabels.entrySet()) {
-            modEntries.add(new com.hypixel.hytale.server.core.ui.DropdownEntryInfo(
-                    com.hypixel.hytale.server.core.ui.LocalizableString.fromString(pe.getValue()),
-                    pe.getKey()));
-        }
-        cmd.set("#ModFilter.Entries", modEntries);
+        cmd.set("#ModFilter.Entries", JETPlugin.getInstance().getItemRegistry().getPackCatalogue().getDropdownEntries());
         cmd.set("#ModFilter.Value", modFilter != null ? modFilter : "");
 
         events.addEventBinding(
@@ -337,6 +352,32 @@ public class JETGui extends InteractiveCustomUIPage<JETGui.GuiData> {
         buildHistoryBar(cmd, events);
     }
 
+    /**
+     * Refresh the "Can Craft" views, and re-evaluate the inventory-aware calc plan when the change
+     * touches an item or pool it uses.
+     */
+    public void onInventoryChanged(Ref<EntityStore> ref, Store<EntityStore> store) {
+        Player player = store.getComponent(ref, Player.getComponentType());
+        if (player == null) return;
+
+        UICommandBuilder cmd = new UICommandBuilder();
+        UIEventBuilder events = new UIEventBuilder();
+        boolean changed = false;
+        if (dependsOnInventory(categoryFilter) && craftableChanged(player)) {
+            buildItemList(ref, cmd, events, store);
+            changed = true;
+        }
+        if (calcUseInventory && calcInventoryPlan != null && "calc".equals(activeSection)) {
+            InventorySnapshot snapshot = InventoryScanner.snapshot(player);
+            if (calcInventoryPlan.isAffectedBy(snapshot)) {
+                calcPendingSnapshot = snapshot;
+                buildRecipePanel(ref, cmd, events, store);
+                changed = true;
+            }
+        }
+        if (changed) sendUpdate(cmd, events, false);
+    }
+
     @Override
     public void handleDataEvent(Ref<EntityStore> ref, Store<EntityStore> store, GuiData data) {
         super.handleDataEvent(ref, store, data);
@@ -471,6 +512,7 @@ public class JETGui extends InteractiveCustomUIPage<JETGui.GuiData> {
             this.calcSelectedIngredient = null;
             this.calcCollapsedNodes.clear();
             this.calcRecipeChoices.clear();
+            this.calcObjective = null;
             needsRecipeUpdate = true;
             // Rebuild item grid so card widths adjust for the narrowed ItemSection
             if (!wasSelected) needsItemUpdate = true;
@@ -486,6 +528,7 @@ public class JETGui extends InteractiveCustomUIPage<JETGui.GuiData> {
                 this.calcSelectedIngredient = null;
                 this.calcCollapsedNodes.clear();
                 this.calcRecipeChoices.clear();
+                this.calcObjective = null;
                 needsRecipeUpdate = true;
             }
         }
@@ -520,12 +563,25 @@ public class JETGui extends InteractiveCustomUIPage<JETGui.GuiData> {
             } else if (val.startsWith("cycle:")) {
                 // Cycle recipe for a multi-recipe item
                 String cycleItemId = val.substring(6);
-                List<String> recipes = JETPlugin.ITEM_TO_RECIPES.getOrDefault(cycleItemId, Collections.emptyList());
-                if (recipes.size() > 1) {
+                int recipeCount = JETPlugin.getCraftingCalculator().choiceCount(cycleItemId);
+                if (recipeCount > 1) {
                     int current = calcRecipeChoices.getOrDefault(cycleItemId, 0);
-                    calcRecipeChoices.put(cycleItemId, (current + 1) % recipes.size());
+                    calcRecipeChoices.put(cycleItemId, (current + 1) % recipeCount);
+                    calcObjective = null;
                 }
                 needsRecipeUpdate = true;
+            } else if ("inventory:toggle".equals(val)) {
+                calcUseInventory = !calcUseInventory;
+                needsRecipeUpdate = true;
+            } else if (val.startsWith("optimize:")) {
+                // Replace the recipe choices with the solver's plan for the requested objective
+                try {
+                    RecipeSolver.Objective objective = RecipeSolver.Objective.valueOf(val.substring(9));
+                    calcRecipeChoices.clear();
+                    calcRecipeChoices.putAll(JETPlugin.getCraftingCalculator().solver(objective).choicesFor(selectedItem));
+                    calcObjective = objective;
+                } catch (Exception ignored) {}
+                needsRecipeUpdate = true;
             } else {
                 // Legacy ingredient select (toggle)
                 if (val.equals(this.calcSelectedIngredient)) {
@@ -548,15 +604,16 @@ public class JETGui extends InteractiveCustomUIPage<JETGui.GuiData> {
         if (data.pinAction != null && "toggle".equals(data.pinAction) && this.selectedItem != null) {
             UUID playerUuid = playerRef.getUuid();
             boolean isPinned = JETPlugin.getInstance().getPinnedItemsStorage().togglePin(playerUuid, this.selectedItem);
+            HudUtil.onPinsChanged(ref);
             needsRecipeUpdate = true;
         }
 
         if (data.pageChange != null) {
             List<String> recipeIds;
             if ("craft".equals(this.activeSection)) {
-                recipeIds = JETPlugin.ITEM_TO_RECIPES.getOrDefault(this.selectedItem, Collections.emptyList());
+                recipeIds = JETPlugin.getRecipeGraph().getCraftingRecipeIds(this.selectedItem);
             } else if ("usage".equals(this.activeSection)) {
-                recipeIds = JETPlugin.ITEM_FROM_RECIPES.getOrDefault(this.selectedItem, Collections.emptyList());
+                recipeIds = JETPlugin.getRecipeGraph().getUsageRecipeIds(this.selectedItem);
             } else {
                 recipeIds = JETPlugin.getInstance().getDropListRegistry().getDropSourcesForItem(this.selectedItem);
             }
@@ -656,7 +713,7 @@ public class JETGui extends InteractiveCustomUIPage<JETGui.GuiData> {
         // Pin-to-HUD feature adapted from BIV (BetterItemViewer)
         if (data.pinToHud != null && "toggle".equals(data.pinToHud) && this.selectedItem != null) {
             // Get the first crafting recipe for this item to pin to HUD
-            List<String> recipeIds = JETPlugin.ITEM_TO_RECIPES.getOrDefault(this.selectedItem, Collections.emptyList());
+            List<String> recipeIds = JETPlugin.getRecipeGraph().getCraftingRecipeIds(this.selectedItem);
             if (!recipeIds.isEmpty()) {
                 String recipeId = recipeIds.get(0); // Pin first recipe
 
@@ -767,71 +824,38 @@ public class JETGui extends InteractiveCustomUIPage<JETGui.GuiData> {
     }
 
     private void buildItemList(Ref<EntityStore> ref, UICommandBuilder cmd, UIEventBuilder events, Store<EntityStore> store) {
-        List<Map.Entry<String, Item>> results = new ArrayList<>();
-
-        // Pre-compute allowed item IDs for the active pack filter
-        Set<String> modFilterItems = JETPlugin.getInstance().getItemRegistry().getItemIdsForPack(modFilter);
-
-        // Pre-compute inventory cache if "Can Craft" filter is active
-        boolean isCanCraftFilter = "Can Craft".equals(categoryFilter);
-        Player canCraftPlayer = null;
-        Map<String, Integer> inventoryCache = null;
-        if (isCanCraftFilter) {
-            canCraftPlayer = store.getComponent(ref, Player.getComponentType());
-            if (canCraftPlayer != null) {
-                inventoryCache = InventoryScanner.getAllItemCounts(canCraftPlayer);
-            }
-        }
-        ItemCategory singleCategory = displayNameToCategory(categoryFilter);
-
-        // Filter items by search, category, mod, and quality
-        for (Map.Entry<String, Item> entry : JETPlugin.ITEMS.entrySet()) {
-            Item item = entry.getValue();
-
-            // Mod/pack filter check
-            if (modFilterItems != null && !modFilterItems.contains(entry.getKey())) {
-                continue;
-            }
-
-            // Quality filter check
-            if (!showHiddenItems) {
-                try {
-                    int qualityIndex = item.getQualityIndex();
-                    ItemQuality quality = ItemQuality.getAssetMap().getAsset(qualityIndex);
-                    if (quality != null) {
-                        if (quality.isHiddenFromSearch()) {
-                            continue;
-                        }
-                        // Filter out Developer quality items
-                        String qualityId = quality.getId();
-                        if (qualityId != null && qualityId.equals("Developer")) {
-                            continue;
-                        }
-                    }
-                } catch (Exception ignored) {}
-            }
-
-            boolean matchesSearch = searchQuery.isEmpty() || matchesSearch(entry.getKey(), item);
-            boolean matchesCategory;
-            if (isCanCraftFilter) {
-                matchesCategory = canCraftWithInventory(item, canCraftPlayer, inventoryCache);
-            } else if (singleCategory != null) {
-                matchesCategory = CategoryUtil.matchesCategory(item, singleCategory);
-            } else {
-                matchesCategory = true; // "All" or unknown → no filter
-            }
+        SearchIndex index = JETPlugin.getInstance().getItemRegistry().getSearchIndex();
+        String language = playerRef.getLanguage();
+        SearchIndex.LanguageNames names = index.names(language);
 
-            if (matchesSearch && matchesCategory) {
-                results.add(entry);
+        String query = searchQuery.trim();
+        String tagQuery = query.startsWith("#") ? query.substring(1).toLowerCase() : null;
+        SearchParser parser = (query.isEmpty() || tagQuery != null) ? null : getSearchParser(query);
+        FilterState filter = new FilterState(index, language, query, tagQuery, parser, categoryFilter, modFilter, showHiddenItems);
+        SearchIndex.SortMode sort = SearchIndex.SortMode.fromId(sortMode);
+
+        // Identical views are shared across players; the "Can Craft" views depend on the viewer's inventory.
+        // A player asking for a view another player is still evaluating waits for it rather than
+        // repeating it: an evaluation is a few bitset passes, shorter than computing it twice.
+        ItemResults evaluated;
+        if (dependsOnInventory(categoryFilter)) {
+            evaluated = evaluateItems(ref, store, filter, names, sort);
+        } else {
+            String key = filter.cacheKey(sort);
+            evaluated = RESULT_CACHE.get(key, () -> evaluateItems(ref, store, filter, names, sort));
+            if (!evaluated.isFrom(filter)) {
+                // Computed against a snapshot replaced since; refresh the entry for later hits
+                evaluated = evaluateItems(ref, store, filter, names, sort);
+                RESULT_CACHE.put(key, evaluated);
             }
         }
-
-        // Apply sorting
-        results.sort(getSortComparator());
+        filter.matches = evaluated.matches;
+        lastFilter = filter;
+        int[] results = evaluated.sorted;
 
         // Calculate pagination
         int maxItemsPerPage = gridColumns * gridRows;
-        int totalItems = results.size();
+        int totalItems = results.length;
         int totalPages = (int) Math.ceil((double) totalItems / maxItemsPerPage);
         if (totalPages == 0) totalPages = 1;
 
@@ -845,17 +869,15 @@ public class JETGui extends InteractiveCustomUIPage<JETGui.GuiData> {
 
         cmd.clear("#ItemCards");
 
-        String language = playerRef.getLanguage();
-
         int row = 0;
         int col = 0;
 
         // Display items for current page
         for (int i = startIndex; i < endIndex; i++) {
-            Map.Entry<String, Item> entry = results.get(i);
+            int ordinal = results[i];
 
-            String key = entry.getKey();
-            Item item = entry.getValue();
+            String key = index.getId(ordinal);
+            Item item = index.getItem(ordinal);
 
             if (col == 0) {
                 cmd.appendInline("#ItemCards", "Group { LayoutMode: Left; Anchor: (Bottom: 0); }");
@@ -900,7 +922,7 @@ public class JETGui extends InteractiveCustomUIPage<JETGui.GuiData> {
 
             cmd.set(sel + " #ItemButton #ItemIcon.ItemId", key);
 
-            String displayName = getDisplayName(item, language);
+            String displayName = names.getName(ordinal);
             if (displayName.length() > 14) {
                 displayName = displayName.substring(0, 12) + "...";
             }
@@ -921,7 +943,9 @@ public class JETGui extends InteractiveCustomUIPage<JETGui.GuiData> {
         }
 
         // Update pagination info
-        cmd.set("#ItemPageInfo.TextSpans", Message.raw(String.format("Page %d / %d (%d items)", itemPage + 1, totalPages, totalItems)));
+        String pageInfo = String.format("Page %d / %d (%d items)", itemPage + 1, totalPages, totalItems);
+        if (evaluated.fuzzy) pageInfo += " - close matches";
+        cmd.set("#ItemPageInfo.TextSpans", Message.raw(pageInfo));
 
         // Show/hide pagination buttons
         cmd.set("#PrevItemPage.Visible", itemPage > 0);
@@ -929,7 +953,7 @@ public class JETGui extends InteractiveCustomUIPage<JETGui.GuiData> {
 
         // Update category filter dropdown
         List<com.hypixel.hytale.server.core.ui.DropdownEntryInfo> categoryEntries = new ArrayList<>();
-        for (String name : new String[]{"All", "Tools", "Weapons", "Armor", "Consumables", "Blocks", "Craftable", "Non-Craftable", "Can Craft"}) {
+        for (String name : new String[]{"All", "Tools", "Weapons", "Armor", "Consumables", "Blocks", "Craftable", "Non-Craftable", "Can Craft", "Can Craft (deep)"}) {
             categoryEntries.add(new com.hypixel.hytale.server.core.ui.DropdownEntryInfo(
                     com.hypixel.hytale.server.core.ui.LocalizableString.fromString(name), name));
         }
@@ -940,35 +964,6 @@ public class JETGui extends InteractiveCustomUIPage<JETGui.GuiData> {
     }
 
 
-    private Comparator<Map.Entry<String, Item>> getSortComparator() {
-        String language = playerRef.getLanguage();
-
-        switch (sortMode) {
-            case "quality":
-                // Sort by quality (higher quality first)
-                return Comparator.comparingInt((Map.Entry<String, Item> e) -> {
-                    try {
-                        ItemQuality quality = ItemQuality.getAssetMap().getAsset(e.getValue().getQualityIndex());
-                        return quality != null ? quality.getQualityValue() : 0;
-                    } catch (Exception ex) {
-                        return 0;
-                    }
-                }).reversed().thenComparing(e -> getDisplayName(e.getValue(), language).toLowerCase());
-
-            case "craftable":
-                // Craftable items first, then non-craftable, alphabetical within each group
-                return Comparator.comparingInt((Map.Entry<String, Item> e) -> {
-                    List<CraftingRecipe> recipes = JETPlugin.getInstance().getRecipeRegistry().getCraftingRecipes(e.getKey());
-                    return (recipes != null && !recipes.isEmpty()) ? 0 : 1;
-                }).thenComparing(e -> getDisplayName(e.getValue(), language).toLowerCase());
-
-            case "name_asc":
-            default:
-                // Sort by translated name A-Z
-                return Comparator.comparing(e -> getDisplayName(e.getValue(), language).toLowerCase());
-        }
-    }
-
     private static ItemCategory displayNameToCategory(String name) {
         if (name == null) return null;
         switch (name) {
@@ -983,157 +978,231 @@ public class JETGui extends InteractiveCustomUIPage<JETGui.GuiData> {
         }
     }
 
-    private boolean canCraftWithInventory(Item item, Player player, Map<String, Integer> inventoryCache) {
-        if (player == null || inventoryCache == null) return false;
-        List<String> recipeIds = JETPlugin.ITEM_TO_RECIPES.get(item.getId());
-        if (recipeIds == null || recipeIds.isEmpty()) return false;
-        for (String recipeId : recipeIds) {
-            CraftingRecipe recipe = JETPlugin.RECIPES.get(recipeId);
-            if (recipe == null) continue;
-            List<MaterialQuantity> inputs = getRecipeInputs(recipe);
-            if (inputs.isEmpty()) continue;
-            boolean canCraft = true;
-            for (MaterialQuantity input : inputs) {
-                int needed = input.getQuantity();
-                int have;
-                if (input.getItemId() != null) {
-                    have = inventoryCache.getOrDefault(input.getItemId(), 0);
-                } else if (input.getResourceTypeId() != null) {
-                    have = InventoryScanner.countResourceTypeInInventory(player, input.getResourceTypeId());
-                } else {
-                    have = 0;
-                }
-                if (have < needed) { canCraft = false; break; }
-            }
-            if (canCraft) return true;
-        }
-        return false;
+    private static boolean dependsOnInventory(String category) {
+        return "Can Craft".equals(category) || "Can Craft (deep)".equals(category);
     }
 
-    private boolean matchesSearch(String itemId, Item item) {
-        String query = searchQuery.trim();
-
-        if (query.isEmpty()) {
-            return true;
-        }
-
-        String language = playerRef.getLanguage();
+    /**
+     * Search index bits of the items craftable from the player's inventory, from one snapshot.
+     * Deep also counts items reachable by crafting intermediates first. Kept until the inventory's
+     * version stamp changes, so paging and typing under a "Can Craft" view reuse them.
+     */
+    private BitSet craftableBits(SearchIndex index, Player player, boolean deep) {
+        if (player == null) return new BitSet(index.size());
+        CraftingCalculator calculator = JETPlugin.getCraftingCalculator();
+        List<Object> key = Arrays.asList(InventoryScanner.version(player), calculator, index, deep);
+        if (key.equals(craftableKey)) return craftableCache;
+
+        BitSet bits = new BitSet(index.size());
+        RecipeGraph graph = calculator.getGraph();
+        InventorySnapshot snapshot = InventoryScanner.snapshot(player);
+        BitSet craftable = deep ? calculator.reachableWith(snapshot) : calculator.craftableWith(snapshot);
+        for (int item = craftable.nextSetBit(0); item >= 0; item = craftable.nextSetBit(item + 1)) {
+            int ordinal = index.ordinalOf(graph.getItemId(item));
+            if (ordinal >= 0) bits.set(ordinal);
+        }
+        craftableKey = key;
+        craftableCache = bits;
+        return bits;
+    }
 
-        // Tag/Resource Type filtering with # prefix (e.g., #ore, #wood, #metal)
-        if (query.startsWith("#")) {
-            String tag = query.substring(1).toLowerCase(); // Remove the # prefix
-            return matchesResourceTypeTag(item, tag) || hasComponent(item, tag);
-        }
+    /**
+     * Whether the "Can Craft" bits the grid was built from differ from the current inventory's.
+     * Most inventory changes (a stack count moving, a pickup of something already held) leave them equal,
+     * and then the grid stays as it is.
+     */
+    private boolean craftableChanged(Player player) {
+        List<Object> shownKey = craftableKey;
+        BitSet shown = craftableCache;
+        SearchIndex index = JETPlugin.getInstance().getItemRegistry().getSearchIndex();
+        BitSet current = craftableBits(index, player, "Can Craft (deep)".equals(categoryFilter));
+        // Bits from another calculator, index or depth are not comparable
+        return shownKey == null || !shownKey.subList(1, 4).equals(craftableKey.subList(1, 4)) || !current.equals(shown);
+    }
 
-        // Use advanced search parser for @ (namespace) and - (exclusion) syntax
-        // Pass translated name so search works on both item ID and display name
-        SearchParser parser = new SearchParser(query);
-        String translatedName = getDisplayName(item, language);
-        return parser.matches(item, translatedName);
+    /**
+     * Filter and sort the catalogue for the given state.
+     */
+    private ItemResults evaluateItems(Ref<EntityStore> ref, Store<EntityStore> store, FilterState filter,
+                                      SearchIndex.LanguageNames names, SearchIndex.SortMode sort) {
+        SearchIndex index = filter.index;
+
+        // Compile all filters into a cost-ordered plan
+        QueryPlan plan = buildQueryPlan(ref, store, index, names, filter.parser, filter.tagQuery);
+
+        // Narrow to trigram candidates for the text expression before running the plan
+        SearchParser parser = filter.parser;
+        if (parser != null) parser.bindFuzzy(term -> index.findFuzzy(term, filter.language));
+        int[] candidates = parser != null ? parser.candidates(term -> index.find(term, filter.language)) : null;
+
+        // A narrowing change (longer term, extra exclusion, added filter) can only shrink the
+        // previous result set, so only those items need to be re-checked
+        FilterState previous = lastFilter;
+        boolean refine = filter.narrows(previous);
+        SearchStats.recordRefine(refine);
+        if (refine) {
+            candidates = candidates != null ? TrigramIndex.intersect(candidates, previous.matches) : previous.matches;
+        }
+        int[] matches = plan.run(candidates, index.size());
+
+        // Nothing matched as typed: retry with every term typo-tolerant
+        boolean fuzzy = false;
+        SearchParser fuzzyParser = matches.length == 0 && parser != null ? parser.fuzzyVariant() : null;
+        if (fuzzyParser != null) {
+            fuzzyParser.bindFuzzy(term -> index.findFuzzy(term, filter.language));
+            QueryPlan fuzzyPlan = buildQueryPlan(ref, store, index, names, fuzzyParser, filter.tagQuery);
+            matches = fuzzyPlan.run(fuzzyParser.candidates(term -> index.find(term, filter.language)), index.size());
+            fuzzy = matches.length > 0;
+        }
+
+        // Apply sorting by filtering the precomputed order for this language
+        int[] sorted = sort == SearchIndex.SortMode.RELEVANCE && parser != null
+                ? index.sortByRelevance(matches, parser.getIncludeTerms(), filter.language)
+                : index.sort(matches, sort, filter.language);
+        return new ItemResults(filter, matches, sorted, fuzzy);
     }
 
-    private boolean matchesResourceTypeTag(Item item, String tag) {
-        if (item == null || tag == null || tag.isEmpty()) {
-            return false;
-        }
+    /**
+     * Search and shared result cache counters, for /jetconfig stats.
+     */
+    public static String searchStatsSummary() {
+        return SearchStats.summary() + ", cache " + RESULT_CACHE.getHits() + " hits / " + RESULT_CACHE.getMisses()
+                + " misses / " + RESULT_CACHE.getCoalesced() + " coalesced";
+    }
 
-        try {
-            // Try to get resource types from item
-            Method getResourceTypesMethod = Item.class.getMethod("getResourceTypes");
-            Object resourceTypesObj = getResourceTypesMethod.invoke(item);
+    /**
+     * Clears shared browser results; called when items or recipes reload.
+     */
+    public static void invalidateResultCache() {
+        RESULT_CACHE.invalidateAll();
+    }
 
-            if (resourceTypesObj != null && resourceTypesObj.getClass().isArray()) {
-                Object[] resourceTypes = (Object[]) resourceTypesObj;
+    /**
+     * Matched ordinals (ascending) and the same ordinals in display order.
+     */
+    private static final class ItemResults {
+        final SearchIndex index;
+        final BitSet craftable;
+        final int[] matches;
+        final int[] sorted;
+        final boolean fuzzy; // Only typo-tolerant matches were found
 
-                for (Object resourceTypeObj : resourceTypes) {
-                    if (resourceTypeObj != null) {
-                        // Try to get the ID from the resource type
-                        try {
-                            Method getIdMethod = resourceTypeObj.getClass().getMethod("getId");
-                            Object idObj = getIdMethod.invoke(resourceTypeObj);
-
-                            if (idObj != null) {
-                                String resourceTypeId = idObj.toString().toLowerCase();
-                                // Check if resource type ID contains the tag
-                                if (resourceTypeId.contains(tag)) {
-                                    return true;
-                                }
-                            }
-                        } catch (Exception ignored) {}
+        ItemResults(FilterState filter, int[] matches, int[] sorted, boolean fuzzy) {
+            this.index = filter.index;
+            this.craftable = filter.craftable;
+            this.matches = matches;
+            this.sorted = sorted;
+            this.fuzzy = fuzzy;
+        }
 
-                        // Also check string representation
-                        String resourceTypeStr = resourceTypeObj.toString().toLowerCase();
-                        if (resourceTypeStr.contains(tag)) {
-                            return true;
-                        }
-                    }
-                }
-            }
-        } catch (Exception ignored) {}
+        boolean isFrom(FilterState filter) {
+            return index == filter.index && craftable == filter.craftable;
+        }
+    }
 
-        return false;
+    /**
+     * Snapshot of the filters behind one item list evaluation.
+     */
+    private static final class FilterState {
+        final SearchIndex index;
+        final BitSet craftable; // Replaced on recipe reload without a new index
+        final String language;
+        final String query;
+        final String tagQuery;
+        final SearchParser parser;
+        final String category;
+        final String pack;
+        final boolean showHidden;
+        int[] matches;
+
+        FilterState(SearchIndex index, String language, String query, String tagQuery, SearchParser parser,
+                    String category, String pack, boolean showHidden) {
+            this.index = index;
+            this.craftable = index.getCategoryBits(ItemCategory.CRAFTABLE);
+            this.language = language;
+            this.query = query;
+            this.tagQuery = tagQuery;
+            this.parser = parser;
+            this.category = category != null ? category : "All";
+            this.pack = pack != null ? pack : "";
+            this.showHidden = showHidden;
+        }
+
+        /**
+         * Normalized key for the shared result cache.
+         */
+        String cacheKey(SearchIndex.SortMode sort) {
+            return String.join("\n", query.replaceAll("\\s+", " "), category, pack,
+                    String.valueOf(showHidden), sort.getId(), language != null ? language : "");
+        }
+
+        /**
+         * True when every item matching this state also matched the previous one.
+         */
+        boolean narrows(FilterState previous) {
+            if (previous == null || previous.matches == null) return false;
+            if (previous.index != index || previous.craftable != craftable) return false;
+            if (!Objects.equals(previous.language, language)) return false;
+
+            // The "Can Craft" views depend on the live inventory, never reuse them
+            if (dependsOnInventory(category) || dependsOnInventory(previous.category)) return false;
+            if (!category.equals(previous.category) && !"All".equals(previous.category)) return false;
+            if (!pack.equals(previous.pack) && !previous.pack.isEmpty()) return false;
+            if (showHidden && !previous.showHidden) return false;
+
+            if (previous.query.isEmpty()) return true;
+            if (tagQuery != null || previous.tagQuery != null) {
+                return tagQuery != null && previous.tagQuery != null && tagQuery.contains(previous.tagQuery);
+            }
+            return parser != null && parser.narrows(previous.parser);
+        }
     }
 
-    private boolean hasComponent(Item item, String componentTag) {
-        if (item == null || componentTag == null || componentTag.isEmpty()) {
-            return false;
+    private SearchParser getSearchParser(String query) {
+        if (!query.equals(compiledQuery)) {
+            compiledQuery = query;
+            compiledParser = new SearchParser(query);
         }
+        return compiledParser;
+    }
 
-        // Check item ID - many items have their type in the ID (e.g., Weapon_Sword, Tool_Pickaxe, Food_Apple)
-        try {
-            Method getIdMethod = Item.class.getMethod("getId");
-            Object idObj = getIdMethod.invoke(item);
-            if (idObj != null) {
-                String itemId = idObj.toString().toLowerCase();
-                if (itemId.contains(componentTag.toLowerCase())) {
-                    return true;
-                }
-            }
-        } catch (Exception ignored) {}
+    /**
+     * Compile the active pack, quality, category and search filters into one plan over item ordinals.
+     */
+    private QueryPlan buildQueryPlan(Ref<EntityStore> ref, Store<EntityStore> store, SearchIndex index,
+                                     SearchIndex.LanguageNames names, SearchParser parser, String tagQuery) {
+        QueryPlan.Builder plan = QueryPlan.builder();
 
-        try {
-            // Try getItemType() which returns the item's type category
-            Method getItemTypeMethod = Item.class.getMethod("getItemType");
-            Object itemType = getItemTypeMethod.invoke(item);
-            if (itemType != null) {
-                String itemTypeStr = itemType.toString().toLowerCase();
-                if (itemTypeStr.contains(componentTag.toLowerCase())) {
-                    return true;
-                }
-            }
-        } catch (Exception ignored) {}
+        // Mod/pack filter
+        if (modFilter != null && !modFilter.isEmpty()) {
+            plan.restrict(QueryPlan.Stage.PACK, index.getPackBits(modFilter));
+        }
 
-        try {
-            // Try to get components/tags via getComponents
-            Method getComponentsMethod = Item.class.getMethod("getComponents");
-            Object components = getComponentsMethod.invoke(item);
-            if (components != null) {
-                String componentsStr = components.toString().toLowerCase();
-                if (componentsStr.contains(componentTag.toLowerCase())) {
-                    return true;
-                }
-            }
-        } catch (Exception ignored) {}
+        // Quality filter (hidden and Developer quality)
+        if (!showHiddenItems) {
+            plan.restrict(QueryPlan.Stage.HIDDEN, index.getVisibleBits());
+        }
 
-        try {
-            // Try hasComponent method
-            Method hasComponentMethod = Item.class.getMethod("hasComponent", String.class);
-            Object result = hasComponentMethod.invoke(item, componentTag);
-            if (result instanceof Boolean && (Boolean) result) {
-                return true;
+        // Category filter; the "Can Craft" views need an inventory snapshot
+        if (dependsOnInventory(categoryFilter)) {
+            Player player = store.getComponent(ref, Player.getComponentType());
+            plan.restrict(QueryPlan.Stage.INVENTORY, craftableBits(index, player, "Can Craft (deep)".equals(categoryFilter)));
+        } else {
+            ItemCategory singleCategory = displayNameToCategory(categoryFilter);
+            if (singleCategory != null) {
+                plan.restrict(QueryPlan.Stage.CATEGORY, index.getCategoryBits(singleCategory));
             }
-        } catch (Exception ignored) {}
+        }
 
-        try {
-            // Try getComponent method
-            Method getComponentMethod = Item.class.getMethod("getComponent", String.class);
-            Object component = getComponentMethod.invoke(item, componentTag);
-            if (component != null) {
-                return true;
-            }
-        } catch (Exception ignored) {}
+        // Tag/Resource Type filtering with # prefix (e.g., #ore, #wood, #metal)
+        if (tagQuery != null && !tagQuery.isEmpty()) {
+            plan.restrict(QueryPlan.Stage.TAG, index.getTagBits(tagQuery));
+        } else if (parser != null) {
+            // Namespace (@), exclusion (-), boolean operators and phrases, against ID and translated name
+            parser.compile(plan, index::getLowerId, index::getNamespace, names::getLowerName);
+        }
 
-        return false;
+        return plan.build();
     }
 
     private boolean isSalvagerRecipe(CraftingRecipe recipe) {
@@ -1242,8 +1311,8 @@ public class JETGui extends InteractiveCustomUIPage<JETGui.GuiData> {
         buildSetSection(cmd, events, language);
 
         // Get recipe IDs from global maps
-        List<String> craftRecipeIds = JETPlugin.ITEM_TO_RECIPES.getOrDefault(selectedItem, Collections.emptyList());
-        List<String> usageRecipeIds = JETPlugin.ITEM_FROM_RECIPES.getOrDefault(selectedItem, Collections.emptyList());
+        List<String> craftRecipeIds = JETPlugin.getRecipeGraph().getCraftingRecipeIds(selectedItem);
+        List<String> usageRecipeIds = JETPlugin.getRecipeGraph().getUsageRecipeIds(selectedItem);
         List<String> dropSources = JETPlugin.getInstance().getDropListRegistry().getDropSourcesForItem(selectedItem);
 
         // Set recipe info label
@@ -1292,7 +1361,7 @@ public class JETGui extends InteractiveCustomUIPage<JETGui.GuiData> {
         } else if ("usage".equals(activeSection)) {
             buildUsageSection(ref, cmd, events, usageRecipeIds, noSource);
         } else if ("calc".equals(activeSection)) {
-            buildCalcSection(cmd, events, craftRecipeIds, noSource);
+            buildCalcSection(cmd, events, craftRecipeIds, noSource, player);
         } else {
             buildDropsSection(ref, cmd, events, dropSources, noSource);
         }
@@ -1310,7 +1379,7 @@ public class JETGui extends InteractiveCustomUIPage<JETGui.GuiData> {
         // Filter recipes based on salvager setting
         List<String> filteredRecipeIds = new ArrayList<>();
         for (String recipeId : recipeIds) {
-            CraftingRecipe recipe = JETPlugin.RECIPES.get(recipeId);
+            CraftingRecipe recipe = JETPlugin.getRecipeGraph().getRecipe(recipeId);
             if (recipe == null) continue;
 
             if (!showSalvagerRecipes && isSalvagerRecipe(recipe)) {
@@ -1336,7 +1405,7 @@ public class JETGui extends InteractiveCustomUIPage<JETGui.GuiData> {
 
         for (int i = start; i < end; i++) {
             String recipeId = filteredRecipeIds.get(i);
-            CraftingRecipe recipe = JETPlugin.RECIPES.get(recipeId);
+            CraftingRecipe recipe = JETPlugin.getRecipeGraph().getRecipe(recipeId);
             if (recipe == null) continue;
 
             int idx = i - start;
@@ -1355,7 +1424,7 @@ public class JETGui extends InteractiveCustomUIPage<JETGui.GuiData> {
         // Filter recipes based on salvager setting
         List<String> filteredRecipeIds = new ArrayList<>();
         for (String recipeId : recipeIds) {
-            CraftingRecipe recipe = JETPlugin.RECIPES.get(recipeId);
+            CraftingRecipe recipe = JETPlugin.getRecipeGraph().getRecipe(recipeId);
             if (recipe == null) continue;
 
             if (!showSalvagerRecipes && isSalvagerRecipe(recipe)) {
@@ -1381,7 +1450,7 @@ public class JETGui extends InteractiveCustomUIPage<JETGui.GuiData> {
 
         for (int i = start; i < end; i++) {
             String recipeId = filteredRecipeIds.get(i);
-            CraftingRecipe recipe = JETPlugin.RECIPES.get(recipeId);
+            CraftingRecipe recipe = JETPlugin.getRecipeGraph().getRecipe(recipeId);
             if (recipe == null) continue;
 
             int idx = i - start;
@@ -1606,9 +1675,6 @@ public class JETGui extends InteractiveCustomUIPage<JETGui.GuiData> {
             benchInfo = " [" + formatBenchName(bench.id) + " T" + bench.requiredTierLevel + "]";
         }
 
-        String fullTitle = recipeTitle + benchInfo;
-        cmd.set(rSel + " #RecipeTitle.TextSpans", Message.raw(fullTitle));
-
         // Get player for inventory scanning
         Player player = null;
         if (ref != null && ref.isValid()) {
@@ -1618,6 +1684,20 @@ public class JETGui extends InteractiveCustomUIPage<JETGui.GuiData> {
             }
         }
 
+        // One snapshot for the input counts and the max craftable search
+        InventorySnapshot snapshot = player != null ? InventoryScanner.snapshot(player) : null;
+
+        String fullTitle = recipeTitle + benchInfo;
+        if (snapshot != null) {
+            long craftable = JETPlugin.getCraftingCalculator().maxCrafts(recipe.getId(), snapshot);
+            cmd.set(rSel + " #RecipeTitle.TextSpans", Message.join(new Message[]{
+                Message.raw(fullTitle),
+                Message.raw("  can make " + craftable).color(craftable > 0 ? "#55ff55" : "#777777")
+            }));
+        } else {
+            cmd.set(rSel + " #RecipeTitle.TextSpans", Message.raw(fullTitle));
+        }
+
         // Add input items with inventory counts
         List<MaterialQuantity> inputs = getRecipeInputs(recipe);
         cmd.clear(rSel + " #InputItems");
@@ -1644,8 +1724,8 @@ public class JETGui extends InteractiveCustomUIPage<JETGui.GuiData> {
 
                 // Count items in inventory
                 String labelText;
-                if (player != null) {
-                    int inventoryCount = InventoryScanner.countItemInInventory(player, itemId);
+                if (snapshot != null) {
+                    int inventoryCount = snapshot.count(itemId);
 
                     // Color code: green if enough, red if not enough
                     String color = inventoryCount >= requiredQty ? "#00ff00" : "#ff0000";
@@ -1675,8 +1755,8 @@ public class JETGui extends InteractiveCustomUIPage<JETGui.GuiData> {
 
                         // Count resource type items in inventory
                         String labelText;
-                        if (player != null) {
-                            int inventoryCount = InventoryScanner.countResourceTypeInInventory(player, resourceTypeId);
+                        if (snapshot != null) {
+                            int inventoryCount = snapshot.resourceCount(resourceTypeId);
 
                             // Color code: green if enough, red if not enough
                             String color = inventoryCount >= requiredQty ? "#00ff00" : "#ff0000";
@@ -1780,23 +1860,7 @@ public class JETGui extends InteractiveCustomUIPage<JETGui.GuiData> {
     }
 
     private String getDisplayName(Item item, String language) {
-        if (item == null) return "Unknown";
-        try {
-            String key = item.getTranslationKey();
-            if (key != null) {
-                String translated = I18nModule.get().getMessage(language, key);
-                if (translated != null && !translated.isEmpty()) {
-                    return translated;
-                }
-            }
-        } catch (Exception ignored) {}
-
-        String id = item.getId();
-        if (id == null) return "Unknown";
-        if (id.contains(":")) id = id.substring(id.indexOf(":") + 1);
-        int underscore = id.indexOf("_");
-        if (underscore > 0) id = id.substring(underscore + 1);
-        return id.replace("_", " ");
+        return JETPlugin.getInstance().getItemRegistry().getSearchIndex().getDisplayName(item, language);
     }
 
     private Message getColoredItemName(Item item, String displayName) {
@@ -1964,6 +2028,13 @@ public class JETGui extends InteractiveCustomUIPage<JETGui.GuiData> {
             }
         } catch (Exception ignored) {}
 
+        // Tech tree position, precomputed per recipe load
+        if (JETPlugin.getRecipeGraph().isCraftable(itemId)) {
+            Progression progression = JETPlugin.getCraftingCalculator().getProgression();
+            int tier = progression.tier(itemId);
+            tooltip.line("Progression", "Depth " + progression.depth(itemId) + (tier > 0 ? ", Tier " + tier : ""));
+        }
+
         // Weapon Stats - read damage from JSON (getDamageInteractions returns empty)
         if (item.getWeapon() != null) {
             try {
@@ -2070,8 +2141,8 @@ public class JETGui extends InteractiveCustomUIPage<JETGui.GuiData> {
         }
 
         // Recipe/usage counts
-        List<String> craftRecipes = JETPlugin.ITEM_TO_RECIPES.getOrDefault(itemId, Collections.emptyList());
-        List<String> usageRecipes = JETPlugin.ITEM_FROM_RECIPES.getOrDefault(itemId, Collections.emptyList());
+        List<String> craftRecipes = JETPlugin.getRecipeGraph().getCraftingRecipeIds(itemId);
+        List<String> usageRecipes = JETPlugin.getRecipeGraph().getUsageRecipeIds(itemId);
         if (!craftRecipes.isEmpty() || !usageRecipes.isEmpty()) {
             tooltip.separator();
             if (!craftRecipes.isEmpty()) {
@@ -2130,8 +2201,8 @@ public class JETGui extends InteractiveCustomUIPage<JETGui.GuiData> {
         } catch (Exception ignored) {}
 
         // Recipe availability hints
-        List<String> craftRecipes = JETPlugin.ITEM_TO_RECIPES.getOrDefault(itemId, List.of());
-        List<String> usageRecipes = JETPlugin.ITEM_FROM_RECIPES.getOrDefault(itemId, List.of());
+        List<String> craftRecipes = JETPlugin.getRecipeGraph().getCraftingRecipeIds(itemId);
+        List<String> usageRecipes = JETPlugin.getRecipeGraph().getUsageRecipeIds(itemId);
         if (!craftRecipes.isEmpty() || !usageRecipes.isEmpty()) {
             tooltip.separator();
             if (!craftRecipes.isEmpty()) {
@@ -2516,7 +2587,8 @@ public class JETGui extends InteractiveCustomUIPage<JETGui.GuiData> {
         return "Common";
     }
 
-    private void buildCalcSection(UICommandBuilder cmd, UIEventBuilder events, List<String> craftRecipeIds, boolean noSource) {
+    private void buildCalcSection(UICommandBuilder cmd, UIEventBuilder events, List<String> craftRecipeIds, boolean noSource, Player player) {
+        calcInventoryPlan = null;
         cmd.clear("#RecipePanel #RecipeListContainer #RecipeList");
         cmd.set("#RecipePagination #PrevRecipe.Visible", false);
         cmd.set("#RecipePagination #NextRecipe.Visible", false);
@@ -2533,13 +2605,31 @@ public class JETGui extends InteractiveCustomUIPage<JETGui.GuiData> {
         events.addEventBinding(CustomUIEventBindingType.Activating, "#CalcControls #CalcMinus", EventData.of("CalcQuantityChange", "dec"), false);
         events.addEventBinding(CustomUIEventBindingType.Activating, "#CalcControls #CalcPlus", EventData.of("CalcQuantityChange", "inc"), false);
         events.addEventBinding(CustomUIEventBindingType.Activating, "#CalcControls #CalcPlus10", EventData.of("CalcQuantityChange", "inc10"), false);
+        RecipeSolver.Objective nextObjective = calcObjective != null ? calcObjective.next() : RecipeSolver.Objective.RAW_ITEMS;
+        events.addEventBinding(CustomUIEventBindingType.Activating, "#CalcControls #CalcOptimize", EventData.of("CalcIngredientSelect", "optimize:" + nextObjective.name()), false);
+        cmd.set("#CalcControls #CalcOptimize.TooltipTextSpans", Message.raw("Optimize: " + nextObjective.getDisplayName()));
+        events.addEventBinding(CustomUIEventBindingType.Activating, "#CalcControls #CalcInventory", EventData.of("CalcIngredientSelect", "inventory:toggle"), false);
+        cmd.set("#CalcControls #CalcInventoryLabel.Text", calcUseInventory ? "Inv: On" : "Inv: Off");
+        cmd.set("#CalcControls #CalcInventoryLabel.Style.TextColor", calcUseInventory ? "#55ff55" : "#aaaaaa");
+        // The merged list across pins only exists on the pinned page
+        cmd.set("#CalcControls #CalcScope.Visible", false);
+
+        CraftingCalculator calculator = JETPlugin.getCraftingCalculator();
+        InventorySnapshot snapshot = null;
+        if (calcUseInventory) {
+            // One snapshot per evaluation; an inventory event may hand over the one it already took
+            snapshot = calcPendingSnapshot != null ? calcPendingSnapshot : InventoryScanner.snapshot(player);
+            calcInventoryPlan = calculator.planWithInventory(selectedItem, calcQuantity, calcRecipeChoices, snapshot);
+        }
+        calcPendingSnapshot = null;
 
         String listSel = "#RecipePanel #RecipeListContainer #RecipeList";
         String language = playerRef.getLanguage();
         String[] depthColors = {"#88ccff", "#88ff88", "#ffcc66", "#ff8888", "#cc88ff"};
 
         // --- Part A: Crafting Tree ---
-        List<TreeNode> tree = buildCraftingTree(selectedItem, calcQuantity);
+        List<CraftingCalculator.TreeNode> tree = calculator
+                .expand(selectedItem, calcQuantity, calcRecipeChoices, calcCollapsedNodes, snapshot);
 
         long intermediateCount = tree.stream().filter(n -> n.isCraftable).count();
         long rawCount = tree.stream().filter(n -> !n.isCraftable).count();
@@ -2547,7 +2637,9 @@ public class JETGui extends InteractiveCustomUIPage<JETGui.GuiData> {
                 Message.join(new Message[]{
                     Message.raw(rawCount + " raw").color("#aaaaaa"),
                     Message.raw("  "),
-                    Message.raw(intermediateCount + " craftable").color("#55aaff")
+                    Message.raw(intermediateCount + " craftable").color("#55aaff"),
+                    Message.raw(calcInventoryPlan != null ? "  " + calcInventoryPlan.getTotalCrafts() + " crafts left" : "").color("#55ff55"),
+                    Message.raw(calcObjective != null ? "  " + calcObjective.getDisplayName() : "").color("#77bbff")
                 }));
 
         if (tree.isEmpty()) {
@@ -2557,7 +2649,7 @@ public class JETGui extends InteractiveCustomUIPage<JETGui.GuiData> {
         int appendIdx = 1; // [0] = controls, appendInline items start at [1]
 
         for (int i = 0; i < tree.size(); i++) {
-            TreeNode node = tree.get(i);
+            CraftingCalculator.TreeNode node = tree.get(i);
             String depthColor = depthColors[Math.min(node.depth, depthColors.length - 1)];
             int indentPx = node.depth * 16;
 
@@ -2570,6 +2662,9 @@ public class JETGui extends InteractiveCustomUIPage<JETGui.GuiData> {
             }
 
             String qtyStr = "x" + (node.quantity >= 1000 ? String.format("%,d", node.quantity) : String.valueOf(node.quantity));
+            if (node.available > 0) {
+                qtyStr = (node.available >= 1000 ? String.format("%,d", node.available) : String.valueOf(node.available)) + "/" + qtyStr.substring(1);
+            }
 
             // Build chevron prefix for craftable nodes
             String chevron = "";
@@ -2618,6 +2713,9 @@ public class JETGui extends InteractiveCustomUIPage<JETGui.GuiData> {
             childIdx++;
 
             cmd.set(rowSel + "[" + childIdx + "].Text", qtyStr);
+            if (node.available > 0) {
+                cmd.set(rowSel + "[" + childIdx + "].Style.TextColor", node.available >= node.quantity ? "#55ff55" : "#ffaa55");
+            }
 
             if (node.isCraftable) {
                 String action = node.recipeCount > 1 ? "cycle:" : "tree:";
@@ -2637,11 +2735,14 @@ public class JETGui extends InteractiveCustomUIPage<JETGui.GuiData> {
         appendIdx++;
 
         // --- Part C: Raw Materials Summary ---
-        Map<String, Long> rawMaterials = new LinkedHashMap<>();
-        resolveIngredients(selectedItem, (long) calcQuantity, rawMaterials, new HashSet<>());
+        Map<String, Long> rawMaterials = calcInventoryPlan != null
+                ? calcInventoryPlan.getMissing()
+                : calculator.rawMaterials(selectedItem, calcQuantity, calcRecipeChoices);
         cmd.appendInline(listSel,
                 "Group { Padding: (Bottom: 6); Label { Style: (FontSize: 10, TextColor: #aaaaaa, HorizontalAlignment: Center); } }");
-        cmd.set(listSel + "[" + appendIdx + "][0].Text", "Raw Materials");
+        String summaryTitle = calcInventoryPlan == null ? "Raw Materials"
+                : rawMaterials.isEmpty() ? "Nothing missing" : "Missing Materials";
+        cmd.set(listSel + "[" + appendIdx + "][0].Text", summaryTitle);
         appendIdx++;
 
         if (!rawMaterials.isEmpty()) {
@@ -2695,279 +2796,9 @@ public class JETGui extends InteractiveCustomUIPage<JETGui.GuiData> {
         }
     }
 
-    // --- Crafting Tree ---
-
-    /**
-     * Get non-salvager recipes for an item, with the user's selected recipe index applied.
-     * Returns null if no valid (non-salvager) recipe exists.
-     */
-    private CraftingRecipe getNonSalvagerRecipe(String itemId, List<String> recipeIds) {
-        // Filter to non-salvager recipes
-        List<String> filtered = new ArrayList<>();
-        for (String rid : recipeIds) {
-            CraftingRecipe r = JETPlugin.RECIPES.get(rid);
-            if (r != null && !isSalvagerRecipe(r)) {
-                filtered.add(rid);
-            }
-        }
-        if (filtered.isEmpty()) return null;
-        int choiceIdx = calcRecipeChoices.getOrDefault(itemId, 0);
-        if (choiceIdx >= filtered.size()) choiceIdx = 0;
-        return JETPlugin.RECIPES.get(filtered.get(choiceIdx));
-    }
-
-    private int getNonSalvagerRecipeCount(List<String> recipeIds) {
-        int count = 0;
-        for (String rid : recipeIds) {
-            CraftingRecipe r = JETPlugin.RECIPES.get(rid);
-            if (r != null && !isSalvagerRecipe(r)) count++;
-        }
-        return count;
-    }
-
-    private static class TreeNode {
-        String itemId;
-        long quantity;
-        int depth;
-        boolean isCraftable;
-        boolean isExpanded;
-        boolean isResourceType;
-        int recipeIndex;
-        int recipeCount;
-    }
-
-    private List<TreeNode> buildCraftingTree(String rootItemId, int quantity) {
-        List<TreeNode> result = new ArrayList<>();
-        List<String> recipeIds = JETPlugin.ITEM_TO_RECIPES.getOrDefault(rootItemId, Collections.emptyList());
-        if (recipeIds.isEmpty()) return result;
-
-        CraftingRecipe recipe = getNonSalvagerRecipe(rootItemId, recipeIds);
-        if (recipe == null) return result;
-
-        int outputQty = 1;
-        MaterialQuantity[] outputs = recipe.getOutputs();
-        if (outputs != null) {
-            for (MaterialQuantity output : outputs) {
-                if (output != null && rootItemId.equals(output.getItemId())) {
-                    outputQty = Math.max(1, output.getQuantity());
-                    break;
-                }
-            }
-        }
-
-        long craftsNeeded = ((long) quantity + outputQty - 1) / outputQty;
-
-        Set<String> visited = new HashSet<>();
-        visited.add(rootItemId);
-
-        for (MaterialQuantity input : getRecipeInputs(recipe)) {
-            addTreeNodes(result, input, craftsNeeded, 0, visited);
-        }
-        return result;
-    }
-
-    private void addTreeNodes(List<TreeNode> result, MaterialQuantity input, long parentCrafts, int depth, Set<String> visited) {
-        if (depth > 10) return;
-
-        String itemId = input.getItemId();
-        boolean isResource = (itemId == null);
-
-        if (isResource) {
-            TreeNode node = new TreeNode();
-            node.itemId = input.getResourceTypeId();
-            node.quantity = (long) input.getQuantity() * parentCrafts;
-            node.depth = depth;
-            node.isCraftable = false;
-            node.isResourceType = true;
-            node.recipeIndex = 0;
-            node.recipeCount = 0;
-            result.add(node);
-            return;
-        }
-
-        long needed = (long) input.getQuantity() * parentCrafts;
-        List<String> recipeIds = JETPlugin.ITEM_TO_RECIPES.getOrDefault(itemId, Collections.emptyList());
-        boolean circular = visited.contains(itemId);
-
-        // Get non-salvager recipe
-        CraftingRecipe subRecipe = (!circular && !recipeIds.isEmpty()) ? getNonSalvagerRecipe(itemId, recipeIds) : null;
-        boolean craftable = subRecipe != null;
-        int nonSalvagerCount = craftable ? getNonSalvagerRecipeCount(recipeIds) : 0;
-        int choiceIdx = calcRecipeChoices.getOrDefault(itemId, 0);
-        if (choiceIdx >= nonSalvagerCount) choiceIdx = 0;
-
-        TreeNode node = new TreeNode();
-        node.itemId = itemId;
-        node.quantity = needed;
-        node.depth = depth;
-        node.isCraftable = craftable;
-        node.isExpanded = craftable && !calcCollapsedNodes.contains(itemId);
-        node.isResourceType = false;
-        node.recipeIndex = choiceIdx;
-        node.recipeCount = nonSalvagerCount;
-        result.add(node);
-
-        if (craftable && node.isExpanded) {
-            int subOutputQty = 1;
-            MaterialQuantity[] outputs = subRecipe.getOutputs();
-            if (outputs != null) {
-                for (MaterialQuantity output : outputs) {
-                    if (output != null && itemId.equals(output.getItemId())) {
-                        subOutputQty = Math.max(1, output.getQuantity());
-                        break;
-                    }
-                }
-            }
-            long subCrafts = (needed + subOutputQty - 1) / subOutputQty;
-
-            visited.add(itemId);
-            for (MaterialQuantity subInput : getRecipeInputs(subRecipe)) {
-                addTreeNodes(result, subInput, subCrafts, depth + 1, visited);
-            }
-            visited.remove(itemId);
-        }
-    }
-
-    private Map<String, Long> calculateRawMaterials(String itemId, int quantity) {
-        Map<String, Long> materials = new LinkedHashMap<>();
-
-        List<String> recipeIds = JETPlugin.ITEM_TO_RECIPES.getOrDefault(itemId, Collections.emptyList());
-        if (recipeIds.isEmpty()) return materials;
-
-        CraftingRecipe recipe = JETPlugin.RECIPES.get(recipeIds.get(0));
-        if (recipe == null) return materials;
-
-        // Find how many the recipe produces per craft
-        int outputQty = 1;
-        MaterialQuantity[] outputs = recipe.getOutputs();
-        if (outputs != null) {
-            for (MaterialQuantity output : outputs) {
-                if (output != null && itemId.equals(output.getItemId())) {
-                    outputQty = Math.max(1, output.getQuantity());
-                    break;
-                }
-            }
-        }
-
-        long craftsNeeded = ((long) quantity + outputQty - 1) / outputQty;
-
-        // Same inputs the Craft tab shows, scaled by craftsNeeded
-        for (MaterialQuantity input : getRecipeInputs(recipe)) {
-            if (input.getItemId() != null) {
-                materials.merge(input.getItemId(), (long) input.getQuantity() * craftsNeeded, Long::sum);
-            } else if (input.getResourceTypeId() != null) {
-                materials.merge("resource:" + input.getResourceTypeId(), (long) input.getQuantity() * craftsNeeded, Long::sum);
-            }
-        }
-
-        return materials;
-    }
-
-    private void resolveIngredients(String itemId, long needed, Map<String, Long> materials, Set<String> visited) {
-        if (visited.contains(itemId)) {
-            // Circular reference protection — treat as raw material
-            materials.merge(itemId, needed, Long::sum);
-            return;
-        }
-
-        List<String> recipeIds = JETPlugin.ITEM_TO_RECIPES.getOrDefault(itemId, Collections.emptyList());
-        if (recipeIds.isEmpty()) {
-            // Raw material — no crafting recipe
-            materials.merge(itemId, needed, Long::sum);
-            return;
-        }
-
-        CraftingRecipe recipe = getNonSalvagerRecipe(itemId, recipeIds);
-        if (recipe == null) {
-            materials.merge(itemId, needed, Long::sum);
-            return;
-        }
-
-        // Find how many of this item the recipe produces
-        long outputQty = 1;
-        MaterialQuantity[] outputs = recipe.getOutputs();
-        if (outputs != null) {
-            for (MaterialQuantity output : outputs) {
-                if (output != null && itemId.equals(output.getItemId())) {
-                    outputQty = Math.max(1, output.getQuantity());
-                    break;
-                }
-            }
-        }
-
-        long craftsNeeded = (needed + outputQty - 1) / outputQty; // ceiling division
-
-        visited.add(itemId);
-        List<MaterialQuantity> inputs = getRecipeInputs(recipe);
-        for (MaterialQuantity input : inputs) {
-            if (input.getItemId() != null) {
-                resolveIngredients(input.getItemId(), (long) input.getQuantity() * craftsNeeded, materials, visited);
-            } else if (input.getResourceTypeId() != null) {
-                String key = "resource:" + input.getResourceTypeId();
-                materials.merge(key, (long) input.getQuantity() * craftsNeeded, Long::sum);
-            }
-        }
-        visited.remove(itemId);
-    }
-
     private List<MaterialQuantity> getRecipeInputs(CraftingRecipe recipe) {
-        List<MaterialQuantity> result = new ArrayList<>();
-        Object inputsObj = null;
-
-        // Try getInput method first
-        try {
-            Method getInputMethod = CraftingRecipe.class.getMethod("getInput");
-            inputsObj = getInputMethod.invoke(recipe);
-        } catch (Exception e) {
-            // Try alternatives
-            String[] methodNames = {"getInputs", "getIngredients", "getMaterials", "getRecipeInputs", "getRequiredMaterials"};
-            for (String methodName : methodNames) {
-                try {
-                    Method method = CraftingRecipe.class.getMethod(methodName);
-                    inputsObj = method.invoke(recipe);
-                    if (inputsObj != null) break;
-                } catch (Exception ignored) {}
-            }
-        }
-
-        // Process inputs - accept both items and resource types
-        if (inputsObj != null) {
-            if (inputsObj instanceof MaterialQuantity) {
-                MaterialQuantity input = (MaterialQuantity) inputsObj;
-                if (input != null && (input.getItemId() != null || input.getResourceTypeId() != null)) {
-                    result.add(input);
-                }
-            } else if (inputsObj instanceof List) {
-                List<?> inputs = (List<?>) inputsObj;
-                for (Object obj : inputs) {
-                    if (obj instanceof MaterialQuantity) {
-                        MaterialQuantity input = (MaterialQuantity) obj;
-                        if (input != null && (input.getItemId() != null || input.getResourceTypeId() != null)) {
-                            result.add(input);
-                        }
-                    }
-                }
-            } else if (inputsObj instanceof MaterialQuantity[]) {
-                MaterialQuantity[] inputs = (MaterialQuantity[]) inputsObj;
-                for (MaterialQuantity input : inputs) {
-                    if (input != null && (input.getItemId() != null || input.getResourceTypeId() != null)) {
-                        result.add(input);
-                    }
-                }
-            } else if (inputsObj instanceof Collection) {
-                Collection<?> inputs = (Collection<?>) inputsObj;
-                for (Object obj : inputs) {
-                    if (obj instanceof MaterialQuantity) {
-                        MaterialQuantity input = (MaterialQuantity) obj;
-                        if (input != null && (input.getItemId() != null || input.getResourceTypeId() != null)) {
-                            result.add(input);
-                        }
-                    }
-                }
-            }
-        }
-
-        return result;
+        // Read once at recipe load; the accessor is resolved by RecipeGraph
+        return JETPlugin.getRecipeGraph().getInputs(recipe);
     }
 
     public static class GuiData {
@@ -11,7 +11,6 @@ import com.hypixel.hytale.server.core.Message;
 import com.hypixel.hytale.server.core.asset.type.item.config.Item;
 import com.hypixel.hytale.server.core.asset.type.item.config.ItemDropList;
 import com.hypixel.hytale.server.core.entity.entities.player.pages.InteractiveCustomUIPage;
-import com.hypixel.hytale.server.core.modules.i18n.I18nModule;
 import com.hypixel.hytale.server.core.ui.builder.EventData;
 import com.hypixel.hytale.server.core.ui.builder.UICommandBuilder;
 import com.hypixel.hytale.server.core.ui.builder.UIEventBuilder;
@@ -437,23 +436,7 @@ public class MobInfoGui extends InteractiveCustomUIPage<MobInfoGui.GuiData> {
     }
 
     private String getDisplayName(Item item, String language) {
-        if (item == null) return "Unknown";
-        try {
-            String key = item.getTranslationKey();
-            if (key != null) {
-                String translated = I18nModule.get().getMessage(language, key);
-                if (translated != null && !translated.isEmpty()) {
-                    return translated;
-                }
-            }
-        } catch (Exception ignored) {}
-
-        String id = item.getId();
-        if (id == null) return "Unknown";
-        if (id.contains(":")) id = id.substring(id.indexOf(":") + 1);
-        int underscore = id.indexOf("_");
-        if (underscore > 0) id = id.substring(underscore + 1);
-        return id.replace("_", " ");
+        return JETPlugin.getInstance().getItemRegistry().getSearchIndex().getDisplayName(item, language);
     }
 
     private static class DropEntry {
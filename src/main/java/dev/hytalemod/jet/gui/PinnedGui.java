@@ -15,7 +15,6 @@ import com.hypixel.hytale.server.core.asset.type.item.config.ItemQuality;
 import com.hypixel.hytale.server.core.asset.type.item.config.ResourceType;
 import com.hypixel.hytale.server.core.entity.entities.player.pages.InteractiveCustomUIPage;
 import com.hypixel.hytale.server.core.inventory.MaterialQuantity;
-import com.hypixel.hytale.server.core.modules.i18n.I18nModule;
 import com.hypixel.hytale.server.core.ui.Anchor;
 import com.hypixel.hytale.server.core.ui.Value;
 import com.hypixel.hytale.server.core.ui.builder.EventData;
@@ -25,11 +24,17 @@ import com.hypixel.hytale.server.core.universe.PlayerRef;
 import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
 import com.hypixel.hytale.protocol.Color;
 import dev.hytalemod.jet.JETPlugin;
+import dev.hytalemod.jet.calc.CraftingCalculator;
+import dev.hytalemod.jet.calc.InventoryPlan;
+import dev.hytalemod.jet.calc.RecipeSolver;
+import dev.hytalemod.jet.calc.ShoppingList;
+import dev.hytalemod.jet.component.RecipeHudComponent;
+import dev.hytalemod.jet.hud.HudUtil;
 import dev.hytalemod.jet.util.InventoryScanner;
+import dev.hytalemod.jet.util.InventorySnapshot;
 import dev.hytalemod.jet.util.TooltipBuilder;
 import com.hypixel.hytale.server.core.entity.entities.Player;
 
-import java.lang.reflect.Method;
 import java.util.*;
 
 /**
@@ -50,6 +55,11 @@ public class PinnedGui extends InteractiveCustomUIPage<PinnedGui.GuiData> {
     private int calcQuantity = 1;
     private Set<String> calcCollapsedNodes = new HashSet<>();
     private Map<String, Integer> calcRecipeChoices = new HashMap<>();
+    private RecipeSolver.Objective calcObjective;
+    private boolean calcUseInventory;
+    private InventoryPlan calcInventoryPlan;
+    private InventorySnapshot calcPendingSnapshot;
+    private boolean calcShowAll; // Merged shopping list across every pin instead of the selected item
 
     public PinnedGui(PlayerRef playerRef, CustomPageLifetime lifetime) {
         super(playerRef, lifetime, GuiData.CODEC);
@@ -118,6 +128,24 @@ public class PinnedGui extends InteractiveCustomUIPage<PinnedGui.GuiData> {
         buildRecipePanel(ref, cmd, events, store);
     }
 
+    /**
+     * Re-evaluate the inventory-aware calc plan, but only when the change touches an item or pool it uses.
+     */
+    public void onInventoryChanged(Ref<EntityStore> ref, Store<EntityStore> store) {
+        if (!calcUseInventory || calcInventoryPlan == null || !"calc".equals(activeSection)) return;
+        Player player = store.getComponent(ref, Player.getComponentType());
+        if (player == null) return;
+
+        InventorySnapshot snapshot = InventoryScanner.snapshot(player);
+        if (!calcInventoryPlan.isAffectedBy(snapshot)) return;
+
+        calcPendingSnapshot = snapshot;
+        UICommandBuilder cmd = new UICommandBuilder();
+        UIEventBuilder events = new UIEventBuilder();
+        buildRecipePanel(ref, cmd, events, store);
+        sendUpdate(cmd, events, false);
+    }
+
     @Override
     public void handleDataEvent(Ref<EntityStore> ref, Store<EntityStore> store, GuiData data) {
         super.handleDataEvent(ref, store, data);
@@ -137,6 +165,21 @@ public class PinnedGui extends InteractiveCustomUIPage<PinnedGui.GuiData> {
                 String nodeKey = val.substring(6);
                 int current = calcRecipeChoices.getOrDefault(nodeKey, 0);
                 calcRecipeChoices.put(nodeKey, current + 1);
+                calcObjective = null;
+                needsRecipeUpdate = true;
+            } else if ("scope:toggle".equals(val)) {
+                calcShowAll = !calcShowAll;
+                needsRecipeUpdate = true;
+            } else if ("inventory:toggle".equals(val)) {
+                calcUseInventory = !calcUseInventory;
+                needsRecipeUpdate = true;
+            } else if (val.startsWith("optimize:")) {
+                try {
+                    RecipeSolver.Objective objective = RecipeSolver.Objective.valueOf(val.substring(9));
+                    calcRecipeChoices.clear();
+                    calcRecipeChoices.putAll(JETPlugin.getCraftingCalculator().solver(objective).choicesFor(selectedItem));
+                    calcObjective = objective;
+                } catch (Exception ignored) {}
                 needsRecipeUpdate = true;
             } else {
                 boolean wasSelected = this.selectedItem != null;
@@ -148,6 +191,7 @@ public class PinnedGui extends InteractiveCustomUIPage<PinnedGui.GuiData> {
                 this.calcQuantity = 1;
                 this.calcCollapsedNodes.clear();
                 this.calcRecipeChoices.clear();
+                this.calcObjective = null;
                 needsRecipeUpdate = true;
                 if (!wasSelected) needsItemUpdate = true;
             }
@@ -161,6 +205,7 @@ public class PinnedGui extends InteractiveCustomUIPage<PinnedGui.GuiData> {
                 this.dropsPage = 0;
                 this.calcCollapsedNodes.clear();
                 this.calcRecipeChoices.clear();
+                this.calcObjective = null;
                 needsRecipeUpdate = true;
             }
         }
@@ -180,11 +225,13 @@ public class PinnedGui extends InteractiveCustomUIPage<PinnedGui.GuiData> {
             // If unpinning the last item, close the menu
             if (pinnedItems.size() == 1 && pinnedItems.contains(this.selectedItem)) {
                 JETPlugin.getInstance().getPinnedItemsStorage().togglePin(playerUuid, this.selectedItem);
+                HudUtil.onPinsChanged(ref);
                 close();
                 return;
             }
 
             boolean isPinned = JETPlugin.getInstance().getPinnedItemsStorage().togglePin(playerUuid, this.selectedItem);
+            HudUtil.onPinsChanged(ref);
             needsRecipeUpdate = true;
             if (!isPinned) {
                 needsItemUpdate = true;
@@ -194,12 +241,12 @@ public class PinnedGui extends InteractiveCustomUIPage<PinnedGui.GuiData> {
         if (data.pageChange != null) {
             int totalPages;
             if ("craft".equals(this.activeSection)) {
-                List<String> recipeIds = JETPlugin.ITEM_TO_RECIPES.getOrDefault(this.selectedItem, Collections.emptyList());
+                List<String> recipeIds = JETPlugin.getRecipeGraph().getCraftingRecipeIds(this.selectedItem);
                 totalPages = Math.max(1, (int) Math.ceil((double) recipeIds.size() / RECIPES_PER_PAGE));
                 if ("prev".equals(data.pageChange) && craftPage > 0) { craftPage--; needsRecipeUpdate = true; }
                 else if ("next".equals(data.pageChange) && craftPage < totalPages - 1) { craftPage++; needsRecipeUpdate = true; }
             } else if ("usage".equals(this.activeSection)) {
-                List<String> recipeIds = JETPlugin.ITEM_FROM_RECIPES.getOrDefault(this.selectedItem, Collections.emptyList());
+                List<String> recipeIds = JETPlugin.getRecipeGraph().getUsageRecipeIds(this.selectedItem);
                 totalPages = Math.max(1, (int) Math.ceil((double) recipeIds.size() / RECIPES_PER_PAGE));
                 if ("prev".equals(data.pageChange) && usagePage > 0) { usagePage--; needsRecipeUpdate = true; }
                 else if ("next".equals(data.pageChange) && usagePage < totalPages - 1) { usagePage++; needsRecipeUpdate = true; }
@@ -352,8 +399,8 @@ public class PinnedGui extends InteractiveCustomUIPage<PinnedGui.GuiData> {
         cmd.set("#RecipePanel #PinToHudButton.Visible", false);
 
         // Get recipe/drop counts
-        List<String> craftRecipeIds = JETPlugin.ITEM_TO_RECIPES.getOrDefault(selectedItem, Collections.emptyList());
-        List<String> usageRecipeIds = JETPlugin.ITEM_FROM_RECIPES.getOrDefault(selectedItem, Collections.emptyList());
+        List<String> craftRecipeIds = JETPlugin.getRecipeGraph().getCraftingRecipeIds(selectedItem);
+        List<String> usageRecipeIds = JETPlugin.getRecipeGraph().getUsageRecipeIds(selectedItem);
         List<String> dropSources = JETPlugin.getInstance().getDropListRegistry().getDropSourcesForItem(selectedItem);
 
         String recipeInfo = "Craft: " + craftRecipeIds.size() + " | Uses: " + usageRecipeIds.size() + " | Drops: " + dropSources.size();
@@ -380,7 +427,9 @@ public class PinnedGui extends InteractiveCustomUIPage<PinnedGui.GuiData> {
         } else if ("usage".equals(activeSection)) {
             buildUsageSection(ref, cmd, events, usageRecipeIds, noSource);
         } else if ("calc".equals(activeSection)) {
-            buildCalcSection(cmd, events, craftRecipeIds, noSource);
+            RecipeHudComponent hud = store.getComponent(ref, RecipeHudComponent.getComponentType());
+            buildCalcSection(cmd, events, craftRecipeIds, noSource, store.getComponent(ref, Player.getComponentType()),
+                    hud != null ? hud.pinnedRecipes : Collections.emptySet());
         } else {
             buildDropsSection(ref, cmd, events, dropSources, noSource);
         }
@@ -405,7 +454,7 @@ public class PinnedGui extends InteractiveCustomUIPage<PinnedGui.GuiData> {
 
         for (int i = start; i < end; i++) {
             String recipeId = recipeIds.get(i);
-            CraftingRecipe recipe = JETPlugin.RECIPES.get(recipeId);
+            CraftingRecipe recipe = JETPlugin.getRecipeGraph().getRecipe(recipeId);
             if (recipe == null) continue;
 
             int idx = i - start;
@@ -435,7 +484,7 @@ public class PinnedGui extends InteractiveCustomUIPage<PinnedGui.GuiData> {
 
         for (int i = start; i < end; i++) {
             String recipeId = recipeIds.get(i);
-            CraftingRecipe recipe = JETPlugin.RECIPES.get(recipeId);
+            CraftingRecipe recipe = JETPlugin.getRecipeGraph().getRecipe(recipeId);
             if (recipe == null) continue;
 
             int idx = i - start;
@@ -512,8 +561,6 @@ public class PinnedGui extends InteractiveCustomUIPage<PinnedGui.GuiData> {
             benchInfo = " [" + formatBenchName(bench.id) + " T" + bench.requiredTierLevel + "]";
         }
 
-        cmd.set(rSel + " #RecipeTitle.TextSpans", Message.raw(recipeTitle + benchInfo));
-
         // Get player for inventory scanning
         Player player = null;
         if (ref != null && ref.isValid()) {
@@ -523,6 +570,20 @@ public class PinnedGui extends InteractiveCustomUIPage<PinnedGui.GuiData> {
             }
         }
 
+        // One snapshot for the input counts and the max craftable search
+        InventorySnapshot snapshot = player != null ? InventoryScanner.snapshot(player) : null;
+
+        String fullTitle = recipeTitle + benchInfo;
+        if (snapshot != null) {
+            long craftable = JETPlugin.getCraftingCalculator().maxCrafts(recipe.getId(), snapshot);
+            cmd.set(rSel + " #RecipeTitle.TextSpans", Message.join(new Message[]{
+                Message.raw(fullTitle),
+                Message.raw("  can make " + craftable).color(craftable > 0 ? "#55ff55" : "#777777")
+            }));
+        } else {
+            cmd.set(rSel + " #RecipeTitle.TextSpans", Message.raw(fullTitle));
+        }
+
         // Add input items with inventory counts
         List<MaterialQuantity> inputs = getRecipeInputs(recipe);
         cmd.clear(rSel + " #InputItems");
@@ -540,8 +601,8 @@ public class PinnedGui extends InteractiveCustomUIPage<PinnedGui.GuiData> {
                 // Click to navigate to ingredient
                 events.addEventBinding(CustomUIEventBindingType.Activating, rSel + " #InputItems[" + j + "]", EventData.of("SelectedItem", itemId), false);
 
-                if (player != null) {
-                    int inventoryCount = InventoryScanner.countItemInInventory(player, itemId);
+                if (snapshot != null) {
+                    int inventoryCount = snapshot.count(itemId);
                     String color = inventoryCount >= requiredQty ? "#00ff00" : "#ff0000";
                     cmd.set(rSel + " #InputItems[" + j + "][1].Text", inventoryCount + "/" + requiredQty);
                     cmd.set(rSel + " #InputItems[" + j + "][1].Style.TextColor", color);
@@ -556,8 +617,8 @@ public class PinnedGui extends InteractiveCustomUIPage<PinnedGui.GuiData> {
                                 "Group { LayoutMode: Top; Padding: (Right: 6); AssetImage { Anchor: (Width: 32, Height: 32); Visible: true; } Label { Style: (FontSize: 10, TextColor: #ffffff, HorizontalAlignment: Center); Padding: (Top: 2); } }");
                         cmd.set(rSel + " #InputItems[" + j + "][0].AssetPath", resourceType.getIcon());
 
-                        if (player != null) {
-                            int inventoryCount = InventoryScanner.countResourceTypeInInventory(player, resourceTypeId);
+                        if (snapshot != null) {
+                            int inventoryCount = snapshot.resourceCount(resourceTypeId);
                             String color = inventoryCount >= requiredQty ? "#00ff00" : "#ff0000";
                             cmd.set(rSel + " #InputItems[" + j + "][1].Text", inventoryCount + "/" + requiredQty);
                             cmd.set(rSel + " #InputItems[" + j + "][1].Style.TextColor", color);
@@ -604,11 +665,18 @@ public class PinnedGui extends InteractiveCustomUIPage<PinnedGui.GuiData> {
 
     private static final int RAW_MAT_PER_ROW = 7;
 
-    private void buildCalcSection(UICommandBuilder cmd, UIEventBuilder events, List<String> craftRecipeIds, boolean noSource) {
+    private void buildCalcSection(UICommandBuilder cmd, UIEventBuilder events, List<String> craftRecipeIds, boolean noSource,
+                                  Player player, Set<String> hudRecipes) {
+        calcInventoryPlan = null;
         cmd.clear("#RecipePanel #RecipeListContainer #RecipeList");
         cmd.set("#RecipePagination #PrevRecipe.Visible", false);
         cmd.set("#RecipePagination #NextRecipe.Visible", false);
 
+        if (calcShowAll) {
+            buildShoppingList(cmd, events, hudRecipes);
+            return;
+        }
+
         if (craftRecipeIds.isEmpty()) {
             appendEmptyMessage(cmd, noSource ? "Uncraftable \u2014 no source found" : "No crafting recipe", noSource);
             return;
@@ -621,12 +689,29 @@ public class PinnedGui extends InteractiveCustomUIPage<PinnedGui.GuiData> {
         events.addEventBinding(CustomUIEventBindingType.Activating, "#CalcControls #CalcMinus", EventData.of("CalcQuantityChange", "dec"), false);
         events.addEventBinding(CustomUIEventBindingType.Activating, "#CalcControls #CalcPlus", EventData.of("CalcQuantityChange", "inc"), false);
         events.addEventBinding(CustomUIEventBindingType.Activating, "#CalcControls #CalcPlus10", EventData.of("CalcQuantityChange", "inc10"), false);
+        RecipeSolver.Objective nextObjective = calcObjective != null ? calcObjective.next() : RecipeSolver.Objective.RAW_ITEMS;
+        events.addEventBinding(CustomUIEventBindingType.Activating, "#CalcControls #CalcOptimize", EventData.of("SelectedItem", "optimize:" + nextObjective.name()), false);
+        cmd.set("#CalcControls #CalcOptimize.TooltipTextSpans", Message.raw("Optimize: " + nextObjective.getDisplayName()));
+        events.addEventBinding(CustomUIEventBindingType.Activating, "#CalcControls #CalcInventory", EventData.of("SelectedItem", "inventory:toggle"), false);
+        cmd.set("#CalcControls #CalcInventoryLabel.Text", calcUseInventory ? "Inv: On" : "Inv: Off");
+        cmd.set("#CalcControls #CalcInventoryLabel.Style.TextColor", calcUseInventory ? "#55ff55" : "#aaaaaa");
+        events.addEventBinding(CustomUIEventBindingType.Activating, "#CalcControls #CalcScope", EventData.of("SelectedItem", "scope:toggle"), false);
+
+        CraftingCalculator calculator = JETPlugin.getCraftingCalculator();
+        InventorySnapshot snapshot = null;
+        if (calcUseInventory) {
+            // One snapshot per evaluation; an inventory event may hand over the one it already took
+            snapshot = calcPendingSnapshot != null ? calcPendingSnapshot : InventoryScanner.snapshot(player);
+            calcInventoryPlan = calculator.planWithInventory(selectedItem, calcQuantity, calcRecipeChoices, snapshot);
+        }
+        calcPendingSnapshot = null;
 
         String listSel = "#RecipePanel #RecipeListContainer #RecipeList";
         String language = playerRef.getLanguage();
         String[] depthColors = {"#88ccff", "#88ff88", "#ffcc66", "#ff8888", "#cc88ff"};
 
-        List<TreeNode> tree = buildCraftingTree(selectedItem, calcQuantity);
+        List<CraftingCalculator.TreeNode> tree = calculator
+                .expand(selectedItem, calcQuantity, calcRecipeChoices, calcCollapsedNodes, snapshot);
 
         long intermediateCount = tree.stream().filter(n -> n.isCraftable).count();
         long rawCount = tree.stream().filter(n -> !n.isCraftable).count();
@@ -634,7 +719,9 @@ public class PinnedGui extends InteractiveCustomUIPage<PinnedGui.GuiData> {
                 Message.join(new Message[]{
                     Message.raw(rawCount + " raw").color("#aaaaaa"),
                     Message.raw("  "),
-                    Message.raw(intermediateCount + " craftable").color("#55aaff")
+                    Message.raw(intermediateCount + " craftable").color("#55aaff"),
+                    Message.raw(calcInventoryPlan != null ? "  " + calcInventoryPlan.getTotalCrafts() + " crafts left" : "").color("#55ff55"),
+                    Message.raw(calcObjective != null ? "  " + calcObjective.getDisplayName() : "").color("#77bbff")
                 }));
 
         if (tree.isEmpty()) return;
@@ -642,7 +729,7 @@ public class PinnedGui extends InteractiveCustomUIPage<PinnedGui.GuiData> {
         int appendIdx = 1;
 
         for (int i = 0; i < tree.size(); i++) {
-            TreeNode node = tree.get(i);
+            CraftingCalculator.TreeNode node = tree.get(i);
             String depthColor = depthColors[Math.min(node.depth, depthColors.length - 1)];
             int indentPx = node.depth * 16;
 
@@ -655,6 +742,9 @@ public class PinnedGui extends InteractiveCustomUIPage<PinnedGui.GuiData> {
             }
 
             String qtyStr = "x" + (node.quantity >= 1000 ? String.format("%,d", node.quantity) : String.valueOf(node.quantity));
+            if (node.available > 0) {
+                qtyStr = (node.available >= 1000 ? String.format("%,d", node.available) : String.valueOf(node.available)) + "/" + qtyStr.substring(1);
+            }
 
             String chevron = "";
             if (node.isCraftable) {
@@ -700,6 +790,9 @@ public class PinnedGui extends InteractiveCustomUIPage<PinnedGui.GuiData> {
             childIdx++;
 
             cmd.set(rowSel + "[" + childIdx + "].Text", qtyStr);
+            if (node.available > 0) {
+                cmd.set(rowSel + "[" + childIdx + "].Style.TextColor", node.available >= node.quantity ? "#55ff55" : "#ffaa55");
+            }
 
             if (node.isCraftable) {
                 String action = node.recipeCount > 1 ? "cycle:" : "tree:";
@@ -717,244 +810,124 @@ public class PinnedGui extends InteractiveCustomUIPage<PinnedGui.GuiData> {
         appendIdx++;
 
         // Raw Materials Summary
-        Map<String, Long> rawMaterials = new LinkedHashMap<>();
-        resolveIngredients(selectedItem, (long) calcQuantity, rawMaterials, new HashSet<>());
+        Map<String, Long> rawMaterials = calcInventoryPlan != null
+                ? calcInventoryPlan.getMissing()
+                : calculator.rawMaterials(selectedItem, calcQuantity, calcRecipeChoices);
         cmd.appendInline(listSel,
                 "Group { Padding: (Bottom: 6); Label { Style: (FontSize: 10, TextColor: #aaaaaa, HorizontalAlignment: Center); } }");
-        cmd.set(listSel + "[" + appendIdx + "][0].Text", "Raw Materials");
+        String summaryTitle = calcInventoryPlan == null ? "Raw Materials"
+                : rawMaterials.isEmpty() ? "Nothing missing" : "Missing Materials";
+        cmd.set(listSel + "[" + appendIdx + "][0].Text", summaryTitle);
         appendIdx++;
 
-        if (!rawMaterials.isEmpty()) {
-            int matItemIndex = 0;
-
-            for (Map.Entry<String, Long> entry : rawMaterials.entrySet()) {
-                String matId = entry.getKey();
-                long qty = entry.getValue();
-
-                boolean isResourceType = matId.startsWith("resource:");
-                String displayId = isResourceType ? matId.substring(9) : matId;
-
-                String displayName;
-                if (isResourceType) {
-                    displayName = displayId.replace("_", " ");
-                } else {
-                    Item matItem = JETPlugin.ITEMS.get(displayId);
-                    displayName = matItem != null ? getDisplayName(matItem, language) : displayId.replace("_", " ");
-                }
-
-                String qtyStr = "x" + (qty >= 1000 ? String.format("%,d", qty) : String.valueOf(qty));
-                String shortName = displayName.length() > 8 ? displayName.substring(0, 7) + ".." : displayName;
-
-                int col = matItemIndex % RAW_MAT_PER_ROW;
-                if (col == 0) {
-                    cmd.appendInline(listSel,
-                            "Group { LayoutMode: Left; Padding: (Bottom: 2); }");
-                    appendIdx++;
-                }
+        appendMaterialGrid(cmd, listSel, appendIdx, rawMaterials, language);
+    }
 
-                String matRowSel = listSel + "[" + (appendIdx - 1) + "]";
+    /**
+     * Raw material icons in rows of {@link #RAW_MAT_PER_ROW}; appendIdx is the list index the first row will take.
+     */
+    private void appendMaterialGrid(UICommandBuilder cmd, String listSel, int appendIdx, Map<String, Long> rawMaterials, String language) {
+        int matItemIndex = 0;
 
-                cmd.appendInline(matRowSel,
-                        "Group { LayoutMode: Top; Padding: (Right: 4, Bottom: 4); Anchor: (Width: 48); " +
-                        "ItemIcon { Anchor: (Width: 36, Height: 36); Visible: true; } " +
-                        "Label { Style: (FontSize: 8, TextColor: #cccccc, HorizontalAlignment: Center); } " +
-                        "Label { Style: (FontSize: 9, TextColor: #ffcc66, HorizontalAlignment: Center); } }");
+        for (Map.Entry<String, Long> entry : rawMaterials.entrySet()) {
+            String matId = entry.getKey();
+            long qty = entry.getValue();
 
-                if (!isResourceType) {
-                    cmd.set(matRowSel + "[" + col + "][0].ItemId", displayId);
-                }
+            boolean isResourceType = matId.startsWith("resource:");
+            String displayId = isResourceType ? matId.substring(9) : matId;
 
-                cmd.set(matRowSel + "[" + col + "][1].Text", shortName);
-                cmd.set(matRowSel + "[" + col + "][2].Text", qtyStr);
-                cmd.set(matRowSel + "[" + col + "].TooltipTextSpans", Message.raw(displayName + "  " + qtyStr));
-
-                matItemIndex++;
+            String displayName;
+            if (isResourceType) {
+                displayName = displayId.replace("_", " ");
+            } else {
+                Item matItem = JETPlugin.ITEMS.get(displayId);
+                displayName = matItem != null ? getDisplayName(matItem, language) : displayId.replace("_", " ");
             }
-        }
-    }
 
-    private boolean isSalvagerRecipe(CraftingRecipe recipe) {
-        if (recipe == null) return false;
-        try {
-            BenchRequirement[] benchRequirements = recipe.getBenchRequirement();
-            if (benchRequirements != null) {
-                for (BenchRequirement bench : benchRequirements) {
-                    if (bench != null && bench.id != null && bench.id.equals("Salvagebench")) {
-                        return true;
-                    }
-                }
-            }
-        } catch (Exception ignored) {}
-        return false;
-    }
+            String qtyStr = "x" + (qty >= 1000 ? String.format("%,d", qty) : String.valueOf(qty));
+            String shortName = displayName.length() > 8 ? displayName.substring(0, 7) + ".." : displayName;
 
-    private CraftingRecipe getNonSalvagerRecipe(String itemId, List<String> recipeIds) {
-        List<String> filtered = new ArrayList<>();
-        for (String rid : recipeIds) {
-            CraftingRecipe r = JETPlugin.RECIPES.get(rid);
-            if (r != null && !isSalvagerRecipe(r)) {
-                filtered.add(rid);
+            int col = matItemIndex % RAW_MAT_PER_ROW;
+            if (col == 0) {
+                cmd.appendInline(listSel,
+                        "Group { LayoutMode: Left; Padding: (Bottom: 2); }");
+                appendIdx++;
             }
-        }
-        if (filtered.isEmpty()) return null;
-        int choiceIdx = calcRecipeChoices.getOrDefault(itemId, 0);
-        if (choiceIdx >= filtered.size()) choiceIdx = 0;
-        return JETPlugin.RECIPES.get(filtered.get(choiceIdx));
-    }
 
-    private int getNonSalvagerRecipeCount(List<String> recipeIds) {
-        int count = 0;
-        for (String rid : recipeIds) {
-            CraftingRecipe r = JETPlugin.RECIPES.get(rid);
-            if (r != null && !isSalvagerRecipe(r)) count++;
-        }
-        return count;
-    }
+            String matRowSel = listSel + "[" + (appendIdx - 1) + "]";
 
-    private static class TreeNode {
-        String itemId;
-        long quantity;
-        int depth;
-        boolean isCraftable;
-        boolean isExpanded;
-        boolean isResourceType;
-        int recipeIndex;
-        int recipeCount;
-    }
-
-    private List<TreeNode> buildCraftingTree(String rootItemId, int quantity) {
-        List<TreeNode> result = new ArrayList<>();
-        List<String> recipeIds = JETPlugin.ITEM_TO_RECIPES.getOrDefault(rootItemId, Collections.emptyList());
-        if (recipeIds.isEmpty()) return result;
-
-        CraftingRecipe recipe = getNonSalvagerRecipe(rootItemId, recipeIds);
-        if (recipe == null) return result;
+            cmd.appendInline(matRowSel,
+                    "Group { LayoutMode: Top; Padding: (Right: 4, Bottom: 4); Anchor: (Width: 48); " +
+                    "ItemIcon { Anchor: (Width: 36, Height: 36); Visible: true; } " +
+                    "Label { Style: (FontSize: 8, TextColor: #cccccc, HorizontalAlignment: Center); } " +
+                    "Label { Style: (FontSize: 9, TextColor: #ffcc66, HorizontalAlignment: Center); } }");
 
-        int outputQty = 1;
-        MaterialQuantity[] outputs = recipe.getOutputs();
-        if (outputs != null) {
-            for (MaterialQuantity output : outputs) {
-                if (output != null && rootItemId.equals(output.getItemId())) {
-                    outputQty = Math.max(1, output.getQuantity());
-                    break;
-                }
+            if (!isResourceType) {
+                cmd.set(matRowSel + "[" + col + "][0].ItemId", displayId);
             }
-        }
 
-        long craftsNeeded = ((long) quantity + outputQty - 1) / outputQty;
+            cmd.set(matRowSel + "[" + col + "][1].Text", shortName);
+            cmd.set(matRowSel + "[" + col + "][2].Text", qtyStr);
+            cmd.set(matRowSel + "[" + col + "].TooltipTextSpans", Message.raw(displayName + "  " + qtyStr));
 
-        Set<String> visited = new HashSet<>();
-        visited.add(rootItemId);
-
-        for (MaterialQuantity input : getRecipeInputs(recipe)) {
-            addTreeNodes(result, input, craftsNeeded, 0, visited);
-        }
-        return result;
-    }
-
-    private void addTreeNodes(List<TreeNode> result, MaterialQuantity input, long parentCrafts, int depth, Set<String> visited) {
-        if (depth > 10) return;
-
-        String itemId = input.getItemId();
-        boolean isResource = (itemId == null);
-
-        if (isResource) {
-            TreeNode node = new TreeNode();
-            node.itemId = input.getResourceTypeId();
-            node.quantity = (long) input.getQuantity() * parentCrafts;
-            node.depth = depth;
-            node.isCraftable = false;
-            node.isResourceType = true;
-            node.recipeIndex = 0;
-            node.recipeCount = 0;
-            result.add(node);
-            return;
-        }
-
-        long needed = (long) input.getQuantity() * parentCrafts;
-        List<String> recipeIds = JETPlugin.ITEM_TO_RECIPES.getOrDefault(itemId, Collections.emptyList());
-        boolean circular = visited.contains(itemId);
-
-        CraftingRecipe subRecipe = (!circular && !recipeIds.isEmpty()) ? getNonSalvagerRecipe(itemId, recipeIds) : null;
-        boolean craftable = subRecipe != null;
-        int nonSalvagerCount = craftable ? getNonSalvagerRecipeCount(recipeIds) : 0;
-        int choiceIdx = calcRecipeChoices.getOrDefault(itemId, 0);
-        if (choiceIdx >= nonSalvagerCount) choiceIdx = 0;
-
-        TreeNode node = new TreeNode();
-        node.itemId = itemId;
-        node.quantity = needed;
-        node.depth = depth;
-        node.isCraftable = craftable;
-        node.isExpanded = craftable && !calcCollapsedNodes.contains(itemId);
-        node.isResourceType = false;
-        node.recipeIndex = choiceIdx;
-        node.recipeCount = nonSalvagerCount;
-        result.add(node);
-
-        if (craftable && node.isExpanded) {
-            int subOutputQty = 1;
-            MaterialQuantity[] outputs = subRecipe.getOutputs();
-            if (outputs != null) {
-                for (MaterialQuantity output : outputs) {
-                    if (output != null && itemId.equals(output.getItemId())) {
-                        subOutputQty = Math.max(1, output.getQuantity());
-                        break;
-                    }
-                }
-            }
-            long subCrafts = (needed + subOutputQty - 1) / subOutputQty;
-
-            visited.add(itemId);
-            for (MaterialQuantity subInput : getRecipeInputs(subRecipe)) {
-                addTreeNodes(result, subInput, subCrafts, depth + 1, visited);
-            }
-            visited.remove(itemId);
+            matItemIndex++;
         }
     }
 
-    private void resolveIngredients(String itemId, long needed, Map<String, Long> materials, Set<String> visited) {
-        if (visited.contains(itemId)) {
-            materials.merge(itemId, needed, Long::sum);
-            return;
-        }
+    /**
+     * Every pinned item and HUD recipe merged into one list of crafts and raw materials.
+     */
+    private void buildShoppingList(UICommandBuilder cmd, UIEventBuilder events, Set<String> hudRecipes) {
+        String listSel = "#RecipePanel #RecipeListContainer #RecipeList";
+        String language = playerRef.getLanguage();
 
-        List<String> recipeIds = JETPlugin.ITEM_TO_RECIPES.getOrDefault(itemId, Collections.emptyList());
-        if (recipeIds.isEmpty()) {
-            materials.merge(itemId, needed, Long::sum);
-            return;
+        cmd.append(listSel, "Pages/JET_CalcControls.ui");
+        for (String control : new String[]{"#CalcMinus10", "#CalcMinus", "#CalcQtyLabel", "#CalcPlus", "#CalcPlus10", "#CalcOptimize", "#CalcInventory"}) {
+            cmd.set("#CalcControls " + control + ".Visible", false);
         }
+        cmd.set("#CalcControls #CalcScopeLabel.Text", "Selected");
+        cmd.set("#CalcControls #CalcScopeLabel.Style.TextColor", "#55ff55");
+        events.addEventBinding(CustomUIEventBindingType.Activating, "#CalcControls #CalcScope", EventData.of("SelectedItem", "scope:toggle"), false);
 
-        CraftingRecipe recipe = getNonSalvagerRecipe(itemId, recipeIds);
-        if (recipe == null) {
-            materials.merge(itemId, needed, Long::sum);
-            return;
-        }
+        ShoppingList list = JETPlugin.getInstance().getShoppingList(playerRef.getUuid(), hudRecipes);
+        Map<String, Long> crafts = list.getCrafts();
+        Map<String, Long> rawMaterials = list.getRawMaterials();
+        cmd.set("#RecipePanel #PageInfo.TextSpans",
+                Message.join(new Message[]{
+                    Message.raw(rawMaterials.size() + " raw").color("#aaaaaa"),
+                    Message.raw("  "),
+                    Message.raw(crafts.size() + " craftable").color("#55aaff"),
+                    Message.raw("  all pins").color("#77bbff")
+                }));
 
-        long outputQty = 1;
-        MaterialQuantity[] outputs = recipe.getOutputs();
-        if (outputs != null) {
-            for (MaterialQuantity output : outputs) {
-                if (output != null && itemId.equals(output.getItemId())) {
-                    outputQty = Math.max(1, output.getQuantity());
-                    break;
-                }
-            }
+        int appendIdx = 1;
+        for (Map.Entry<String, Long> entry : crafts.entrySet()) {
+            Item item = JETPlugin.ITEMS.get(entry.getKey());
+            String displayName = item != null ? getDisplayName(item, language) : entry.getKey().replace("_", " ");
+            long qty = entry.getValue();
+            String qtyStr = "x" + (qty >= 1000 ? String.format("%,d", qty) : String.valueOf(qty)) + " crafts";
+
+            cmd.appendInline(listSel, "Group { LayoutMode: Left; Padding: (Bottom: 2); " +
+                    "Group { Anchor: (Width: 3, Height: 26); Background: (Color: #88ccff); } " +
+                    "ItemIcon { Anchor: (Width: 26, Height: 26); Visible: true; } " +
+                    "Label { Style: (FontSize: 10, TextColor: #88ccff); } " +
+                    "Label { Style: (FontSize: 10, TextColor: #ffcc66); } }");
+            String rowSel = listSel + "[" + appendIdx + "]";
+            cmd.set(rowSel + "[1].ItemId", entry.getKey());
+            cmd.set(rowSel + "[2].Text", displayName);
+            cmd.set(rowSel + "[3].Text", qtyStr);
+            cmd.set(rowSel + ".TooltipTextSpans", Message.raw(displayName + "  " + qtyStr));
+            appendIdx++;
         }
 
-        long craftsNeeded = (needed + outputQty - 1) / outputQty;
+        cmd.appendInline(listSel, "Group { Anchor: (Height: 2); Background: (Color: #555555); }");
+        appendIdx++;
+        cmd.appendInline(listSel,
+                "Group { Padding: (Bottom: 6); Label { Style: (FontSize: 10, TextColor: #aaaaaa, HorizontalAlignment: Center); } }");
+        cmd.set(listSel + "[" + appendIdx + "][0].Text", list.isEmpty() ? "Nothing pinned" : "Raw Materials (all pins)");
+        appendIdx++;
 
-        visited.add(itemId);
-        List<MaterialQuantity> inputs = getRecipeInputs(recipe);
-        for (MaterialQuantity input : inputs) {
-            if (input.getItemId() != null) {
-                resolveIngredients(input.getItemId(), (long) input.getQuantity() * craftsNeeded, materials, visited);
-            } else if (input.getResourceTypeId() != null) {
-                String key = "resource:" + input.getResourceTypeId();
-                materials.merge(key, (long) input.getQuantity() * craftsNeeded, Long::sum);
-            }
-        }
-        visited.remove(itemId);
+        appendMaterialGrid(cmd, listSel, appendIdx, rawMaterials, language);
     }
 
     private String formatDropListName(String dropListId) {
@@ -971,53 +944,12 @@ public class PinnedGui extends InteractiveCustomUIPage<PinnedGui.GuiData> {
     }
 
     private List<MaterialQuantity> getRecipeInputs(CraftingRecipe recipe) {
-        List<MaterialQuantity> result = new ArrayList<>();
-        try {
-            Method getInputMethod = CraftingRecipe.class.getMethod("getInput");
-            Object inputsObj = getInputMethod.invoke(recipe);
-            if (inputsObj instanceof List) {
-                for (Object obj : (List<?>) inputsObj) {
-                    if (obj instanceof MaterialQuantity) {
-                        MaterialQuantity mq = (MaterialQuantity) obj;
-                        if (mq.getItemId() != null || mq.getResourceTypeId() != null) {
-                            result.add(mq);
-                        }
-                    }
-                }
-            } else if (inputsObj instanceof MaterialQuantity[]) {
-                for (MaterialQuantity mq : (MaterialQuantity[]) inputsObj) {
-                    if (mq != null && (mq.getItemId() != null || mq.getResourceTypeId() != null)) {
-                        result.add(mq);
-                    }
-                }
-            } else if (inputsObj instanceof MaterialQuantity) {
-                MaterialQuantity mq = (MaterialQuantity) inputsObj;
-                if (mq.getItemId() != null || mq.getResourceTypeId() != null) {
-                    result.add(mq);
-                }
-            }
-        } catch (Exception ignored) {}
-        return result;
+        // Read once at recipe load; the accessor is resolved by RecipeGraph
+        return JETPlugin.getRecipeGraph().getInputs(recipe);
     }
 
     private String getDisplayName(Item item, String language) {
-        if (item == null) return "Unknown";
-        try {
-            String key = item.getTranslationKey();
-            if (key != null) {
-                String translated = I18nModule.get().getMessage(language, key);
-                if (translated != null && !translated.isEmpty()) {
-                    return translated;
-                }
-            }
-        } catch (Exception ignored) {}
-
-        String id = item.getId();
-        if (id == null) return "Unknown";
-        if (id.contains(":")) id = id.substring(id.indexOf(":") + 1);
-        int underscore = id.indexOf("_");
-        if (underscore > 0) id = id.substring(underscore + 1);
-        return id.replace("_", " ");
+        return JETPlugin.getInstance().getItemRegistry().getSearchIndex().getDisplayName(item, language);
     }
 
     private Message getColoredItemName(Item item, String displayName) {
@@ -1067,8 +999,8 @@ public class PinnedGui extends InteractiveCustomUIPage<PinnedGui.GuiData> {
         }
 
         // Show recipe/usage counts
-        int craftCount = JETPlugin.ITEM_TO_RECIPES.getOrDefault(itemId, Collections.emptyList()).size();
-        int usageCount = JETPlugin.ITEM_FROM_RECIPES.getOrDefault(itemId, Collections.emptyList()).size();
+        int craftCount = JETPlugin.getRecipeGraph().getCraftingRecipeIds(itemId).size();
+        int usageCount = JETPlugin.getRecipeGraph().getUsageRecipeIds(itemId).size();
         sb.append("\nCraft: ").append(craftCount).append(" | Uses: ").append(usageCount);
 
         return Message.raw(sb.toString());
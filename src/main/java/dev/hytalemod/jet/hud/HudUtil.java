@@ -3,17 +3,23 @@ package dev.hytalemod.jet.hud;
 import com.hypixel.hytale.component.Ref;
 import com.hypixel.hytale.component.Store;
 import com.hypixel.hytale.server.core.entity.entities.Player;
+import com.hypixel.hytale.server.core.entity.entities.player.hud.CustomUIHud;
 import com.hypixel.hytale.server.core.universe.PlayerRef;
 import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+import com.hypixel.hytale.server.core.universe.world.World;
+import dev.hytalemod.jet.component.RecipeHudComponent;
 import dev.hytalemod.jet.system.InventoryTrackingSystem;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * Utility for managing recipe HUD updates
  */
 public class HudUtil {
 
     /**
-     * Update the recipe HUD for a player
+     * Update the recipe HUD for a player: counts change in place while the same rows are shown,
+     * anything else rebuilds the HUD
      */
     public static void updateHud(Ref<EntityStore> ref) {
         if (ref == null || !ref.isValid()) {
@@ -28,14 +34,39 @@ public class HudUtil {
             return;
         }
 
+        RecipeHudComponent component = store.getComponent(ref, RecipeHudComponent.getComponentType());
+        CustomUIHud current = player.getHudManager().getCustomHud();
+        if (component != null && current instanceof RecipeHud && ((RecipeHud) current).matches(component)) {
+            ((RecipeHud) current).refresh(player, component);
+            return;
+        }
+
         player.getHudManager().setCustomHud(playerRef, new RecipeHud(playerRef));
     }
 
     /**
-     * Update HUD and force inventory check
+     * Refresh the HUD after an item is pinned or unpinned; only compact mode lists pinned items.
+     * Deferred so it runs outside the page event handler.
+     */
+    public static void onPinsChanged(Ref<EntityStore> ref) {
+        if (ref == null || !ref.isValid()) {
+            return;
+        }
+
+        Store<EntityStore> store = ref.getStore();
+        RecipeHudComponent component = store.getComponent(ref, RecipeHudComponent.getComponentType());
+        if (component == null || !component.compact) {
+            return;
+        }
+
+        World world = ((EntityStore) store.getExternalData()).getWorld();
+        CompletableFuture.runAsync(() -> updateHud(ref), world);
+    }
+
+    /**
+     * Update HUD after a full inventory rescan
      */
     public static void updateHudWithInventoryRefresh(Ref<EntityStore> ref) {
-        updateHud(ref);
         InventoryTrackingSystem.forceUpdate(ref);
     }
 }
\ No newline at end of file
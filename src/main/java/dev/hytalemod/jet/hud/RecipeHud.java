@@ -3,35 +3,75 @@ package dev.hytalemod.jet.hud;
 
 import com.hypixel.hytale.component.Ref;
 import com.hypixel.hytale.component.Store;
-import com.hypixel.hytale.protocol.ItemResourceType;
 import com.hypixel.hytale.server.core.Message;
 import com.hypixel.hytale.server.core.asset.type.item.config.CraftingRecipe;
 import com.hypixel.hytale.server.core.asset.type.item.config.Item;
 import com.hypixel.hytale.server.core.asset.type.item.config.ResourceType;
 import com.hypixel.hytale.server.core.entity.entities.Player;
 import com.hypixel.hytale.server.core.entity.entities.player.hud.CustomUIHud;
-import com.hypixel.hytale.server.core.inventory.Inventory;
 import com.hypixel.hytale.server.core.inventory.MaterialQuantity;
 import com.hypixel.hytale.server.core.ui.builder.UICommandBuilder;
 import com.hypixel.hytale.server.core.universe.PlayerRef;
 import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
 import dev.hytalemod.jet.JETPlugin;
+import dev.hytalemod.jet.calc.CraftingCalculator;
+import dev.hytalemod.jet.calc.ShoppingList;
 import dev.hytalemod.jet.component.RecipeHudComponent;
+import dev.hytalemod.jet.registry.RecipeGraph;
+import dev.hytalemod.jet.util.InventoryScanner;
+import dev.hytalemod.jet.util.InventorySnapshot;
 
 import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
- * HUD overlay showing pinned recipes with ingredient counts
+ * HUD overlay showing pinned recipes with ingredient counts.
+ *
+ * The HUD remembers which rows it built and the text last sent to each count label, so an inventory
+ * change can {@link #refresh} only the labels that changed; a different set of rows needs a new HUD.
  */
 public class RecipeHud extends CustomUIHud {
 
+    private static final String COMPACT_LAYOUT = "#Compact";
+
+    // Selector -> counts and colors last sent to it
+    private final Map<String, String> rendered = new HashMap<>();
+    private List<String> layout = Collections.emptyList();
+    private RecipeGraph graph;
+    private int sent;
+
     public RecipeHud(@Nonnull PlayerRef playerRef) {
         super(playerRef);
     }
 
+    /**
+     * Whether the rows on screen still match the component, so counts can be updated in place.
+     */
+    public boolean matches(RecipeHudComponent component) {
+        return graph == JETPlugin.getRecipeGraph() && layout.equals(layoutOf(component));
+    }
+
+    /**
+     * Send only the count labels whose text or color changed since the last render.
+     */
+    public void refresh(Player player, RecipeHudComponent component) {
+        UICommandBuilder cmd = new UICommandBuilder();
+        int changed = render(InventoryScanner.snapshot(player), component, cmd, false);
+        if (changed > 0) {
+            update(false, cmd);
+        }
+    }
+
     @Override
     protected void build(@Nonnull UICommandBuilder cmd) {
+        rendered.clear();
+        layout = Collections.emptyList();
+        graph = JETPlugin.getRecipeGraph();
         cmd.append("Huds/JET_HudContainer.ui");
 
         Ref<EntityStore> ref = getPlayerRef().getReference();
@@ -49,22 +89,66 @@ public class RecipeHud extends CustomUIHud {
         if (component == null) {
             return;
         }
-        AtomicInteger index = new AtomicInteger(0);
 
-        for (String recipeId : component.pinnedRecipes) {
-            buildRecipe(player, recipeId, cmd, index);
+        layout = layoutOf(component);
+        render(InventoryScanner.snapshot(player), component, cmd, true);
+    }
+
+    /**
+     * Rows the HUD shows for the component: pinned recipes, or the shopping list's raw materials.
+     */
+    private List<String> layoutOf(RecipeHudComponent component) {
+        List<String> rows = new ArrayList<>();
+        if (component.compact) {
+            rows.add(COMPACT_LAYOUT);
+            rows.addAll(JETPlugin.getInstance().getShoppingList(getPlayerRef().getUuid(), component.pinnedRecipes)
+                    .getRawMaterials().keySet());
+        } else {
+            rows.addAll(component.pinnedRecipes);
+        }
+        return rows;
+    }
+
+    /**
+     * Set every row's labels from one inventory snapshot.
+     * @param appendRows whether to append the rows and icons first, or only update the labels already on screen
+     * @return how many labels were set
+     */
+    private int render(InventorySnapshot snapshot, RecipeHudComponent component, UICommandBuilder cmd, boolean appendRows) {
+        int before = sent;
+        if (component.compact) {
+            buildShoppingList(snapshot, component, cmd, appendRows);
+        } else {
+            AtomicInteger index = new AtomicInteger(0);
+            for (String recipeId : component.pinnedRecipes) {
+                buildRecipe(snapshot, recipeId, cmd, index, appendRows);
+            }
+        }
+        return sent - before;
+    }
+
+    /**
+     * Set a label unless it already shows the same counts and colors.
+     */
+    private void setText(UICommandBuilder cmd, String selector, String counts, Message text) {
+        if (counts.equals(rendered.put(selector, counts))) {
+            return;
         }
+        cmd.set(selector, text);
+        sent++;
     }
 
-    private void buildRecipe(Player player, String recipeId, UICommandBuilder cmd, AtomicInteger index) {
-        CraftingRecipe recipe = JETPlugin.RECIPES.get(recipeId);
+    private void buildRecipe(InventorySnapshot snapshot, String recipeId, UICommandBuilder cmd, AtomicInteger index, boolean appendRows) {
+        CraftingRecipe recipe = JETPlugin.getRecipeGraph().getRecipe(recipeId);
         if (recipe == null) {
             return;
         }
 
-        cmd.append("#Recipes", "Huds/JET_HudRecipe.ui");
         String recipeTag = "#Recipes[" + index.get() + "]";
         index.getAndIncrement();
+        if (appendRows) {
+            cmd.append("#Recipes", "Huds/JET_HudRecipe.ui");
+        }
 
         // Set output item
         MaterialQuantity[] outputs = recipe.getOutputs();
@@ -72,10 +156,16 @@ public class RecipeHud extends CustomUIHud {
             MaterialQuantity output = outputs[0];
             String itemId = output.getItemId();
             if (itemId != null) {
-                cmd.set(recipeTag + " #OutputItemIcon.ItemId", itemId);
+                if (appendRows) {
+                    cmd.set(recipeTag + " #OutputItemIcon.ItemId", itemId);
+                }
                 Item item = JETPlugin.ITEMS.get(itemId);
                 if (item != null) {
-                    cmd.set(recipeTag + " #OutputItemName.TextSpans", Message.translation(item.getTranslationKey()));
+                    long craftable = JETPlugin.getCraftingCalculator().maxCrafts(recipeId, snapshot);
+                    setText(cmd, recipeTag + " #OutputItemName.TextSpans", "x" + craftable, Message.join(new Message[]{
+                            Message.translation(item.getTranslationKey()),
+                            Message.raw("  x" + craftable).color(craftable > 0 ? "#11dd11" : "#888888")
+                    }));
                 }
             }
         }
@@ -83,18 +173,81 @@ public class RecipeHud extends CustomUIHud {
         // Build input items
         AtomicInteger i = new AtomicInteger(0);
         String tag = "#Inputs";
-        cmd.appendInline(recipeTag + " #InputItems", "Group " + tag + " {LayoutMode: Top;}");
+        if (appendRows) {
+            cmd.appendInline(recipeTag + " #InputItems", "Group " + tag + " {LayoutMode: Top;}");
+        }
 
         MaterialQuantity[] inputs = recipe.getInput();
         if (inputs != null) {
             for (MaterialQuantity materialQuantity : inputs) {
-                addMaterialQuantity(player, materialQuantity, cmd, recipeTag + " " + tag, i);
+                addMaterialQuantity(snapshot, materialQuantity, cmd, recipeTag + " " + tag, i, appendRows);
             }
         }
     }
 
-    private void addMaterialQuantity(Player player, MaterialQuantity materialQuantity, UICommandBuilder cmd, String tag, AtomicInteger i) {
-        Inventory inventory = player.getInventory();
+    /**
+     * Compact mode: one panel with the merged raw materials of every pinned item and recipe.
+     */
+    private void buildShoppingList(InventorySnapshot snapshot, RecipeHudComponent component, UICommandBuilder cmd, boolean appendRows) {
+        ShoppingList list = JETPlugin.getInstance().getShoppingList(getPlayerRef().getUuid(), component.pinnedRecipes);
+
+        String recipeTag = "#Recipes[0]";
+        String tag = "#Inputs";
+        if (appendRows) {
+            cmd.append("#Recipes", "Huds/JET_HudRecipe.ui");
+            cmd.set(recipeTag + " #OutputItemIcon.Visible", false);
+            cmd.appendInline(recipeTag + " #InputItems", "Group " + tag + " {LayoutMode: Top;}");
+        }
+        long crafts = 0;
+        for (long count : list.getCrafts().values()) crafts += count;
+        setText(cmd, recipeTag + " #OutputItemName.TextSpans", crafts + " crafts", Message.join(new Message[]{
+                Message.raw("Shopping List"),
+                Message.raw("  " + crafts + " crafts").color("#aaaaaa")
+        }));
+
+        AtomicInteger i = new AtomicInteger(0);
+        for (Map.Entry<String, Long> entry : list.getRawMaterials().entrySet()) {
+            String key = entry.getKey();
+            boolean resource = key.startsWith(CraftingCalculator.RESOURCE_PREFIX);
+            String id = resource ? key.substring(CraftingCalculator.RESOURCE_PREFIX.length()) : key;
+            long have = resource ? snapshot.resourceCount(id) : snapshot.count(id);
+            addEntry(resource ? null : id, resource ? id : null, have, entry.getValue(), cmd, recipeTag + " " + tag, i, appendRows);
+        }
+    }
+
+    private void addEntry(String itemId, String resourceTypeId, long have, long need, UICommandBuilder cmd, String tag, AtomicInteger i,
+                          boolean appendRows) {
+        Message label;
+        if (itemId != null) {
+            Item item = JETPlugin.ITEMS.get(itemId);
+            if (item == null) return;
+            if (appendRows) {
+                cmd.append(tag, "Huds/JET_HudRecipeEntry.ui");
+                cmd.set(tag + "[" + i + "] #ItemIcon.ItemId", itemId);
+                cmd.set(tag + "[" + i + "] #ItemIcon.Visible", true);
+            }
+            label = Message.translation(item.getTranslationKey());
+        } else {
+            ResourceType resourceType = ResourceType.getAssetMap().getAsset(resourceTypeId);
+            if (resourceType == null) return;
+            String icon = resourceType.getIcon();
+            if (appendRows) {
+                cmd.append(tag, "Huds/JET_HudRecipeEntry.ui");
+                cmd.set(tag + "[" + i + "] #ResourceIcon.AssetPath", icon != null ? icon : "Icons/ResourceTypes/Unknown.png");
+                cmd.set(tag + "[" + i + "] #ResourceIcon.Visible", true);
+            }
+            label = Message.translation("server.resourceType." + resourceTypeId + ".name");
+        }
+
+        Message name = Message.empty();
+        name.insert(Message.raw(have + "/" + need + " ").color(have < need ? "#dd1111" : "#11dd11"));
+        name.insert(" ").insert(label);
+        setText(cmd, tag + "[" + i + "] #ItemName.TextSpans", have + "/" + need, name);
+        i.getAndIncrement();
+    }
+
+    private void addMaterialQuantity(InventorySnapshot snapshot, MaterialQuantity materialQuantity, UICommandBuilder cmd, String tag, AtomicInteger i,
+                                     boolean appendRows) {
         String itemId = materialQuantity.getItemId();
         String resourceTypeId = materialQuantity.getResourceTypeId();
 
@@ -104,13 +257,13 @@ public class RecipeHud extends CustomUIHud {
                 return;
             }
 
-            int count = inventory.getCombinedEverything().countItemStacks(itemStack ->
-                    itemStack.getItemId().equals(itemId)
-            );
+            int count = snapshot.count(itemId);
 
-            cmd.append(tag, "Huds/JET_HudRecipeEntry.ui");
-            cmd.set(tag + "[" + i + "] #ItemIcon.ItemId", itemId);
-            cmd.set(tag + "[" + i + "] #ItemIcon.Visible", true);
+            if (appendRows) {
+                cmd.append(tag, "Huds/JET_HudRecipeEntry.ui");
+                cmd.set(tag + "[" + i + "] #ItemIcon.ItemId", itemId);
+                cmd.set(tag + "[" + i + "] #ItemIcon.Visible", true);
+            }
 
             String value = count + "/" + materialQuantity.getQuantity() + " ";
             Message name = Message.empty();
@@ -122,7 +275,7 @@ public class RecipeHud extends CustomUIHud {
             }
 
             name.insert(" ").insert(Message.translation(inputItem.getTranslationKey()));
-            cmd.set(tag + "[" + i + "] #ItemName.TextSpans", name);
+            setText(cmd, tag + "[" + i + "] #ItemName.TextSpans", value, name);
             i.getAndIncrement();
 
         } else if (resourceTypeId != null) {
@@ -131,26 +284,18 @@ public class RecipeHud extends CustomUIHud {
                 return;
             }
 
-            int count = inventory.getCombinedEverything().countItemStacks(itemStack -> {
-                ItemResourceType[] resourceTypes = itemStack.getItem().getResourceTypes();
-                if (resourceTypes != null) {
-                    for (ItemResourceType type : resourceTypes) {
-                        if (type.id != null && type.id.equals(resourceTypeId)) {
-                            return true;
-                        }
-                    }
-                }
-                return false;
-            });
+            int count = snapshot.resourceCount(resourceTypeId);
 
             String icon = resourceType.getIcon();
             if (icon == null) {
                 icon = "Icons/ResourceTypes/Unknown.png";
             }
 
-            cmd.append(tag, "Huds/JET_HudRecipeEntry.ui");
-            cmd.set(tag + "[" + i + "] #ResourceIcon.AssetPath", icon);
-            cmd.set(tag + "[" + i + "] #ResourceIcon.Visible", true);
+            if (appendRows) {
+                cmd.append(tag, "Huds/JET_HudRecipeEntry.ui");
+                cmd.set(tag + "[" + i + "] #ResourceIcon.AssetPath", icon);
+                cmd.set(tag + "[" + i + "] #ResourceIcon.Visible", true);
+            }
 
             String value = count + "/" + materialQuantity.getQuantity() + " ";
             Message name = Message.empty();
@@ -162,7 +307,7 @@ public class RecipeHud extends CustomUIHud {
             }
 
             name.insert(" ").insert(Message.translation("server.resourceType." + resourceTypeId + ".name"));
-            cmd.set(tag + "[" + i + "] #ItemName.TextSpans", name);
+            setText(cmd, tag + "[" + i + "] #ItemName.TextSpans", value, name);
             i.getAndIncrement();
         }
     }
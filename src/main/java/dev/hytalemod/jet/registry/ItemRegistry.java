@@ -1,7 +1,5 @@
 package dev.hytalemod.jet.registry;
 
-import com.hypixel.hytale.assetstore.AssetPack;
-import com.hypixel.hytale.server.core.asset.AssetModule;
 import com.hypixel.hytale.server.core.asset.type.item.config.Item;
 
 import java.util.*;
@@ -14,7 +12,9 @@ public class ItemRegistry {
     
     private final Map<String, Item> items = new LinkedHashMap<>();
     private final Map<Category, Set<String>> categoryIndex = new EnumMap<>(Category.class);
-    private final Map<String, Set<String>> tagIndex = new HashMap<>();
+    private volatile SearchIndex searchIndex = SearchIndex.EMPTY;
+    private volatile TagIndex tagIndex = TagIndex.EMPTY; // Shared with searchIndex
+    private volatile PackCatalogue packCatalogue = PackCatalogue.EMPTY;
     
     public enum Category {
         ALL("All"),
@@ -40,7 +40,6 @@ public class ItemRegistry {
     public void reload(Map<String, Item> newItems) {
         items.clear();
         categoryIndex.clear();
-        tagIndex.clear();
         
         // Initialize category sets
         for (Category cat : Category.values()) {
@@ -75,9 +74,6 @@ public class ItemRegistry {
                 categoryIndex.get(Category.BLOCKS).add(id);
             }
             
-            // Index by tags (extracted from item ID parts)
-            indexTags(id);
-            
             // Default to misc if not categorized elsewhere
             boolean categorized = false;
             for (Category cat : Category.values()) {
@@ -90,17 +86,11 @@ public class ItemRegistry {
                 categoryIndex.get(Category.MISC).add(id);
             }
         }
-    }
-    
-    private void indexTags(String itemId) {
-        // Extract tags from item ID (e.g., "Hytale:Iron_Sword" -> ["iron", "sword"])
-        String[] parts = itemId.split("[:_]");
-        for (String part : parts) {
-            String tag = part.toLowerCase();
-            if (tag.length() > 2) { // Skip very short parts
-                tagIndex.computeIfAbsent(tag, k -> new HashSet<>()).add(itemId);
-            }
-        }
+
+        SearchIndex index = new SearchIndex(items);
+        searchIndex = index;
+        tagIndex = index.getTagIndex();
+        packCatalogue = PackCatalogue.build(index);
     }
     
     public int size() {
@@ -114,13 +104,32 @@ public class ItemRegistry {
     public Map<String, Item> getAll() {
         return Collections.unmodifiableMap(items);
     }
+
+    /**
+     * Current search snapshot; replaced wholesale on every reload.
+     */
+    public SearchIndex getSearchIndex() {
+        return searchIndex;
+    }
+    
+    /**
+     * Tag dictionary of the current snapshot, the same one the browser's # search uses.
+     */
+    public TagIndex getTagIndex() {
+        return tagIndex;
+    }
     
     public Set<String> getByCategory(Category category) {
         return Collections.unmodifiableSet(categoryIndex.getOrDefault(category, Collections.emptySet()));
     }
     
     public Set<String> getByTag(String tag) {
-        return Collections.unmodifiableSet(tagIndex.getOrDefault(tag.toLowerCase(), Collections.emptySet()));
+        SearchIndex index = searchIndex;
+        Set<String> ids = new HashSet<>();
+        for (int ordinal : index.getTagIndex().get(tag)) {
+            ids.add(index.getId(ordinal));
+        }
+        return Collections.unmodifiableSet(ids);
     }
     
     /**
@@ -158,22 +167,15 @@ public class ItemRegistry {
                     matchingIds.retainAll(catIds);
                 }
             } else if (term.startsWith("#")) {
-                // Tag filter
+                // Tag filter, same lookup as the browser's # search
                 String tag = term.substring(1).toLowerCase();
-                Set<String> tagIds = tagIndex.getOrDefault(tag, Collections.emptySet());
+                SearchIndex index = searchIndex;
+                Set<String> tagIds = new HashSet<>();
+                for (int ordinal : index.findTag(tag)) {
+                    tagIds.add(index.getId(ordinal));
+                }
                 if (!tagIds.isEmpty()) {
                     matchingIds.retainAll(tagIds);
-                } else {
-                    // Partial tag match
-                    Set<String> partialMatch = new HashSet<>();
-                    for (Map.Entry<String, Set<String>> e : tagIndex.entrySet()) {
-                        if (e.getKey().contains(tag)) {
-                            partialMatch.addAll(e.getValue());
-                        }
-                    }
-                    if (!partialMatch.isEmpty()) {
-                        matchingIds.retainAll(partialMatch);
-                    }
                 }
             } else {
                 // Regular text search
@@ -184,7 +186,12 @@ public class ItemRegistry {
         // Apply text search filter
         if (!textSearch.isEmpty()) {
             final String searchText = textSearch.toLowerCase();
-            matchingIds.removeIf(id -> !id.toLowerCase().contains(searchText));
+            SearchIndex index = searchIndex;
+            Set<String> textMatches = new HashSet<>();
+            for (int ordinal : index.findIds(searchText)) {
+                textMatches.add(index.getId(ordinal));
+            }
+            matchingIds.retainAll(textMatches);
         }
         
         // Return sorted results
@@ -198,27 +205,19 @@ public class ItemRegistry {
         return Arrays.asList(Category.values());
     }
 
+    /**
+     * Packs contributing items to the current snapshot; rebuilt on every reload.
+     */
+    public PackCatalogue getPackCatalogue() {
+        return packCatalogue;
+    }
+
     /**
      * Returns a sorted map of pack internal name -> display label for all packs that contribute items.
      * The base game pack is labeled "Vanilla".
      */
     public LinkedHashMap<String, String> getAvailablePackLabels() {
-        LinkedHashMap<String, String> result = new LinkedHashMap<>();
-        try {
-            TreeMap<String, String> sorted = new TreeMap<>();
-            for (AssetPack pack : AssetModule.get().getAssetPacks()) {
-                String internalName = pack.getName();
-                Set<String> contributed = Item.getAssetMap().getKeysForPack(internalName);
-                if (contributed == null || contributed.isEmpty()) continue;
-
-                String label = pack.getManifest().getName();
-                // Rename the base game to something friendlier
-                if ("Hytale".equals(label)) label = "Vanilla";
-                sorted.put(internalName, label);
-            }
-            result.putAll(sorted);
-        } catch (Exception ignored) {}
-        return result;
+        return new LinkedHashMap<>(packCatalogue.getLabels());
     }
 
     /**
@@ -0,0 +1,136 @@
+package dev.hytalemod.jet.registry;
+
+import com.hypixel.hytale.assetstore.AssetPack;
+import com.hypixel.hytale.server.core.asset.AssetModule;
+import com.hypixel.hytale.server.core.ui.DropdownEntryInfo;
+import com.hypixel.hytale.server.core.ui.LocalizableString;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Asset packs that contribute items, enumerated once per item load.
+ * Holds each pack's label, item bitmap and item count, plus the ready-made mod filter dropdown,
+ * so opening the browser never walks the asset packs.
+ */
+public final class PackCatalogue {
+
+    public static final PackCatalogue EMPTY = new PackCatalogue(SearchIndex.EMPTY, Collections.emptyList());
+
+    /**
+     * One pack contributing at least one item.
+     */
+    public static final class Pack {
+        private final String name;
+        private final String label;
+        private final BitSet items;
+        private final int itemCount;
+
+        Pack(String name, String label, BitSet items) {
+            this.name = name;
+            this.label = label;
+            this.items = items;
+            this.itemCount = items.cardinality();
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        /**
+         * Item ordinals in the catalogue's search index; read-only.
+         */
+        public BitSet getItems() {
+            return items;
+        }
+
+        public int getItemCount() {
+            return itemCount;
+        }
+    }
+
+    private final SearchIndex index;
+    private final Map<String, Pack> packs;
+    private final Map<String, String> labels;
+    private final List<DropdownEntryInfo> dropdownEntries;
+
+    private PackCatalogue(SearchIndex index, List<Pack> sorted) {
+        this.index = index;
+        Map<String, Pack> byName = new LinkedHashMap<>();
+        LinkedHashMap<String, String> labelMap = new LinkedHashMap<>();
+        List<DropdownEntryInfo> entries = new ArrayList<>(sorted.size() + 1);
+        entries.add(new DropdownEntryInfo(LocalizableString.fromString("All Mods"), ""));
+        for (Pack pack : sorted) {
+            byName.put(pack.name, pack);
+            labelMap.put(pack.name, pack.label);
+            entries.add(new DropdownEntryInfo(
+                    LocalizableString.fromString(pack.label + " (" + pack.itemCount + ")"), pack.name));
+        }
+        this.packs = Collections.unmodifiableMap(byName);
+        this.labels = Collections.unmodifiableMap(labelMap);
+        this.dropdownEntries = Collections.unmodifiableList(entries);
+    }
+
+    /**
+     * Enumerate the loaded asset packs against a freshly built search index.
+     */
+    public static PackCatalogue build(SearchIndex index) {
+        List<Pack> sorted = new ArrayList<>();
+        try {
+            TreeMap<String, AssetPack> byName = new TreeMap<>();
+            for (AssetPack pack : AssetModule.get().getAssetPacks()) {
+                byName.put(pack.getName(), pack);
+            }
+            for (AssetPack pack : byName.values()) {
+                String internalName = pack.getName();
+                // Also warms the index's pack bitmap used by the browser's pack filter
+                BitSet items = index.getPackBits(internalName);
+                if (items == index.getAllBits() || items.isEmpty()) continue;
+
+                String label = pack.getManifest().getName();
+                // Rename the base game to something friendlier
+                if ("Hytale".equals(label)) label = "Vanilla";
+                sorted.add(new Pack(internalName, label, items));
+            }
+        } catch (Exception ignored) {}
+        return new PackCatalogue(index, sorted);
+    }
+
+    /**
+     * The search index whose ordinals the pack bitmaps refer to.
+     */
+    public SearchIndex getIndex() {
+        return index;
+    }
+
+    public Pack get(String packName) {
+        return packName != null ? packs.get(packName) : null;
+    }
+
+    public Map<String, Pack> getPacks() {
+        return packs;
+    }
+
+    /**
+     * Pack internal name -> display label, sorted by internal name; read-only.
+     */
+    public Map<String, String> getLabels() {
+        return labels;
+    }
+
+    /**
+     * Mod filter dropdown entries: "All Mods" followed by each pack with its item count.
+     */
+    public List<DropdownEntryInfo> getDropdownEntries() {
+        return dropdownEntries;
+    }
+}
@@ -0,0 +1,507 @@
+package dev.hytalemod.jet.registry;
+
+import com.hypixel.hytale.protocol.BenchRequirement;
+import com.hypixel.hytale.server.core.asset.type.item.config.CraftingRecipe;
+import com.hypixel.hytale.server.core.inventory.MaterialQuantity;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable recipe graph, rebuilt on every recipe load and published as one reference.
+ * Item, resource type and recipe IDs are interned to dense ordinals; produces / consumes edges
+ * are stored as CSR adjacency (an offsets array plus one flat index array per direction), so
+ * looking up the recipes for an item is one hash lookup and a slice of an int array.
+ * Every recipe is also flattened at load into parallel primitive arrays (input item or resource
+ * type, quantities, output quantities, bench tier) for code that walks recipes repeatedly.
+ */
+public final class RecipeGraph {
+
+    // Resolved once; whichever input accessors this server build's CraftingRecipe exposes, in priority order
+    private static final MethodHandle[] INPUT_ACCESSORS = resolveInputAccessors(
+            "getInput", "getInputs", "getIngredients", "getMaterials", "getRecipeInputs", "getRequiredMaterials");
+
+    public static final RecipeGraph EMPTY = build(Collections.emptyMap());
+
+    private final String[] recipeIds;
+    private final CraftingRecipe[] recipes;
+    private final Map<String, Integer> recipeOrdinals;
+    private final String[] itemIds;
+    private final Map<String, Integer> itemOrdinals;
+    private final String[] resourceIds;
+    private final Map<String, Integer> resourceOrdinals;
+
+    // Flattened recipes: per-recipe slices of parallel arrays
+    private final int[] outputOffsets;
+    private final int[] outputItems;
+    private final int[] outputQuantities;
+    private final int[] inputOffsets;
+    private final int[] inputItems;      // -1 for resource type inputs
+    private final int[] inputResources;  // -1 for item inputs
+    private final int[] inputQuantities;
+    private final int[] benchTiers;      // 0 when no bench is required
+    private final MaterialQuantity[][] inputs;
+
+    // Item -> recipe edges, recipes in load order
+    private final int[] producerOffsets;
+    private final int[] producers;
+    private final int[] consumerOffsets;
+    private final int[] consumers;
+    private final int[] resourceConsumerOffsets;
+    private final int[] resourceConsumers;
+
+    private RecipeGraph(Builder b, int count) {
+        this.recipeIds = Arrays.copyOf(b.recipeIds, count);
+        this.recipes = Arrays.copyOf(b.recipes, count);
+        this.recipeOrdinals = b.recipeOrdinals;
+        this.itemIds = b.itemIds.toArray(new String[0]);
+        this.itemOrdinals = b.itemOrdinals;
+        this.resourceIds = b.resourceIds.toArray(new String[0]);
+        this.resourceOrdinals = b.resourceOrdinals;
+        this.outputOffsets = Arrays.copyOf(b.outputOffsets, count + 1);
+        this.outputItems = b.outputItems.toArray();
+        this.outputQuantities = b.outputQuantities.toArray();
+        this.inputOffsets = Arrays.copyOf(b.inputOffsets, count + 1);
+        this.inputItems = b.inputItems.toArray();
+        this.inputResources = b.inputResources.toArray();
+        this.inputQuantities = b.inputQuantities.toArray();
+        this.benchTiers = Arrays.copyOf(b.benchTiers, count);
+        this.inputs = Arrays.copyOf(b.inputs, count);
+
+        this.producerOffsets = new int[itemIds.length + 1];
+        this.producers = invert(outputOffsets, outputItems, producerOffsets);
+        this.consumerOffsets = new int[itemIds.length + 1];
+        this.consumers = invert(inputOffsets, inputItems, consumerOffsets);
+        this.resourceConsumerOffsets = new int[resourceIds.length + 1];
+        this.resourceConsumers = invert(inputOffsets, inputResources, resourceConsumerOffsets);
+    }
+
+    /**
+     * Build the graph in one pass over the recipes.
+     */
+    public static RecipeGraph build(Map<String, CraftingRecipe> source) {
+        Builder b = new Builder(source.size());
+        int recipe = 0;
+        for (CraftingRecipe value : source.values()) {
+            if (value == null || value.getId() == null || b.recipeOrdinals.containsKey(value.getId())) continue;
+            b.recipeIds[recipe] = value.getId();
+            b.recipes[recipe] = value;
+            b.recipeOrdinals.put(value.getId(), recipe);
+
+            try {
+                MaterialQuantity[] outputs = value.getOutputs();
+                if (outputs != null) {
+                    for (MaterialQuantity output : outputs) {
+                        if (output != null && output.getItemId() != null) {
+                            b.outputItems.add(intern(output.getItemId(), b.itemOrdinals, b.itemIds));
+                            b.outputQuantities.add(output.getQuantity());
+                        }
+                    }
+                }
+            } catch (Exception ignored) {}
+            b.outputOffsets[recipe + 1] = b.outputItems.size;
+
+            List<MaterialQuantity> recipeInputs = readInputs(value);
+            for (MaterialQuantity input : recipeInputs) {
+                if (input.getItemId() != null) {
+                    b.inputItems.add(intern(input.getItemId(), b.itemOrdinals, b.itemIds));
+                    b.inputResources.add(-1);
+                } else {
+                    b.inputItems.add(-1);
+                    b.inputResources.add(intern(input.getResourceTypeId(), b.resourceOrdinals, b.resourceIds));
+                }
+                b.inputQuantities.add(input.getQuantity());
+            }
+            b.inputOffsets[recipe + 1] = b.inputItems.size;
+            b.inputs[recipe] = recipeInputs.toArray(new MaterialQuantity[0]);
+            b.benchTiers[recipe] = benchTier(value);
+            recipe++;
+        }
+        return new RecipeGraph(b, recipe);
+    }
+
+    /**
+     * A graph over recipes given as plain IDs and quantities, with no {@link CraftingRecipe} behind them;
+     * the tests' hook. Per recipe, an input has either an item ID or a resource type ID, the other null.
+     */
+    static RecipeGraph of(String[] recipeIds, int[] benchTiers, String[][] outputItems, int[][] outputQuantities,
+                          String[][] inputItems, String[][] inputResources, int[][] inputQuantities) {
+        Builder b = new Builder(recipeIds.length);
+        int recipe = 0;
+        for (int r = 0; r < recipeIds.length; r++) {
+            if (b.recipeOrdinals.containsKey(recipeIds[r])) continue;
+            b.recipeIds[recipe] = recipeIds[r];
+            b.recipeOrdinals.put(recipeIds[r], recipe);
+            for (int o = 0; o < outputItems[r].length; o++) {
+                b.outputItems.add(intern(outputItems[r][o], b.itemOrdinals, b.itemIds));
+                b.outputQuantities.add(outputQuantities[r][o]);
+            }
+            b.outputOffsets[recipe + 1] = b.outputItems.size;
+            for (int i = 0; i < inputItems[r].length; i++) {
+                if (inputItems[r][i] != null) {
+                    b.inputItems.add(intern(inputItems[r][i], b.itemOrdinals, b.itemIds));
+                    b.inputResources.add(-1);
+                } else {
+                    b.inputItems.add(-1);
+                    b.inputResources.add(intern(inputResources[r][i], b.resourceOrdinals, b.resourceIds));
+                }
+                b.inputQuantities.add(inputQuantities[r][i]);
+            }
+            b.inputOffsets[recipe + 1] = b.inputItems.size;
+            b.inputs[recipe] = new MaterialQuantity[0];
+            b.benchTiers[recipe] = benchTiers[r];
+            recipe++;
+        }
+        return new RecipeGraph(b, recipe);
+    }
+
+    public int recipeCount() {
+        return recipeIds.length;
+    }
+
+    public int itemCount() {
+        return itemIds.length;
+    }
+
+    /**
+     * Returns the ordinal for a recipe ID, or -1 if it is not in this graph.
+     */
+    public int recipeOrdinal(String recipeId) {
+        Integer ordinal = recipeId != null ? recipeOrdinals.get(recipeId) : null;
+        return ordinal != null ? ordinal : -1;
+    }
+
+    /**
+     * Returns the ordinal for an item ID, or -1 if no recipe produces or consumes it.
+     */
+    public int itemOrdinal(String itemId) {
+        Integer ordinal = itemId != null ? itemOrdinals.get(itemId) : null;
+        return ordinal != null ? ordinal : -1;
+    }
+
+    public String getRecipeId(int recipe) {
+        return recipeIds[recipe];
+    }
+
+    public CraftingRecipe getRecipe(int recipe) {
+        return recipes[recipe];
+    }
+
+    public CraftingRecipe getRecipe(String recipeId) {
+        int ordinal = recipeOrdinal(recipeId);
+        return ordinal >= 0 ? recipes[ordinal] : null;
+    }
+
+    public boolean hasRecipe(String recipeId) {
+        return recipeOrdinal(recipeId) >= 0;
+    }
+
+    public String getItemId(int item) {
+        return itemIds[item];
+    }
+
+    /**
+     * All recipe IDs in load order; read-only.
+     */
+    public List<String> getRecipeIds() {
+        return Collections.unmodifiableList(Arrays.asList(recipeIds));
+    }
+
+    /**
+     * IDs of recipes that produce the item (how to craft it), in load order; read-only view.
+     */
+    public List<String> getCraftingRecipeIds(String itemId) {
+        int item = itemOrdinal(itemId);
+        return item >= 0 ? new RecipeIdSlice(producers, producerOffsets[item], producerOffsets[item + 1]) : Collections.emptyList();
+    }
+
+    /**
+     * IDs of recipes that take the item as an input (its uses), in load order; read-only view.
+     */
+    public List<String> getUsageRecipeIds(String itemId) {
+        int item = itemOrdinal(itemId);
+        return item >= 0 ? new RecipeIdSlice(consumers, consumerOffsets[item], consumerOffsets[item + 1]) : Collections.emptyList();
+    }
+
+    public boolean isCraftable(String itemId) {
+        int item = itemOrdinal(itemId);
+        return item >= 0 && producerOffsets[item + 1] > producerOffsets[item];
+    }
+
+    // Ordinal-level adjacency for hot loops; indices run from 0 to the matching count
+
+    public int producerCount(int item) {
+        return producerOffsets[item + 1] - producerOffsets[item];
+    }
+
+    public int producer(int item, int i) {
+        return producers[producerOffsets[item] + i];
+    }
+
+    public int consumerCount(int item) {
+        return consumerOffsets[item + 1] - consumerOffsets[item];
+    }
+
+    public int consumer(int item, int i) {
+        return consumers[consumerOffsets[item] + i];
+    }
+
+    public int resourceConsumerCount(int resource) {
+        return resourceConsumerOffsets[resource + 1] - resourceConsumerOffsets[resource];
+    }
+
+    public int resourceConsumer(int resource, int i) {
+        return resourceConsumers[resourceConsumerOffsets[resource] + i];
+    }
+
+    public int outputCount(int recipe) {
+        return outputOffsets[recipe + 1] - outputOffsets[recipe];
+    }
+
+    public int outputItem(int recipe, int i) {
+        return outputItems[outputOffsets[recipe] + i];
+    }
+
+    public int outputQuantity(int recipe, int i) {
+        return outputQuantities[outputOffsets[recipe] + i];
+    }
+
+    /**
+     * Quantity of the item a single craft of the recipe yields, or 0 if it is not an output.
+     */
+    public int outputQuantityOf(int recipe, int item) {
+        int total = 0;
+        for (int e = outputOffsets[recipe]; e < outputOffsets[recipe + 1]; e++) {
+            if (outputItems[e] == item) total += outputQuantities[e];
+        }
+        return total;
+    }
+
+    public int inputCount(int recipe) {
+        return inputOffsets[recipe + 1] - inputOffsets[recipe];
+    }
+
+    /**
+     * Item ordinal of the i-th input, or -1 if that input is a resource type.
+     */
+    public int inputItem(int recipe, int i) {
+        return inputItems[inputOffsets[recipe] + i];
+    }
+
+    /**
+     * Resource type ordinal of the i-th input, or -1 if that input is an item.
+     */
+    public int inputResource(int recipe, int i) {
+        return inputResources[inputOffsets[recipe] + i];
+    }
+
+    public int inputQuantity(int recipe, int i) {
+        return inputQuantities[inputOffsets[recipe] + i];
+    }
+
+    public int benchTier(int recipe) {
+        return benchTiers[recipe];
+    }
+
+    public int resourceCount() {
+        return resourceIds.length;
+    }
+
+    /**
+     * Ordinal of a resource type used as a recipe input, or -1 if no recipe takes it.
+     */
+    public int resourceOrdinal(String resourceTypeId) {
+        Integer ordinal = resourceTypeId != null ? resourceOrdinals.get(resourceTypeId) : null;
+        return ordinal != null ? ordinal : -1;
+    }
+
+    public String getResourceId(int resource) {
+        return resourceIds[resource];
+    }
+
+    /**
+     * Inputs of a recipe as read at load time; read-only. Recipes outside this graph are read directly.
+     */
+    public List<MaterialQuantity> getInputs(CraftingRecipe recipe) {
+        if (recipe == null) return Collections.emptyList();
+        int ordinal = recipeOrdinal(recipe.getId());
+        if (ordinal >= 0 && recipes[ordinal] == recipe) {
+            return Collections.unmodifiableList(Arrays.asList(inputs[ordinal]));
+        }
+        return readInputs(recipe);
+    }
+
+    /**
+     * Recipe inputs with an item or resource type, whichever accessor this server build exposes.
+     */
+    public static List<MaterialQuantity> readInputs(CraftingRecipe recipe) {
+        List<MaterialQuantity> result = new ArrayList<>();
+        Object inputsObj = null;
+        for (MethodHandle accessor : INPUT_ACCESSORS) {
+            try {
+                inputsObj = accessor.invoke(recipe);
+                if (inputsObj != null) break;
+            } catch (Throwable ignored) {}
+        }
+
+        if (inputsObj instanceof MaterialQuantity) {
+            addInput(result, inputsObj);
+        } else if (inputsObj instanceof MaterialQuantity[]) {
+            for (MaterialQuantity input : (MaterialQuantity[]) inputsObj) addInput(result, input);
+        } else if (inputsObj instanceof Collection) {
+            for (Object input : (Collection<?>) inputsObj) addInput(result, input);
+        }
+        return result;
+    }
+
+    private static void addInput(List<MaterialQuantity> result, Object obj) {
+        if (obj instanceof MaterialQuantity) {
+            MaterialQuantity input = (MaterialQuantity) obj;
+            if (input.getItemId() != null || input.getResourceTypeId() != null) {
+                result.add(input);
+            }
+        }
+    }
+
+    // Highest tier any of the recipe's benches requires
+    private static int benchTier(CraftingRecipe recipe) {
+        int tier = 0;
+        try {
+            BenchRequirement[] benches = recipe.getBenchRequirement();
+            if (benches != null) {
+                for (BenchRequirement bench : benches) {
+                    if (bench != null) tier = Math.max(tier, bench.requiredTierLevel);
+                }
+            }
+        } catch (Exception ignored) {}
+        return tier;
+    }
+
+    private static MethodHandle[] resolveInputAccessors(String... names) {
+        List<MethodHandle> handles = new ArrayList<>();
+        MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+        for (String name : names) {
+            try {
+                handles.add(lookup.unreflect(CraftingRecipe.class.getMethod(name)));
+            } catch (Exception ignored) {}
+        }
+        return handles.toArray(new MethodHandle[0]);
+    }
+
+    private static int intern(String itemId, Map<String, Integer> ordinals, List<String> ids) {
+        Integer ordinal = ordinals.get(itemId);
+        if (ordinal == null) {
+            ordinal = ids.size();
+            ordinals.put(itemId, ordinal);
+            ids.add(itemId);
+        }
+        return ordinal;
+    }
+
+    /**
+     * Turn recipe -> item (or resource type) edges into item -> recipe edges; fills targetOffsets and returns the index array.
+     * Negative edges are skipped and a recipe is listed once per item.
+     */
+    private static int[] invert(int[] offsets, int[] edges, int[] targetOffsets) {
+        int[] last = new int[targetOffsets.length - 1];
+        Arrays.fill(last, -1);
+        int total = 0;
+        for (int recipe = 0; recipe + 1 < offsets.length; recipe++) {
+            for (int e = offsets[recipe]; e < offsets[recipe + 1]; e++) {
+                int item = edges[e];
+                if (item < 0 || last[item] == recipe) continue;
+                last[item] = recipe;
+                targetOffsets[item + 1]++;
+                total++;
+            }
+        }
+        for (int i = 1; i < targetOffsets.length; i++) targetOffsets[i] += targetOffsets[i - 1];
+
+        int[] result = new int[total];
+        int[] cursor = Arrays.copyOf(targetOffsets, targetOffsets.length - 1);
+        Arrays.fill(last, -1);
+        for (int recipe = 0; recipe + 1 < offsets.length; recipe++) {
+            for (int e = offsets[recipe]; e < offsets[recipe + 1]; e++) {
+                int item = edges[e];
+                if (item < 0 || last[item] == recipe) continue;
+                last[item] = recipe;
+                result[cursor[item]++] = recipe;
+            }
+        }
+        return result;
+    }
+
+    private final class RecipeIdSlice extends AbstractList<String> {
+        private final int[] edges;
+        private final int from;
+        private final int to;
+
+        RecipeIdSlice(int[] edges, int from, int to) {
+            this.edges = edges;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public String get(int index) {
+            if (index < 0 || index >= to - from) throw new IndexOutOfBoundsException(index);
+            return recipeIds[edges[from + index]];
+        }
+
+        @Override
+        public int size() {
+            return to - from;
+        }
+    }
+
+    private static final class Builder {
+        final String[] recipeIds;
+        final CraftingRecipe[] recipes;
+        final MaterialQuantity[][] inputs;
+        final Map<String, Integer> recipeOrdinals;
+        final Map<String, Integer> itemOrdinals = new HashMap<>();
+        final List<String> itemIds = new ArrayList<>();
+        final Map<String, Integer> resourceOrdinals = new HashMap<>();
+        final List<String> resourceIds = new ArrayList<>();
+        final int[] outputOffsets;
+        final int[] inputOffsets;
+        final int[] benchTiers;
+        final IntList outputItems = new IntList();
+        final IntList outputQuantities = new IntList();
+        final IntList inputItems = new IntList();
+        final IntList inputResources = new IntList();
+        final IntList inputQuantities = new IntList();
+
+        Builder(int count) {
+            recipeIds = new String[count];
+            recipes = new CraftingRecipe[count];
+            inputs = new MaterialQuantity[count][];
+            recipeOrdinals = new HashMap<>(count * 2);
+            outputOffsets = new int[count + 1];
+            inputOffsets = new int[count + 1];
+            benchTiers = new int[count];
+        }
+    }
+
+    private static final class IntList {
+        int[] values = new int[64];
+        int size;
+
+        void add(int value) {
+            if (size == values.length) values = Arrays.copyOf(values, size * 2);
+            values[size++] = value;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
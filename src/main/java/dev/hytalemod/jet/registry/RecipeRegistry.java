@@ -1,191 +1,97 @@
 package dev.hytalemod.jet.registry;
 
 import com.hypixel.hytale.server.core.asset.type.item.config.CraftingRecipe;
-import com.hypixel.hytale.server.core.inventory.MaterialQuantity;
 import dev.hytalemod.jet.JETPlugin;
+import dev.hytalemod.jet.calc.CraftingCalculator;
 
-import java.lang.reflect.Method;
 import java.util.*;
 import java.util.logging.Level;
 
 /**
  * Registry for crafting recipes with lookup by input/output items.
+ * Lookups go through an immutable RecipeGraph that is rebuilt and swapped on every load.
  */
 public class RecipeRegistry {
 
-    // All recipes by ID
-    private final Map<String, CraftingRecipe> recipes = new LinkedHashMap<>();
+    private volatile RecipeGraph graph = RecipeGraph.EMPTY;
+    private volatile CraftingCalculator calculator = CraftingCalculator.EMPTY;
 
-    // Item ID -> Recipe IDs that produce this item (how to craft)
-    private final Map<String, List<String>> craftingRecipes = new HashMap<>();
-
-    // Item ID -> Recipe IDs that use this item as input (uses)
-    private final Map<String, List<String>> usageRecipes = new HashMap<>();
-
-    // Cached method for getInput (may not exist in all versions)
-    private Method getInputMethod = null;
-
-    public void reload(Map<String, CraftingRecipe> newRecipes) {
-        recipes.clear();
-        craftingRecipes.clear();
-        usageRecipes.clear();
-
-        // Try to get getInput method via reflection
-        try {
-            getInputMethod = CraftingRecipe.class.getMethod("getInput");
-        } catch (Exception e) {
-            getInputMethod = null;
+    /**
+     * Merge newly loaded recipes into the current set and rebuild the graph.
+     * Recipe assets can arrive in several batches, so earlier batches are kept.
+     */
+    public synchronized void reload(Map<String, CraftingRecipe> newRecipes) {
+        RecipeGraph current = graph;
+        Map<String, CraftingRecipe> merged = new LinkedHashMap<>(current.recipeCount() + newRecipes.size());
+        for (int i = 0; i < current.recipeCount(); i++) {
+            merged.put(current.getRecipeId(i), current.getRecipe(i));
         }
-
-        int outputCount = 0;
-        int inputCount = 0;
-
-        for (Map.Entry<String, CraftingRecipe> entry : newRecipes.entrySet()) {
-            CraftingRecipe recipe = entry.getValue();
-            String recipeId = recipe.getId();
-
-            recipes.put(recipeId, recipe);
-
-            // Index by outputs (how to craft this item)
-            MaterialQuantity[] outputs = recipe.getOutputs();
-            if (outputs != null) {
-                for (MaterialQuantity output : outputs) {
-                    if (output != null && output.getItemId() != null) {
-                        craftingRecipes.computeIfAbsent(output.getItemId(), k -> new ArrayList<>()).add(recipeId);
-                        outputCount++;
-                    }
-                }
-            }
-
-            // Index by inputs (what uses this item)
-            int inputsBefore = usageRecipes.size();
-            indexInputs(recipe, recipeId);
-            if (usageRecipes.size() > inputsBefore) {
-                inputCount++;
+        for (CraftingRecipe recipe : newRecipes.values()) {
+            if (recipe != null && recipe.getId() != null) {
+                merged.put(recipe.getId(), recipe);
             }
         }
 
-        JETPlugin.getInstance().log(Level.INFO, "[JET] Indexed " + outputCount + " recipe outputs across " + craftingRecipes.size() + " items");
-        JETPlugin.getInstance().log(Level.INFO, "[JET] Indexed " + inputCount + " recipes with inputs across " + usageRecipes.size() + " items");
-    }
-
-    private void indexInputs(CraftingRecipe recipe, String recipeId) {
-        Object inputsObj = null;
-
-        // Try getInput method first
-        if (getInputMethod != null) {
-            try {
-                inputsObj = getInputMethod.invoke(recipe);
-                if (inputsObj != null) {
-                    if (inputsObj instanceof MaterialQuantity[] && ((MaterialQuantity[]) inputsObj).length == 0) {
-                        inputsObj = null;
-                    }
-                }
-            } catch (Exception e) {
-                // Method exists but failed, try alternatives
-            }
-        }
+        RecipeGraph built = RecipeGraph.build(merged);
+        graph = built;
+        calculator = new CraftingCalculator(built);
 
-        // If getInput failed or doesn't exist, try alternative methods
-        if (inputsObj == null) {
-            String[] methodNames = {"getInputs", "getIngredients", "getMaterials", "getRecipeInputs", "getRequiredMaterials"};
-
-            for (String methodName : methodNames) {
-                try {
-                    Method method = CraftingRecipe.class.getMethod(methodName);
-                    inputsObj = method.invoke(recipe);
-                    if (inputsObj != null) {
-                        break;
-                    }
-                } catch (Exception ignored) {
-                    // Try next method
-                }
-            }
-        }
+        JETPlugin.getInstance().log(Level.INFO, "[JET] Indexed " + built.recipeCount() + " recipes across " + built.itemCount() + " items");
+    }
 
-        if (inputsObj == null) {
-            return;
-        }
+    /**
+     * Current recipe graph; replaced wholesale on every reload.
+     */
+    public RecipeGraph getGraph() {
+        return graph;
+    }
 
-        // Process the inputs object (supports multiple types)
-        if (inputsObj instanceof MaterialQuantity) {
-            MaterialQuantity input = (MaterialQuantity) inputsObj;
-            if (input != null && input.getItemId() != null) {
-                usageRecipes.computeIfAbsent(input.getItemId(), k -> new ArrayList<>()).add(recipeId);
-            }
-        } else if (inputsObj instanceof List) {
-            List<?> inputs = (List<?>) inputsObj;
-            for (Object obj : inputs) {
-                if (obj instanceof MaterialQuantity) {
-                    MaterialQuantity input = (MaterialQuantity) obj;
-                    if (input != null && input.getItemId() != null) {
-                        usageRecipes.computeIfAbsent(input.getItemId(), k -> new ArrayList<>()).add(recipeId);
-                    }
-                }
-            }
-        } else if (inputsObj instanceof MaterialQuantity[]) {
-            MaterialQuantity[] inputs = (MaterialQuantity[]) inputsObj;
-            for (MaterialQuantity input : inputs) {
-                if (input != null && input.getItemId() != null) {
-                    usageRecipes.computeIfAbsent(input.getItemId(), k -> new ArrayList<>()).add(recipeId);
-                }
-            }
-        } else if (inputsObj instanceof Collection) {
-            Collection<?> inputs = (Collection<?>) inputsObj;
-            for (Object obj : inputs) {
-                if (obj instanceof MaterialQuantity) {
-                    MaterialQuantity input = (MaterialQuantity) obj;
-                    if (input != null && input.getItemId() != null) {
-                        usageRecipes.computeIfAbsent(input.getItemId(), k -> new ArrayList<>()).add(recipeId);
-                    }
-                }
-            }
-        }
+    /**
+     * Crafting calculator over the current graph; its memoized plans go away with the graph.
+     */
+    public CraftingCalculator getCalculator() {
+        return calculator;
     }
 
     public int size() {
-        return recipes.size();
+        return graph.recipeCount();
     }
 
     public CraftingRecipe get(String recipeId) {
-        return recipes.get(recipeId);
+        return graph.getRecipe(recipeId);
     }
 
     /**
      * Get recipes that produce the given item (how to craft)
      */
     public List<CraftingRecipe> getCraftingRecipes(String itemId) {
-        List<String> recipeIds = craftingRecipes.get(itemId);
-        if (recipeIds == null) return Collections.emptyList();
-
-        List<CraftingRecipe> result = new ArrayList<>();
-        for (String id : recipeIds) {
-            CraftingRecipe r = recipes.get(id);
-            if (r != null) result.add(r);
-        }
-        return result;
+        RecipeGraph current = graph;
+        return resolve(current, current.getCraftingRecipeIds(itemId));
     }
 
     /**
      * Get recipes that use the given item as input (uses)
      */
     public List<CraftingRecipe> getUsageRecipes(String itemId) {
-        List<String> recipeIds = usageRecipes.get(itemId);
-        if (recipeIds == null) return Collections.emptyList();
-
-        List<CraftingRecipe> result = new ArrayList<>();
-        for (String id : recipeIds) {
-            CraftingRecipe r = recipes.get(id);
-            if (r != null) result.add(r);
-        }
-        return result;
+        RecipeGraph current = graph;
+        return resolve(current, current.getUsageRecipeIds(itemId));
     }
 
     public boolean hasCraftingRecipes(String itemId) {
-        return craftingRecipes.containsKey(itemId) && !craftingRecipes.get(itemId).isEmpty();
+        return graph.isCraftable(itemId);
     }
 
     public boolean hasUsageRecipes(String itemId) {
-        return usageRecipes.containsKey(itemId) && !usageRecipes.get(itemId).isEmpty();
+        return !graph.getUsageRecipeIds(itemId).isEmpty();
+    }
+
+    private static List<CraftingRecipe> resolve(RecipeGraph graph, List<String> recipeIds) {
+        if (recipeIds.isEmpty()) return Collections.emptyList();
+        List<CraftingRecipe> result = new ArrayList<>(recipeIds.size());
+        for (String id : recipeIds) {
+            CraftingRecipe r = graph.getRecipe(id);
+            if (r != null) result.add(r);
+        }
+        return result;
     }
 }
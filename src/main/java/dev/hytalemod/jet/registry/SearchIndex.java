@@ -0,0 +1,560 @@
+package dev.hytalemod.jet.registry;
+
+import com.hypixel.hytale.server.core.asset.type.item.config.Item;
+import com.hypixel.hytale.server.core.asset.type.item.config.ItemQuality;
+import com.hypixel.hytale.server.core.modules.i18n.I18nModule;
+import dev.hytalemod.jet.model.ItemCategory;
+import dev.hytalemod.jet.util.CategoryUtil;
+import dev.hytalemod.jet.util.TokenIndex;
+import dev.hytalemod.jet.util.TrigramIndex;
+
+import java.text.CollationKey;
+import java.text.Collator;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+
+/**
+ * Immutable search snapshot of the item catalogue, rebuilt on every item load.
+ * Items are addressed by a dense ordinal; IDs, namespaces and translated names are
+ * stored pre-lowercased so filtering never touches Item objects or I18n in the loop.
+ * Translated names are resolved once per language, the first time that language is queried.
+ * Substring lookups go through trigram posting lists over the IDs and each language's names;
+ * typo-tolerant lookups go through a BK-tree over their word tokens, and #tag lookups
+ * through a sorted tag dictionary.
+ * Category, hidden-quality and pack membership are kept as bitmaps over the ordinals; callers
+ * must treat returned BitSets as read-only.
+ * Each sort mode is a precomputed permutation of ordinals per language, so sorting a result
+ * set is a single pass over the permutation.
+ */
+public final class SearchIndex {
+
+    public static final SearchIndex EMPTY = new SearchIndex(new HashMap<>());
+
+    private final String[] ids;
+    private final Item[] items;
+    private final String[] lowerIds;
+    private final String[] namespaces;
+    private final Map<String, Integer> ordinals;
+    private final int[] qualityValues;
+    private final TrigramIndex idTrigrams;
+    private final TokenIndex idTokens;
+    private final TagIndex tags;
+    private final BitSet allBits;
+    private final BitSet hiddenBits;
+    private final BitSet visibleBits;
+    private final Map<ItemCategory, BitSet> categoryBits = new EnumMap<>(ItemCategory.class);
+    private final Map<String, BitSet> packBits = new ConcurrentHashMap<>();
+    private volatile BitSet craftableBits;
+    private volatile BitSet nonCraftableBits;
+    private volatile long[] progressionKeys;   // Per ordinal: bench tier in the high half, crafting depth in the low
+    private final Map<String, LanguageNames> languages = new ConcurrentHashMap<>();
+
+    /**
+     * Browser sort modes, keyed by the #SortMode dropdown value.
+     */
+    public enum SortMode {
+        NAME("name_asc"),
+        QUALITY("quality"),
+        CRAFTABLE("craftable"),
+        PROGRESSION("progression"),
+        RELEVANCE("relevance");
+
+        private final String id;
+
+        SortMode(String id) {
+            this.id = id;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public static SortMode fromId(String id) {
+            for (SortMode mode : values()) {
+                if (mode.id.equals(id)) return mode;
+            }
+            return NAME;
+        }
+    }
+
+    /**
+     * Display names for one language, indexed by item ordinal, plus the sort permutations for that language.
+     */
+    public static final class LanguageNames {
+        final String[] names;
+        final String[] lowerNames;
+        final TrigramIndex trigrams;
+        final TokenIndex tokens;
+        final int[] byName;     // Ordinals in collation order
+        final int[] nameRank;   // Ordinal -> position in byName
+        volatile int[] byQuality;
+        volatile int[] byCraftable;
+        volatile BitSet byCraftableSource; // Craftable bitmap byCraftable was derived from
+        volatile int[] byProgression;
+        volatile long[] byProgressionSource;
+
+        LanguageNames(String[] names, String[] lowerNames, Locale locale) {
+            this.names = names;
+            this.lowerNames = lowerNames;
+            this.trigrams = new TrigramIndex(lowerNames);
+            this.tokens = new TokenIndex(lowerNames);
+
+            // Collation keys are computed once per name, so the sort compares bytes only
+            Collator collator = Collator.getInstance(locale);
+            collator.setStrength(Collator.SECONDARY);
+            CollationKey[] keys = new CollationKey[names.length];
+            Integer[] order = new Integer[names.length];
+            for (int i = 0; i < names.length; i++) {
+                keys[i] = collator.getCollationKey(names[i]);
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> {
+                int c = keys[a].compareTo(keys[b]);
+                return c != 0 ? c : lowerNames[a].compareTo(lowerNames[b]);
+            });
+
+            byName = new int[names.length];
+            nameRank = new int[names.length];
+            for (int i = 0; i < order.length; i++) {
+                byName[i] = order[i];
+                nameRank[order[i]] = i;
+            }
+        }
+
+        public String getName(int ordinal) {
+            return names[ordinal];
+        }
+
+        public String getLowerName(int ordinal) {
+            return lowerNames[ordinal];
+        }
+    }
+
+    public SearchIndex(Map<String, Item> source) {
+        int size = source.size();
+        ids = new String[size];
+        items = new Item[size];
+        lowerIds = new String[size];
+        namespaces = new String[size];
+        ordinals = new HashMap<>(size * 2);
+        qualityValues = new int[size];
+
+        allBits = new BitSet(size);
+        allBits.set(0, size);
+        hiddenBits = new BitSet(size);
+        for (ItemCategory category : ItemCategory.values()) {
+            categoryBits.put(category, category == ItemCategory.ALL ? allBits : new BitSet(size));
+        }
+
+        int ordinal = 0;
+        for (Map.Entry<String, Item> entry : source.entrySet()) {
+            String id = entry.getKey();
+            Item item = entry.getValue();
+            String lower = id.toLowerCase();
+            ids[ordinal] = id;
+            items[ordinal] = item;
+            lowerIds[ordinal] = lower;
+            namespaces[ordinal] = extractNamespace(lower);
+            ordinals.put(id, ordinal);
+
+            try {
+                for (ItemCategory category : CategoryUtil.getStaticCategories(item)) {
+                    categoryBits.get(category).set(ordinal);
+                }
+            } catch (Exception ignored) {}
+            if (isHiddenQuality(item)) {
+                hiddenBits.set(ordinal);
+            }
+            qualityValues[ordinal] = qualityValue(item);
+            ordinal++;
+        }
+        idTrigrams = new TrigramIndex(lowerIds);
+        idTokens = new TokenIndex(lowerIds);
+        tags = new TagIndex(items);
+        visibleBits = (BitSet) allBits.clone();
+        visibleBits.andNot(hiddenBits);
+        craftableBits = new BitSet(size);
+        nonCraftableBits = allBits;
+        progressionKeys = new long[size];
+    }
+
+    /**
+     * Recompute the craftable / non-craftable bitmaps; called whenever recipes (re)load.
+     */
+    public void updateCraftable(Predicate<String> isCraftable) {
+        BitSet craftable = new BitSet(ids.length);
+        for (int i = 0; i < ids.length; i++) {
+            if (isCraftable.test(ids[i])) craftable.set(i);
+        }
+        BitSet nonCraftable = (BitSet) allBits.clone();
+        nonCraftable.andNot(craftable);
+        craftableBits = craftable;
+        nonCraftableBits = nonCraftable;
+    }
+
+    /**
+     * Recompute the progression sort keys from per-item bench tier and crafting depth; called whenever recipes (re)load.
+     */
+    public void updateProgression(ToIntFunction<String> tier, ToIntFunction<String> depth) {
+        long[] keys = new long[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            keys[i] = ((long) tier.applyAsInt(ids[i]) << 32) | (depth.applyAsInt(ids[i]) & 0xffffffffL);
+        }
+        progressionKeys = keys;
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    /**
+     * Returns the ordinal for an item ID, or -1 if it is not in this snapshot.
+     */
+    public int ordinalOf(String itemId) {
+        if (itemId == null) return -1;
+        Integer ordinal = ordinals.get(itemId);
+        return ordinal != null ? ordinal : -1;
+    }
+
+    public String getId(int ordinal) {
+        return ids[ordinal];
+    }
+
+    public Item getItem(int ordinal) {
+        return items[ordinal];
+    }
+
+    public String getLowerId(int ordinal) {
+        return lowerIds[ordinal];
+    }
+
+    public String getNamespace(int ordinal) {
+        return namespaces[ordinal];
+    }
+
+    public BitSet getAllBits() {
+        return allBits;
+    }
+
+    /**
+     * Items whose quality is hidden from search or is the Developer quality.
+     */
+    public BitSet getHiddenBits() {
+        return hiddenBits;
+    }
+
+    public BitSet getVisibleBits() {
+        return visibleBits;
+    }
+
+    public BitSet getCategoryBits(ItemCategory category) {
+        if (category == ItemCategory.CRAFTABLE) return craftableBits;
+        if (category == ItemCategory.NON_CRAFTABLE) return nonCraftableBits;
+        return categoryBits.getOrDefault(category, allBits);
+    }
+
+    /**
+     * Items contributed by an asset pack, resolved once per pack per snapshot.
+     */
+    public BitSet getPackBits(String packName) {
+        if (packName == null || packName.isEmpty()) return allBits;
+        return packBits.computeIfAbsent(packName, name -> {
+            BitSet bits = new BitSet(ids.length);
+            try {
+                Set<String> keys = Item.getAssetMap().getKeysForPack(name);
+                if (keys == null) return allBits; // Unknown pack, same as no filter
+                for (String key : keys) {
+                    int ordinal = ordinalOf(key);
+                    if (ordinal >= 0) bits.set(ordinal);
+                }
+            } catch (Exception ignored) {}
+            return bits;
+        });
+    }
+
+    /**
+     * Returns the translated names for a language, resolving them all on first use.
+     */
+    public LanguageNames names(String language) {
+        String key = language != null ? language : "";
+        return languages.computeIfAbsent(key, k -> buildNames(language));
+    }
+
+    public String getDisplayName(int ordinal, String language) {
+        return names(language).getName(ordinal);
+    }
+
+    /**
+     * Cached display name for an item, falling back to a direct lookup for items outside the snapshot.
+     */
+    public String getDisplayName(Item item, String language) {
+        if (item == null) return "Unknown";
+        int ordinal = ordinalOf(item.getId());
+        if (ordinal >= 0 && items[ordinal] == item) {
+            return getDisplayName(ordinal, language);
+        }
+        return resolveDisplayName(item, language);
+    }
+
+    /**
+     * Sorted ordinals whose lowercased ID contains the term.
+     */
+    public int[] findIds(String lowerTerm) {
+        return idTrigrams.find(lowerTerm);
+    }
+
+    /**
+     * Sorted ordinals whose lowercased ID or translated name contains the term.
+     */
+    public int[] find(String lowerTerm, String language) {
+        return TrigramIndex.union(idTrigrams.find(lowerTerm), names(language).trigrams.find(lowerTerm));
+    }
+
+    public TagIndex getTagIndex() {
+        return tags;
+    }
+
+    /**
+     * Sorted ordinals matching a #tag: a resource type, item type or component tag containing it,
+     * or an ID containing it.
+     */
+    public int[] findTag(String lowerTag) {
+        return TrigramIndex.union(tags.find(lowerTag), idTrigrams.find(lowerTag));
+    }
+
+    public BitSet getTagBits(String lowerTag) {
+        BitSet bits = new BitSet(ids.length);
+        for (int ordinal : findTag(lowerTag)) bits.set(ordinal);
+        return bits;
+    }
+
+    /**
+     * Sorted ordinals whose ID or translated name has a word within the term's edit distance.
+     */
+    public int[] findFuzzy(String lowerTerm, String language) {
+        return TrigramIndex.union(idTokens.fuzzy(lowerTerm), names(language).tokens.fuzzy(lowerTerm));
+    }
+
+    /**
+     * Ordinals of every item in the given sort order for a language.
+     * Relevance has no query-independent order and falls back to name order here.
+     */
+    public int[] order(SortMode mode, String language) {
+        LanguageNames names = names(language);
+        switch (mode) {
+            case QUALITY: {
+                int[] order = names.byQuality;
+                if (order == null) {
+                    // Higher quality first, then by name
+                    order = sortedBy(names, (a, b) -> {
+                        int c = Integer.compare(qualityValues[b], qualityValues[a]);
+                        return c != 0 ? c : Integer.compare(names.nameRank[a], names.nameRank[b]);
+                    });
+                    names.byQuality = order;
+                }
+                return order;
+            }
+            case CRAFTABLE: {
+                BitSet craftable = craftableBits;
+                int[] order = names.byCraftable;
+                if (order == null || names.byCraftableSource != craftable) {
+                    // Stable partition of the name order: craftable first, then the rest
+                    order = new int[ids.length];
+                    int n = 0;
+                    for (int ordinal : names.byName) {
+                        if (craftable.get(ordinal)) order[n++] = ordinal;
+                    }
+                    for (int ordinal : names.byName) {
+                        if (!craftable.get(ordinal)) order[n++] = ordinal;
+                    }
+                    names.byCraftable = order;
+                    names.byCraftableSource = craftable;
+                }
+                return order;
+            }
+            case PROGRESSION: {
+                long[] keys = progressionKeys;
+                int[] order = names.byProgression;
+                if (order == null || names.byProgressionSource != keys) {
+                    // Earliest in the tech tree first: lower bench tier, then shallower chain, then by name
+                    order = sortedBy(names, (a, b) -> {
+                        int c = Long.compare(keys[a], keys[b]);
+                        return c != 0 ? c : Integer.compare(names.nameRank[a], names.nameRank[b]);
+                    });
+                    names.byProgression = order;
+                    names.byProgressionSource = keys;
+                }
+                return order;
+            }
+            case NAME:
+            default:
+                return names.byName;
+        }
+    }
+
+    /**
+     * Returns the matching ordinals in the given sort order by filtering the precomputed permutation.
+     *
+     * @param matches ordinals in ascending order
+     */
+    public int[] sort(int[] matches, SortMode mode, String language) {
+        if (matches.length <= 1) return matches;
+        BitSet set = new BitSet(ids.length);
+        for (int ordinal : matches) set.set(ordinal);
+
+        int[] result = new int[matches.length];
+        int n = 0;
+        for (int ordinal : order(mode, language)) {
+            if (set.get(ordinal)) {
+                result[n++] = ordinal;
+                if (n == result.length) break;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the matching ordinals ranked by how well they match the search terms:
+     * exact word, then word prefix, then substring, then typo-tolerant matches only.
+     * Ties keep name order. Ranks are bucketed, so this is still one pass over the name permutation.
+     *
+     * @param matches ordinals in ascending order
+     * @param terms lowercased positive search terms
+     */
+    public int[] sortByRelevance(int[] matches, List<String> terms, String language) {
+        if (terms == null || terms.isEmpty()) return sort(matches, SortMode.NAME, language);
+        if (matches.length <= 1) return matches;
+        LanguageNames names = names(language);
+
+        byte[] rank = new byte[ids.length];
+        Arrays.fill(rank, (byte) -1);
+        int[] bucketSizes = new int[RELEVANCE_LEVELS];
+        for (int ordinal : matches) {
+            int best = 0;
+            for (String term : terms) {
+                best = Math.max(best, relevance(lowerIds[ordinal], names.lowerNames[ordinal], term));
+            }
+            rank[ordinal] = (byte) best;
+            bucketSizes[best]++;
+        }
+
+        int[] offsets = new int[RELEVANCE_LEVELS];
+        for (int level = RELEVANCE_LEVELS - 2; level >= 0; level--) {
+            offsets[level] = offsets[level + 1] + bucketSizes[level + 1];
+        }
+        int[] result = new int[matches.length];
+        for (int ordinal : names.byName) {
+            if (rank[ordinal] >= 0) result[offsets[rank[ordinal]]++] = ordinal;
+        }
+        return result;
+    }
+
+    private static final int RELEVANCE_LEVELS = 4;
+
+    /**
+     * 3 = exact word, 2 = word prefix, 1 = substring, 0 = none (matched only fuzzily).
+     */
+    static int relevance(String lowerId, String lowerName, String term) {
+        return Math.max(relevanceIn(lowerName, term), relevanceIn(lowerId, term.replace(' ', '_')));
+    }
+
+    private static int relevanceIn(String text, String term) {
+        if (text == null || !text.contains(term)) return 0;
+        if (text.equals(term)) return 3;
+        int best = 1;
+        for (String word : TokenIndex.tokenize(text)) {
+            if (word.equals(term)) return 3;
+            if (word.startsWith(term)) best = 2;
+        }
+        return best;
+    }
+
+    private int[] sortedBy(LanguageNames names, Comparator<Integer> comparator) {
+        Integer[] boxed = new Integer[ids.length];
+        for (int i = 0; i < boxed.length; i++) boxed[i] = names.byName[i];
+        Arrays.sort(boxed, comparator);
+        int[] order = new int[boxed.length];
+        for (int i = 0; i < boxed.length; i++) order[i] = boxed[i];
+        return order;
+    }
+
+    private LanguageNames buildNames(String language) {
+        String[] names = new String[ids.length];
+        String[] lowerNames = new String[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            names[i] = resolveDisplayName(items[i], language);
+            lowerNames[i] = names[i].toLowerCase();
+        }
+        return new LanguageNames(names, lowerNames, toLocale(language));
+    }
+
+    private static Locale toLocale(String language) {
+        if (language == null || language.isEmpty()) return Locale.ROOT;
+        Locale locale = Locale.forLanguageTag(language);
+        return locale.getLanguage().isEmpty() ? Locale.ROOT : locale;
+    }
+
+    /**
+     * Translated item name, or a readable name derived from the ID when no translation exists.
+     */
+    public static String resolveDisplayName(Item item, String language) {
+        if (item == null) return "Unknown";
+        try {
+            String key = item.getTranslationKey();
+            if (key != null) {
+                String translated = I18nModule.get().getMessage(language, key);
+                if (translated != null && !translated.isEmpty()) {
+                    return translated;
+                }
+            }
+        } catch (Exception ignored) {}
+
+        String id = item.getId();
+        if (id == null) return "Unknown";
+        if (id.contains(":")) id = id.substring(id.indexOf(":") + 1);
+        int underscore = id.indexOf("_");
+        if (underscore > 0) id = id.substring(underscore + 1);
+        return id.replace("_", " ");
+    }
+
+    private static int qualityValue(Item item) {
+        try {
+            ItemQuality quality = ItemQuality.getAssetMap().getAsset(item.getQualityIndex());
+            return quality != null ? quality.getQualityValue() : 0;
+        } catch (Exception e) {
+            return 0;
+        }
+    }
+
+    private static boolean isHiddenQuality(Item item) {
+        try {
+            ItemQuality quality = ItemQuality.getAssetMap().getAsset(item.getQualityIndex());
+            if (quality != null) {
+                if (quality.isHiddenFromSearch()) {
+                    return true;
+                }
+                // Developer quality items are hidden as well
+                return "Developer".equals(quality.getId());
+            }
+        } catch (Exception ignored) {}
+        return false;
+    }
+
+    static String extractNamespace(String lowerId) {
+        int colonIndex = lowerId.indexOf(':');
+        if (colonIndex > 0) {
+            return lowerId.substring(0, colonIndex);
+        }
+        return "common";
+    }
+}
@@ -0,0 +1,162 @@
+package dev.hytalemod.jet.registry;
+
+import com.hypixel.hytale.server.core.asset.type.item.config.Item;
+import dev.hytalemod.jet.util.TokenIndex;
+import dev.hytalemod.jet.util.TrigramIndex;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Inverted index from lowercased tags to sorted item ordinals, built once per item load.
+ * Tags are resource type IDs, the item type, component names and the parts of the item ID.
+ * Keys are kept sorted so the tags starting with a partial tag are one range lookup.
+ */
+public final class TagIndex {
+
+    public static final TagIndex EMPTY = new TagIndex(new Item[0]);
+
+    private static final int[] NONE = new int[0];
+
+    // Resolved once; null when this server build lacks the accessor
+    private static final Method GET_RESOURCE_TYPES = resolve("getResourceTypes");
+    private static final Method GET_ITEM_TYPE = resolve("getItemType");
+    private static final Method GET_COMPONENTS = resolve("getComponents");
+
+    private final TreeMap<String, int[]> postings = new TreeMap<>();
+
+    public TagIndex(Item[] items) {
+        Map<String, int[]> building = new HashMap<>();
+        Map<String, Integer> sizes = new HashMap<>();
+        for (int ordinal = 0; ordinal < items.length; ordinal++) {
+            if (items[ordinal] == null) continue;
+            for (String tag : tagsOf(items[ordinal])) {
+                int[] list = building.get(tag);
+                int size = sizes.getOrDefault(tag, 0);
+                if (list == null) {
+                    list = new int[4];
+                    building.put(tag, list);
+                } else if (size == list.length) {
+                    list = Arrays.copyOf(list, size * 2);
+                    building.put(tag, list);
+                }
+                list[size] = ordinal;
+                sizes.put(tag, size + 1);
+            }
+        }
+        for (Map.Entry<String, int[]> entry : building.entrySet()) {
+            postings.put(entry.getKey(), Arrays.copyOf(entry.getValue(), sizes.get(entry.getKey())));
+        }
+    }
+
+    /**
+     * Ordinals carrying exactly this tag.
+     */
+    public int[] get(String tag) {
+        int[] list = tag != null ? postings.get(tag.toLowerCase()) : null;
+        return list != null ? list : NONE;
+    }
+
+    /**
+     * Ordinals carrying a tag that contains the given text, so "wood" also finds "softwood".
+     */
+    public int[] find(String tag) {
+        if (tag == null || tag.isEmpty()) return NONE;
+        String lower = tag.toLowerCase();
+
+        // Tags starting with the text are one range of the sorted keys
+        int[] result = NONE;
+        SortedMap<String, int[]> range = postings.subMap(lower, lower + Character.MAX_VALUE);
+        for (int[] list : range.values()) {
+            result = TrigramIndex.union(result, list);
+        }
+
+        // The tag dictionary is small, so a substring pass over the other keys is cheap
+        for (Map.Entry<String, int[]> entry : postings.entrySet()) {
+            String key = entry.getKey();
+            if (!key.startsWith(lower) && key.contains(lower)) {
+                result = TrigramIndex.union(result, entry.getValue());
+            }
+        }
+        return result;
+    }
+
+    public int size() {
+        return postings.size();
+    }
+
+    private static Set<String> tagsOf(Item item) {
+        Set<String> tags = new LinkedHashSet<>();
+
+        // ID parts, e.g. "Hytale:Iron_Sword" -> iron, sword
+        String id = item.getId();
+        if (id != null) {
+            for (String part : id.toLowerCase().split("[:_]")) {
+                if (part.length() > 2) tags.add(part);
+            }
+        }
+
+        try {
+            Object resourceTypes = GET_RESOURCE_TYPES != null ? GET_RESOURCE_TYPES.invoke(item) : null;
+            if (resourceTypes instanceof Object[]) {
+                for (Object resourceType : (Object[]) resourceTypes) {
+                    if (resourceType == null) continue;
+                    try {
+                        Object resourceId = resourceType.getClass().getMethod("getId").invoke(resourceType);
+                        if (resourceId != null) addTag(tags, resourceId.toString());
+                    } catch (Exception ignored) {}
+                    addTag(tags, resourceType.toString());
+                }
+            }
+        } catch (Exception ignored) {}
+
+        try {
+            Object itemType = GET_ITEM_TYPE != null ? GET_ITEM_TYPE.invoke(item) : null;
+            if (itemType != null) addTag(tags, itemType.toString());
+        } catch (Exception ignored) {}
+
+        try {
+            Object components = GET_COMPONENTS != null ? GET_COMPONENTS.invoke(item) : null;
+            if (components instanceof Map) {
+                for (Object key : ((Map<?, ?>) components).keySet()) {
+                    if (key != null) addTag(tags, key.toString());
+                }
+            } else if (components instanceof Collection) {
+                for (Object component : (Collection<?>) components) {
+                    if (component != null) addTag(tags, component.getClass().getSimpleName());
+                }
+            } else if (components != null) {
+                addTag(tags, components.toString());
+            }
+        } catch (Exception ignored) {}
+
+        return tags;
+    }
+
+    /**
+     * Index the whole value plus each of its words, so both "Ore_Iron" and "iron" hit.
+     */
+    private static void addTag(Set<String> tags, String value) {
+        String lower = value.toLowerCase();
+        if (lower.isEmpty()) return;
+        tags.add(lower);
+        for (String word : TokenIndex.tokenize(lower)) {
+            if (word.length() > 2) tags.add(word);
+        }
+    }
+
+    private static Method resolve(String name) {
+        try {
+            return Item.class.getMethod(name);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+}
@@ -2,31 +2,132 @@ package dev.hytalemod.jet.system;
 
 import com.hypixel.hytale.component.Ref;
 import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.protocol.ItemResourceType;
+import com.hypixel.hytale.server.core.HytaleServer;
+import com.hypixel.hytale.server.core.asset.type.item.config.Item;
 import com.hypixel.hytale.server.core.entity.entities.Player;
-import com.hypixel.hytale.server.core.inventory.Inventory;
+import com.hypixel.hytale.server.core.event.events.entity.LivingEntityInventoryChangeEvent;
 import com.hypixel.hytale.server.core.universe.PlayerRef;
+import com.hypixel.hytale.server.core.universe.world.World;
 import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+import dev.hytalemod.jet.JETPlugin;
+import dev.hytalemod.jet.calc.CraftingCalculator;
 import dev.hytalemod.jet.component.RecipeHudComponent;
+import dev.hytalemod.jet.gui.JETGui;
+import dev.hytalemod.jet.gui.PinnedGui;
 import dev.hytalemod.jet.hud.HudUtil;
+import dev.hytalemod.jet.registry.RecipeGraph;
+import dev.hytalemod.jet.util.Coalescer;
+import dev.hytalemod.jet.util.InventoryScanner;
 
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
- * System that tracks inventory changes and updates HUD when items change
+ * The one inventory change pipeline, feeding the recipe HUD and open browser or pinned pages.
+ *
+ * An event only marks the changed inventory section and queues a delivery for the player. A burst of
+ * changes becomes a single delivery once the inventory has been quiet for {@link #QUIET_MS}, or
+ * {@link #MAX_LATENCY_MS} after the burst started if it keeps going; deliveries that fall due together
+ * run as one task per world. The delivery rescans the marked sections once, and the count table's
+ * version stamp says whether any count actually changed. The HUD is only rebuilt when a changed item is
+ * in the player's watch set, and an open page decides for itself whether the change touches its view.
  */
 public class InventoryTrackingSystem {
 
-    private static final Map<UUID, Map<String, Integer>> lastInventoryState = new ConcurrentHashMap<>();
-    private static final long UPDATE_INTERVAL_MS = 500; // Update every 500ms max
-    private static final Map<UUID, Long> lastUpdateTime = new ConcurrentHashMap<>();
+    private static final long QUIET_MS = 100;
+    private static final long MAX_LATENCY_MS = 500;
+
+    private static final Coalescer<UUID> deliveries = new Coalescer<>(QUIET_MS, MAX_LATENCY_MS);
+    private static final Map<UUID, Target> targets = new ConcurrentHashMap<>();
+    private static final Map<UUID, Long> versions = new ConcurrentHashMap<>();
+    private static final Map<UUID, WatchSet> watchSets = new ConcurrentHashMap<>();
+    // When the earliest scheduled flush runs
+    private static final AtomicLong flushAt = new AtomicLong(Long.MAX_VALUE);
+
+    /**
+     * Where to deliver a player's pending change, and to whom.
+     */
+    private static final class Target {
+        final UUID uuid;
+        final Ref<EntityStore> ref;
+        final World world;
+        final boolean hud;
+        final boolean page;
+
+        Target(UUID uuid, Ref<EntityStore> ref, World world, boolean hud, boolean page) {
+            this.uuid = uuid;
+            this.ref = ref;
+            this.world = world;
+            this.hud = hud;
+            this.page = page;
+        }
+
+        Target merge(Target pending) {
+            return pending == null ? this : new Target(uuid, ref, world, hud || pending.hud, page || pending.page);
+        }
+    }
+
+    /**
+     * Item and resource type ordinals a player's HUD reads, for the pins it was built from.
+     */
+    private static final class WatchSet {
+        final List<Object> pins;
+        final RecipeGraph graph;
+        final BitSet items = new BitSet();
+        final BitSet resources = new BitSet();
+
+        WatchSet(List<Object> pins, RecipeHudComponent component, UUID uuid) {
+            this.pins = pins;
+            CraftingCalculator calculator = JETPlugin.getCraftingCalculator();
+            this.graph = calculator.getGraph();
+            if (component.compact) {
+                for (String key : JETPlugin.getInstance().getShoppingList(uuid, component.pinnedRecipes).getRawMaterials().keySet()) {
+                    calculator.watchKey(key, items, resources);
+                }
+            } else {
+                for (String recipeId : component.pinnedRecipes) {
+                    calculator.watch(recipeId, items, resources);
+                }
+            }
+        }
+
+        boolean touches(Set<String> changedItems) {
+            for (String itemId : changedItems) {
+                int item = graph.itemOrdinal(itemId);
+                if (item >= 0 && items.get(item)) return true;
+
+                Item asset = JETPlugin.ITEMS.get(itemId);
+                ItemResourceType[] resourceTypes = asset != null ? asset.getResourceTypes() : null;
+                if (resourceTypes == null) continue;
+                for (ItemResourceType type : resourceTypes) {
+                    int resource = type != null && type.id != null ? graph.resourceOrdinal(type.id) : -1;
+                    if (resource >= 0 && resources.get(resource)) return true;
+                }
+            }
+            return false;
+        }
+    }
 
     /**
-     * Check if player's inventory has changed and update HUD if needed
+     * Register this as the only inventory change listener in JETPlugin:
+     * getEventRegistry().registerGlobal(LivingEntityInventoryChangeEvent.class, InventoryTrackingSystem::onInventoryChange);
+     * and call {@link #clearPlayer} from its player disconnect handler.
      */
-    public static void checkInventoryChange(Ref<EntityStore> ref) {
+    public static void onInventoryChange(LivingEntityInventoryChangeEvent event) {
+        InventoryScanner.markChanged(event.getEntity(), event.getItemContainer());
+
+        Ref<EntityStore> ref = event.getEntity().getReference();
         if (ref == null || !ref.isValid()) {
             return;
         }
@@ -34,95 +135,136 @@ public class InventoryTrackingSystem {
         Store<EntityStore> store = ref.getStore();
         Player player = store.getComponent(ref, Player.getComponentType());
         PlayerRef playerRef = store.getComponent(ref, PlayerRef.getComponentType());
-
         if (player == null || playerRef == null) {
             return;
         }
 
-        // Check if player has pinned recipes
         RecipeHudComponent component = store.getComponent(ref, RecipeHudComponent.getComponentType());
-        if (component == null || component.pinnedRecipes.isEmpty()) {
+        boolean hudActive = component != null && component.isActive();
+        Object page = player.getPageManager().getCustomPage();
+        boolean pageOpen = page instanceof JETGui || page instanceof PinnedGui;
+        if (!hudActive && !pageOpen) {
             return;
         }
 
+        // No scan here: the delivery rescans once for the whole burst
         UUID uuid = playerRef.getUuid();
-
-        // Rate limit updates
+        World world = ((EntityStore) store.getExternalData()).getWorld();
+        targets.compute(uuid, (k, pending) -> new Target(uuid, ref, world, hudActive, pageOpen).merge(pending));
         long now = System.currentTimeMillis();
-        Long lastUpdate = lastUpdateTime.get(uuid);
-        if (lastUpdate != null && (now - lastUpdate) < UPDATE_INTERVAL_MS) {
-            return;
-        }
+        deliveries.offer(uuid, now);
+        schedule(now + QUIET_MS, now);
+    }
 
-        // Get current inventory state
-        Map<String, Integer> currentState = getInventoryState(player);
-        Map<String, Integer> previousState = lastInventoryState.get(uuid);
+    /**
+     * Whether the counts that changed since the last delivery touch anything the HUD shows.
+     * The watch set is rebuilt only when the pins, the compact mode or the recipe graph change.
+     */
+    private static boolean isRelevant(UUID uuid, Player player, RecipeHudComponent component) {
+        Set<String> changed = InventoryScanner.takeChangedItems(player);
+        if (changed == null) {
+            return true;
+        }
 
-        // Check if inventory changed
-        if (previousState != null && !hasInventoryChanged(previousState, currentState)) {
-            return;
+        List<Object> pins = new ArrayList<>();
+        pins.add(JETPlugin.getCraftingCalculator());
+        pins.add(component.compact);
+        pins.add(new ArrayList<>(component.pinnedRecipes));
+        pins.add(component.compact
+                ? new LinkedHashSet<>(JETPlugin.getInstance().getPinnedItemsStorage().getPinnedItems(uuid))
+                : Collections.emptySet());
+        WatchSet watchSet = watchSets.get(uuid);
+        if (watchSet == null || !watchSet.pins.equals(pins)) {
+            watchSet = new WatchSet(pins, component, uuid);
+            watchSets.put(uuid, watchSet);
         }
+        return watchSet.touches(changed);
+    }
 
-        // Update state and HUD
-        lastInventoryState.put(uuid, currentState);
-        lastUpdateTime.put(uuid, now);
-        HudUtil.updateHud(ref);
+    // Schedule a flush unless one already runs by then; an early flush just reschedules
+    private static void schedule(long dueAt, long now) {
+        long current;
+        do {
+            current = flushAt.get();
+            if (current <= dueAt) {
+                return;
+            }
+        } while (!flushAt.compareAndSet(current, dueAt));
+        HytaleServer.SCHEDULED_EXECUTOR.schedule(InventoryTrackingSystem::flush, Math.max(1, dueAt - now), TimeUnit.MILLISECONDS);
     }
 
-    /**
-     * Get simplified inventory state (item ID -> count)
-     */
-    private static Map<String, Integer> getInventoryState(Player player) {
-        Map<String, Integer> state = new HashMap<>();
-        Inventory inventory = player.getInventory();
+    private static void flush() {
+        flushAt.set(Long.MAX_VALUE);
+        long now = System.currentTimeMillis();
 
-        if (inventory == null) {
-            return state;
+        Map<World, List<Target>> batches = new HashMap<>();
+        for (UUID uuid : deliveries.drain(now)) {
+            Target target = targets.remove(uuid);
+            if (target != null) {
+                batches.computeIfAbsent(target.world, w -> new ArrayList<>()).add(target);
+            }
         }
-
-        try {
-            // Count all items across all inventory sections
-            inventory.getCombinedEverything().forEach((slot, itemStack) -> {
-                if (itemStack != null && itemStack.getItemId() != null) {
-                    String itemId = itemStack.getItemId();
-                    int quantity = itemStack.getQuantity();
-                    state.merge(itemId, quantity, Integer::sum);
-                }
-            });
-        } catch (Exception ignored) {
+        for (Map.Entry<World, List<Target>> batch : batches.entrySet()) {
+            try {
+                batch.getKey().execute(() -> {
+                    for (Target target : batch.getValue()) deliver(target);
+                });
+            } catch (Exception ignored) {}
         }
 
-        return state;
+        long next = deliveries.nextDue();
+        if (next != Long.MAX_VALUE) {
+            schedule(next, now);
+        }
     }
 
-    /**
-     * Check if inventory has meaningfully changed
-     */
-    private static boolean hasInventoryChanged(Map<String, Integer> previous, Map<String, Integer> current) {
-        if (previous.size() != current.size()) {
-            return true;
+    private static void deliver(Target target) {
+        Ref<EntityStore> ref = target.ref;
+        if (!ref.isValid()) {
+            return;
         }
 
-        for (Map.Entry<String, Integer> entry : current.entrySet()) {
-            Integer prevCount = previous.get(entry.getKey());
-            if (prevCount == null || !prevCount.equals(entry.getValue())) {
-                return true;
-            }
+        Store<EntityStore> store = ref.getStore();
+        Player player = store.getComponent(ref, Player.getComponentType());
+        if (player == null) {
+            return;
+        }
+
+        // One rescan per delivery; an unchanged version stamp means no count changed
+        long version = InventoryScanner.version(player);
+        Long previous = versions.put(target.uuid, version);
+        if (previous != null && previous == version) {
+            return;
         }
 
-        return false;
+        if (target.hud) {
+            RecipeHudComponent component = store.getComponent(ref, RecipeHudComponent.getComponentType());
+            if (component != null && component.isActive() && isRelevant(target.uuid, player, component)) {
+                HudUtil.updateHud(ref);
+            }
+        }
+        if (target.page) {
+            Object page = player.getPageManager().getCustomPage();
+            if (page instanceof JETGui) {
+                ((JETGui) page).onInventoryChanged(ref, store);
+            } else if (page instanceof PinnedGui) {
+                ((PinnedGui) page).onInventoryChanged(ref, store);
+            }
+        }
     }
 
     /**
-     * Clear tracking for a player (on disconnect)
+     * Clear tracking for a player; JETPlugin calls this on disconnect
      */
     public static void clearPlayer(UUID uuid) {
-        lastInventoryState.remove(uuid);
-        lastUpdateTime.remove(uuid);
+        deliveries.cancel(uuid);
+        targets.remove(uuid);
+        versions.remove(uuid);
+        watchSets.remove(uuid);
     }
 
     /**
-     * Force update for a player
+     * Force update for a player: rescan the whole inventory and rebuild the HUD now
      */
     public static void forceUpdate(Ref<EntityStore> ref) {
         if (ref == null || !ref.isValid()) {
@@ -130,11 +272,13 @@ public class InventoryTrackingSystem {
         }
 
         Store<EntityStore> store = ref.getStore();
+        Player player = store.getComponent(ref, Player.getComponentType());
         PlayerRef playerRef = store.getComponent(ref, PlayerRef.getComponentType());
 
-        if (playerRef != null) {
-            lastUpdateTime.remove(playerRef.getUuid());
-            checkInventoryChange(ref);
+        if (player != null && playerRef != null) {
+            InventoryScanner.markChanged(player, null);
+            versions.remove(playerRef.getUuid());
+            HudUtil.updateHud(ref);
         }
     }
-}
\ No newline at end of file
+}
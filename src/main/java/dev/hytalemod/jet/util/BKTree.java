@@ -0,0 +1,102 @@
+package dev.hytalemod.jet.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Burkhard-Keller tree over a string dictionary for bounded edit-distance lookups.
+ * A query only descends into children whose edge distance lies within the triangle
+ * inequality bound, so it visits a small part of the dictionary.
+ */
+public final class BKTree {
+
+    private static final class Node {
+        final String word;
+        Map<Integer, Node> children;
+
+        Node(String word) {
+            this.word = word;
+        }
+    }
+
+    private Node root;
+    private int size;
+
+    public void add(String word) {
+        if (word == null || word.isEmpty()) return;
+        if (root == null) {
+            root = new Node(word);
+            size++;
+            return;
+        }
+        Node node = root;
+        while (true) {
+            int distance = distance(word, node.word, Integer.MAX_VALUE);
+            if (distance == 0) return;
+            if (node.children == null) node.children = new HashMap<>();
+            Node child = node.children.get(distance);
+            if (child == null) {
+                node.children.put(distance, new Node(word));
+                size++;
+                return;
+            }
+            node = child;
+        }
+    }
+
+    /**
+     * All words within maxDistance edits of the query.
+     */
+    public List<String> search(String query, int maxDistance) {
+        List<String> result = new ArrayList<>();
+        if (root == null || query == null) return result;
+
+        List<Node> stack = new ArrayList<>();
+        stack.add(root);
+        while (!stack.isEmpty()) {
+            Node node = stack.remove(stack.size() - 1);
+            int distance = distance(query, node.word, Integer.MAX_VALUE);
+            if (distance <= maxDistance) result.add(node.word);
+            if (node.children == null) continue;
+            for (Map.Entry<Integer, Node> child : node.children.entrySet()) {
+                int edge = child.getKey();
+                if (edge >= distance - maxDistance && edge <= distance + maxDistance) {
+                    stack.add(child.getValue());
+                }
+            }
+        }
+        return result;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Levenshtein distance, giving up early once every cell in a row exceeds limit.
+     */
+    public static int distance(String a, String b, int limit) {
+        if (a.equals(b)) return 0;
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) previous[j] = j;
+
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            char ca = a.charAt(i - 1);
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = ca == b.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > limit) return rowMin;
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length()];
+    }
+}
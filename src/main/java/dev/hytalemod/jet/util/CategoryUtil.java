@@ -3,9 +3,10 @@ package dev.hytalemod.jet.util;
 import com.hypixel.hytale.server.core.asset.type.item.config.Item;
 import dev.hytalemod.jet.JETPlugin;
 import dev.hytalemod.jet.model.ItemCategory;
+import dev.hytalemod.jet.registry.SearchIndex;
 
-import java.util.HashSet;
-import java.util.List;
+import java.lang.reflect.Method;
+import java.util.EnumSet;
 import java.util.Set;
 
 /**
@@ -13,18 +14,29 @@ import java.util.Set;
  */
 public class CategoryUtil {
 
+    // Resolved once; null when this server build has no Item.getBlock()
+    private static final Method GET_BLOCK_METHOD = resolveGetBlockMethod();
+
     public static Set<ItemCategory> getCategories(Item item) {
-        Set<ItemCategory> categories = new HashSet<>();
-        String itemId = item.getId().toLowerCase();
+        Set<ItemCategory> categories = getStaticCategories(item);
 
         // Check if item is craftable
-        List<String> recipes = JETPlugin.ITEM_TO_RECIPES.get(item.getId());
-        if (recipes != null && !recipes.isEmpty()) {
+        if (JETPlugin.getRecipeGraph().isCraftable(item.getId())) {
             categories.add(ItemCategory.CRAFTABLE);
         } else {
             categories.add(ItemCategory.NON_CRAFTABLE);
         }
 
+        return categories;
+    }
+
+    /**
+     * Categories derived from the item alone, i.e. everything except CRAFTABLE / NON_CRAFTABLE.
+     */
+    public static Set<ItemCategory> getStaticCategories(Item item) {
+        Set<ItemCategory> categories = EnumSet.noneOf(ItemCategory.class);
+        String itemId = item.getId().toLowerCase();
+
         // Detect tools
         if (itemId.contains("pickaxe") || itemId.contains("axe") || itemId.contains("shovel") ||
             itemId.contains("hoe") || itemId.contains("shears") || itemId.contains("fishing")) {
@@ -59,11 +71,9 @@ public class CategoryUtil {
         }
 
         // Try to check if item has a block via reflection
-        if (!isBlock) {
+        if (!isBlock && GET_BLOCK_METHOD != null) {
             try {
-                java.lang.reflect.Method getBlockMethod = Item.class.getMethod("getBlock");
-                Object block = getBlockMethod.invoke(item);
-                if (block != null) {
+                if (GET_BLOCK_METHOD.invoke(item) != null) {
                     isBlock = true;
                 }
             } catch (Exception ignored) {}
@@ -76,13 +86,30 @@ public class CategoryUtil {
         return categories;
     }
 
+    /**
+     * Checks category membership via the search index bitmaps, falling back to a direct scan
+     * for items that are not part of the current index.
+     */
     public static boolean matchesCategory(Item item, ItemCategory category) {
         if (category == ItemCategory.ALL) {
             return true;
         }
+        SearchIndex index = JETPlugin.getInstance().getItemRegistry().getSearchIndex();
+        int ordinal = index.ordinalOf(item.getId());
+        if (ordinal >= 0 && index.getItem(ordinal) == item) {
+            return index.getCategoryBits(category).get(ordinal);
+        }
         return getCategories(item).contains(category);
     }
 
+    private static Method resolveGetBlockMethod() {
+        try {
+            return Item.class.getMethod("getBlock");
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
     /**
      * Get the primary category for an item (for sorting purposes)
      * Priority: WEAPON > TOOL > ARMOR > CONSUMABLE > BLOCK > CRAFTABLE > NON_CRAFTABLE
@@ -0,0 +1,77 @@
+package dev.hytalemod.jet.util;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Trailing-edge coalescing of repeated signals per key: a burst becomes one action once the key has
+ * been quiet for a while, or once the burst has run for the maximum latency, whichever comes first.
+ * Time is passed in by the caller, in milliseconds.
+ */
+public final class Coalescer<K> {
+
+    private final long quietMs;
+    private final long maxLatencyMs;
+    // Key -> {first signal, last signal} of the pending burst
+    private final Map<K, long[]> pending = new LinkedHashMap<>();
+
+    public Coalescer(long quietMs, long maxLatencyMs) {
+        this.quietMs = quietMs;
+        this.maxLatencyMs = maxLatencyMs;
+    }
+
+    /**
+     * Record a signal for the key, starting a burst or extending the pending one.
+     */
+    public synchronized void offer(K key, long now) {
+        long[] burst = pending.get(key);
+        if (burst == null) {
+            pending.put(key, new long[]{now, now});
+        } else {
+            burst[1] = now;
+        }
+    }
+
+    /**
+     * Drop the key's pending burst, if any.
+     */
+    public synchronized void cancel(K key) {
+        pending.remove(key);
+    }
+
+    /**
+     * Remove and return every key whose burst is due.
+     */
+    public synchronized List<K> drain(long now) {
+        List<K> due = new ArrayList<>();
+        Iterator<Map.Entry<K, long[]>> it = pending.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<K, long[]> entry = it.next();
+            if (dueAt(entry.getValue()) <= now) {
+                due.add(entry.getKey());
+                it.remove();
+            }
+        }
+        return due;
+    }
+
+    /**
+     * When the earliest pending burst is due, or {@link Long#MAX_VALUE} when nothing is pending.
+     */
+    public synchronized long nextDue() {
+        long next = Long.MAX_VALUE;
+        for (long[] burst : pending.values()) next = Math.min(next, dueAt(burst));
+        return next;
+    }
+
+    public synchronized boolean isEmpty() {
+        return pending.isEmpty();
+    }
+
+    private long dueAt(long[] burst) {
+        return Math.min(burst[1] + quietMs, burst[0] + maxLatencyMs);
+    }
+}
@@ -0,0 +1,191 @@
+package dev.hytalemod.jet.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Running item counts for one inventory, kept per section so a change rescans only the section it touched.
+ *
+ * Items and resource types are interned to ordinals on first sight; totals live in an int array indexed
+ * by item ordinal. Replacing a section subtracts its previous counts and adds the new ones. A snapshot is
+ * built from the totals at most once per change and shared by every reader until the next one.
+ * Every change to a total bumps {@link #getVersion}, so "did anything change" is one comparison.
+ * Items whose totals changed are collected until {@link #takeChanged} hands them to the one consumer
+ * that asks. {@link #markStale} has every section rescanned now and then, which catches changes no event
+ * reported without touching the version when the counts were right.
+ * Not thread-safe; callers synchronize on the instance.
+ */
+public final class InventoryCounts {
+
+    private static final int[] NONE = new int[0];
+
+    private final Map<String, Integer> itemOrdinals = new HashMap<>();
+    private final List<String> itemIds = new ArrayList<>();
+    private final Map<String, Set<Integer>> resourceMembers = new LinkedHashMap<>();
+    private int[] totals = new int[16];
+
+    private final int[][] sectionItems;
+    private final int[][] sectionQuantities;
+    private final boolean[] dirty;
+    private InventorySnapshot snapshot;
+    private final BitSet changed = new BitSet();
+    private boolean allChanged;
+    private long version;
+    private long verifiedAt = Long.MIN_VALUE;  // when every section was last marked for a rescan
+
+    public InventoryCounts(int sections) {
+        this.sectionItems = new int[sections][];
+        this.sectionQuantities = new int[sections][];
+        this.dirty = new boolean[sections];
+        reset();
+    }
+
+    public int getSectionCount() {
+        return dirty.length;
+    }
+
+    /**
+     * Bumped whenever a total changes; equal versions mean equal counts.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    public boolean isDirty(int section) {
+        return dirty[section];
+    }
+
+    /**
+     * The section changed and must be rescanned; the snapshot and version stay until the rescan finds a difference.
+     */
+    public void markDirty(int section) {
+        dirty[section] = true;
+    }
+
+    /**
+     * Mark every section for a rescan once the last full rescan was requested at least maxAgeMs ago.
+     * Time is passed in by the caller, in milliseconds.
+     * @return whether the sections were marked
+     */
+    public boolean markStale(long now, long maxAgeMs) {
+        if (verifiedAt != Long.MIN_VALUE && now - verifiedAt < maxAgeMs) return false;
+        verifiedAt = now;
+        Arrays.fill(dirty, true);
+        return true;
+    }
+
+    /**
+     * Forget every count; all sections must be rescanned.
+     */
+    public void reset() {
+        Arrays.fill(totals, 0);
+        Arrays.fill(sectionItems, NONE);
+        Arrays.fill(sectionQuantities, NONE);
+        Arrays.fill(dirty, true);
+        snapshot = null;
+        allChanged = true;
+        version++;
+    }
+
+    /**
+     * Replace a section's counts with a fresh scan of it.
+     *
+     * @param items           item ID -> quantity held in the section
+     * @param resourceMembers resource type ID -> item IDs in the section carrying it
+     */
+    public void setSection(int section, Map<String, Integer> items, Map<String, Set<String>> resourceMembers) {
+        int[] previousItems = sectionItems[section];
+        int[] previousQuantities = sectionQuantities[section];
+        boolean any = false;
+        Map<Integer, Integer> previous = new HashMap<>();
+        for (int i = 0; i < previousItems.length; i++) {
+            totals[previousItems[i]] -= previousQuantities[i];
+            previous.put(previousItems[i], previousQuantities[i]);
+        }
+
+        int[] ordinals = new int[items.size()];
+        int[] quantities = new int[items.size()];
+        int next = 0;
+        for (Map.Entry<String, Integer> entry : items.entrySet()) {
+            int item = intern(entry.getKey());
+            ordinals[next] = item;
+            quantities[next++] = entry.getValue();
+            totals[item] += entry.getValue();
+            Integer before = previous.remove(item);
+            if (before == null || before.intValue() != entry.getValue()) {
+                changed.set(item);
+                any = true;
+            }
+        }
+        for (int item : previous.keySet()) {
+            changed.set(item);
+            any = true;
+        }
+        for (Map.Entry<String, Set<String>> entry : resourceMembers.entrySet()) {
+            Set<Integer> members = this.resourceMembers.computeIfAbsent(entry.getKey(), k -> new LinkedHashSet<>());
+            for (String itemId : entry.getValue()) members.add(intern(itemId));
+        }
+        sectionItems[section] = ordinals;
+        sectionQuantities[section] = quantities;
+        dirty[section] = false;
+        if (any) {
+            snapshot = null;
+            version++;
+        }
+    }
+
+    /**
+     * Counts as of the last scan of every section; the same instance until something changes.
+     */
+    public InventorySnapshot snapshot() {
+        if (snapshot != null) return snapshot;
+        Map<String, Integer> items = new HashMap<>();
+        for (int item = 0; item < itemIds.size(); item++) {
+            if (totals[item] > 0) items.put(itemIds.get(item), totals[item]);
+        }
+        Map<String, List<String>> pools = new HashMap<>();
+        for (Map.Entry<String, Set<Integer>> entry : resourceMembers.entrySet()) {
+            List<String> held = new ArrayList<>();
+            for (int item : entry.getValue()) {
+                if (totals[item] > 0) held.add(itemIds.get(item));
+            }
+            if (!held.isEmpty()) pools.put(entry.getKey(), held);
+        }
+        snapshot = new InventorySnapshot(items, pools);
+        return snapshot;
+    }
+
+    /**
+     * Item IDs whose totals changed since the last call, or null when unknown because the table was reset.
+     */
+    public Set<String> takeChanged() {
+        if (allChanged) {
+            allChanged = false;
+            changed.clear();
+            return null;
+        }
+        Set<String> items = new LinkedHashSet<>();
+        for (int item = changed.nextSetBit(0); item >= 0; item = changed.nextSetBit(item + 1)) {
+            items.add(itemIds.get(item));
+        }
+        changed.clear();
+        return items;
+    }
+
+    private int intern(String itemId) {
+        Integer ordinal = itemOrdinals.get(itemId);
+        if (ordinal != null) return ordinal;
+        int item = itemIds.size();
+        itemOrdinals.put(itemId, item);
+        itemIds.add(itemId);
+        if (item == totals.length) totals = Arrays.copyOf(totals, item * 2);
+        return item;
+    }
+}
@@ -3,18 +3,31 @@ package dev.hytalemod.jet.util;
 import com.hypixel.hytale.server.core.entity.LivingEntity;
 import com.hypixel.hytale.server.core.inventory.Inventory;
 import com.hypixel.hytale.server.core.inventory.container.ItemContainer;
-import com.hypixel.hytale.server.core.inventory.ItemStack;
 import com.hypixel.hytale.server.core.asset.type.item.config.Item;
 import com.hypixel.hytale.protocol.ItemResourceType;
 
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
 
 /**
  * Utility class for scanning player inventory and counting items.
+ *
+ * Counts come from one table per inventory ({@link InventoryCounts}); an inventory change marks the
+ * changed section with {@link #markChanged} and the next read rescans only that section. Every
+ * {@link #VERIFY_MS} a read rescans all sections, so a change that raised no event is picked up.
  */
 public class InventoryScanner {
 
+    private static final int SECTIONS = 6;
+    private static final long VERIFY_MS = 30_000;
+
+    private static final Map<Inventory, InventoryCounts> tables = Collections.synchronizedMap(new WeakHashMap<>());
+
     /**
      * Counts the total quantity of a specific item across all inventory sections.
      *
@@ -26,180 +39,183 @@ public class InventoryScanner {
         if (entity == null || itemId == null) {
             return 0;
         }
-
-        try {
-            Inventory inventory = entity.getInventory();
-            if (inventory == null) {
-                return 0;
-            }
-
-            int totalCount = 0;
-
-            // Scan all inventory sections
-            totalCount += countInContainer(inventory.getHotbar(), itemId);
-            totalCount += countInContainer(inventory.getStorage(), itemId);
-            totalCount += countInContainer(inventory.getBackpack(), itemId);
-            totalCount += countInContainer(inventory.getArmor(), itemId);
-            totalCount += countInContainer(inventory.getUtility(), itemId);
-            totalCount += countInContainer(inventory.getTools(), itemId);
-
-            return totalCount;
-        } catch (Exception e) {
-            // Silently fail if inventory access isn't available
-            return 0;
-        }
+        return snapshot(entity).count(itemId);
     }
 
     /**
-     * Counts items in a specific container section.
+     * Gets a map of all items in the player's inventory with their quantities.
      *
-     * @param container The item container to scan
-     * @param itemId The item ID to count
-     * @return The quantity found in this container
+     * @param entity The living entity (player) to scan
+     * @return A map of item ID to total quantity
      */
-    private static int countInContainer(ItemContainer container, String itemId) {
-        if (container == null || itemId == null) {
-            return 0;
-        }
-
-        try {
-            return container.countItemStacks(itemStack -> {
-                if (itemStack == null || itemStack.getItemId() == null) {
-                    return false;
-                }
-                return itemStack.getItemId().equals(itemId);
-            });
-        } catch (Exception e) {
-            return 0;
-        }
+    public static Map<String, Integer> getAllItemCounts(LivingEntity entity) {
+        return new HashMap<>(snapshot(entity).getItems());
     }
 
     /**
-     * Gets a map of all items in the player's inventory with their quantities.
+     * Item counts and resource type pools across every inventory section, shared by every reader
+     * until the inventory changes.
      *
      * @param entity The living entity (player) to scan
-     * @return A map of item ID to total quantity
+     * @return A snapshot to evaluate against, empty if the inventory is unavailable
      */
-    public static Map<String, Integer> getAllItemCounts(LivingEntity entity) {
-        Map<String, Integer> itemCounts = new HashMap<>();
-
+    public static InventorySnapshot snapshot(LivingEntity entity) {
         if (entity == null) {
-            return itemCounts;
+            return InventorySnapshot.EMPTY;
         }
 
         try {
             Inventory inventory = entity.getInventory();
             if (inventory == null) {
-                return itemCounts;
+                return InventorySnapshot.EMPTY;
             }
 
-            // Scan all sections
-            collectFromContainer(inventory.getHotbar(), itemCounts);
-            collectFromContainer(inventory.getStorage(), itemCounts);
-            collectFromContainer(inventory.getBackpack(), itemCounts);
-            collectFromContainer(inventory.getArmor(), itemCounts);
-            collectFromContainer(inventory.getUtility(), itemCounts);
-            collectFromContainer(inventory.getTools(), itemCounts);
-
-            return itemCounts;
+            InventoryCounts counts = refresh(inventory);
+            synchronized (counts) {
+                return counts.snapshot();
+            }
         } catch (Exception e) {
-            return itemCounts;
+            return InventorySnapshot.EMPTY;
         }
     }
 
     /**
-     * Collects all items from a container into a map.
-     *
-     * @param container The container to scan
-     * @param itemCounts The map to add items to
+     * Version stamp of the inventory's counts: unchanged until some count changes, -1 if unavailable.
      */
-    private static void collectFromContainer(ItemContainer container, Map<String, Integer> itemCounts) {
-        if (container == null) {
-            return;
+    public static long version(LivingEntity entity) {
+        try {
+            Inventory inventory = entity != null ? entity.getInventory() : null;
+            if (inventory == null) {
+                return -1;
+            }
+
+            InventoryCounts counts = refresh(inventory);
+            synchronized (counts) {
+                return counts.getVersion();
+            }
+        } catch (Exception e) {
+            return -1;
         }
+    }
 
+    /**
+     * Item IDs whose held counts changed since the previous call for this inventory, or null when unknown.
+     */
+    public static Set<String> takeChangedItems(LivingEntity entity) {
         try {
-            container.forEach((slot, itemStack) -> {
-                if (itemStack != null && itemStack.getItemId() != null) {
-                    String itemId = itemStack.getItemId();
-                    int quantity = itemStack.getQuantity();
-                    itemCounts.merge(itemId, quantity, Integer::sum);
-                }
-            });
-        } catch (Exception ignored) {
-            // Silently fail if forEach isn't available
+            Inventory inventory = entity != null ? entity.getInventory() : null;
+            if (inventory == null) {
+                return null;
+            }
+
+            InventoryCounts counts = refresh(inventory);
+            synchronized (counts) {
+                return counts.takeChanged();
+            }
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private static InventoryCounts refresh(Inventory inventory) {
+        // A new inventory gets a new table, so the first read after joining scans everything
+        InventoryCounts counts = tables.computeIfAbsent(inventory, k -> new InventoryCounts(SECTIONS));
+        synchronized (counts) {
+            counts.markStale(System.currentTimeMillis(), VERIFY_MS);
+            ItemContainer[] sections = sections(inventory);
+            for (int section = 0; section < sections.length; section++) {
+                if (counts.isDirty(section)) scan(counts, section, sections[section]);
+            }
         }
+        return counts;
     }
 
     /**
-     * Counts items matching a resource type across all inventory sections.
-     *
-     * @param entity The living entity (player) to scan
-     * @param resourceTypeId The resource type ID to match (e.g., "hytale:meat")
-     * @return The total quantity of items with this resource type
+     * Mark the section holding the container for a rescan; an unknown container marks every section.
+     * Inventories nobody has read yet are skipped, their first read scans everything anyway.
      */
-    public static int countResourceTypeInInventory(LivingEntity entity, String resourceTypeId) {
-        if (entity == null || resourceTypeId == null) {
-            return 0;
+    public static void markChanged(LivingEntity entity, ItemContainer container) {
+        if (entity == null) {
+            return;
         }
 
         try {
             Inventory inventory = entity.getInventory();
-            if (inventory == null) {
-                return 0;
+            InventoryCounts counts = inventory != null ? tables.get(inventory) : null;
+            if (counts == null) {
+                return;
             }
 
-            int totalCount = 0;
+            ItemContainer[] sections = sections(inventory);
+            synchronized (counts) {
+                boolean found = false;
+                for (int section = 0; section < sections.length; section++) {
+                    if (container != null && sections[section] == container) {
+                        counts.markDirty(section);
+                        found = true;
+                    }
+                }
+                if (!found) {
+                    for (int section = 0; section < sections.length; section++) counts.markDirty(section);
+                }
+            }
+        } catch (Exception ignored) {}
+    }
 
-            // Scan all inventory sections
-            totalCount += countResourceTypeInContainer(inventory.getHotbar(), resourceTypeId);
-            totalCount += countResourceTypeInContainer(inventory.getStorage(), resourceTypeId);
-            totalCount += countResourceTypeInContainer(inventory.getBackpack(), resourceTypeId);
-            totalCount += countResourceTypeInContainer(inventory.getArmor(), resourceTypeId);
-            totalCount += countResourceTypeInContainer(inventory.getUtility(), resourceTypeId);
-            totalCount += countResourceTypeInContainer(inventory.getTools(), resourceTypeId);
+    private static ItemContainer[] sections(Inventory inventory) {
+        return new ItemContainer[]{
+                inventory.getHotbar(), inventory.getStorage(), inventory.getBackpack(),
+                inventory.getArmor(), inventory.getUtility(), inventory.getTools()
+        };
+    }
 
-            return totalCount;
-        } catch (Exception e) {
-            return 0;
-        }
+    private static void scan(InventoryCounts counts, int section, ItemContainer container) {
+        Map<String, Integer> itemCounts = new HashMap<>();
+        Map<String, Set<String>> resourceMembers = new LinkedHashMap<>();
+        collectSnapshot(container, itemCounts, resourceMembers);
+        counts.setSection(section, itemCounts, resourceMembers);
     }
 
-    /**
-     * Counts items matching a resource type in a specific container.
-     *
-     * @param container The item container to scan
-     * @param resourceTypeId The resource type ID to match
-     * @return The quantity found in this container
-     */
-    private static int countResourceTypeInContainer(ItemContainer container, String resourceTypeId) {
-        if (container == null || resourceTypeId == null) {
-            return 0;
+    private static void collectSnapshot(ItemContainer container, Map<String, Integer> itemCounts,
+                                        Map<String, Set<String>> resourceMembers) {
+        if (container == null) {
+            return;
         }
 
         try {
-            return container.countItemStacks(itemStack -> {
-                if (itemStack == null) {
-                    return false;
+            container.forEach((slot, itemStack) -> {
+                if (itemStack == null || itemStack.getItemId() == null) {
+                    return;
                 }
+                String itemId = itemStack.getItemId();
+                itemCounts.merge(itemId, itemStack.getQuantity(), Integer::sum);
 
                 Item item = itemStack.getItem();
-                if (item == null) {
-                    return false;
-                }
-
-                ItemResourceType[] resourceTypes = item.getResourceTypes();
+                ItemResourceType[] resourceTypes = item != null ? item.getResourceTypes() : null;
                 if (resourceTypes != null) {
                     for (ItemResourceType type : resourceTypes) {
-                        if (type.id != null && type.id.equals(resourceTypeId)) {
-                            return true;
+                        if (type != null && type.id != null) {
+                            resourceMembers.computeIfAbsent(type.id, k -> new LinkedHashSet<>()).add(itemId);
                         }
                     }
                 }
-                return false;
             });
-        } catch (Exception e) {
+        } catch (Exception ignored) {
+            // Silently fail if forEach isn't available
+        }
+    }
+
+    /**
+     * Counts items matching a resource type across all inventory sections.
+     *
+     * @param entity The living entity (player) to scan
+     * @param resourceTypeId The resource type ID to match (e.g., "hytale:meat")
+     * @return The total quantity of items with this resource type
+     */
+    public static int countResourceTypeInInventory(LivingEntity entity, String resourceTypeId) {
+        if (entity == null || resourceTypeId == null) {
             return 0;
         }
+        return snapshot(entity).resourceCount(resourceTypeId);
     }
 }
@@ -0,0 +1,122 @@
+package dev.hytalemod.jet.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Item counts and resource type pools of one inventory at one moment, captured once per evaluation.
+ * A resource pool is the list of held items carrying that resource type, so taking from a pool
+ * spends those items and they cannot be counted twice.
+ */
+public final class InventorySnapshot {
+
+    public static final InventorySnapshot EMPTY = new InventorySnapshot(Collections.emptyMap(), Collections.emptyMap());
+
+    private final Map<String, Integer> items;
+    private final Map<String, List<String>> resourceMembers;
+
+    /**
+     * @param items           item ID -> held quantity
+     * @param resourceMembers resource type ID -> held item IDs carrying it, in the order they are spent
+     */
+    public InventorySnapshot(Map<String, Integer> items, Map<String, List<String>> resourceMembers) {
+        this.items = Collections.unmodifiableMap(new HashMap<>(items));
+        Map<String, List<String>> members = new HashMap<>();
+        for (Map.Entry<String, List<String>> entry : resourceMembers.entrySet()) {
+            members.put(entry.getKey(), Collections.unmodifiableList(new ArrayList<>(entry.getValue())));
+        }
+        this.resourceMembers = Collections.unmodifiableMap(members);
+    }
+
+    public int count(String itemId) {
+        Integer count = itemId != null ? items.get(itemId) : null;
+        return count != null ? count : 0;
+    }
+
+    /**
+     * Total held quantity of items carrying the resource type.
+     */
+    public int resourceCount(String resourceTypeId) {
+        List<String> members = resourceTypeId != null ? resourceMembers.get(resourceTypeId) : null;
+        if (members == null) return 0;
+        int total = 0;
+        for (String member : members) total += count(member);
+        return total;
+    }
+
+    /**
+     * Item ID -> held quantity; read-only.
+     */
+    public Map<String, Integer> getItems() {
+        return items;
+    }
+
+    /**
+     * Resource type IDs carried by at least one held item; read-only.
+     */
+    public Set<String> getResourceTypes() {
+        return resourceMembers.keySet();
+    }
+
+    /**
+     * Held item IDs carrying the resource type, in the order they are spent; read-only.
+     */
+    public List<String> resourceMembers(String resourceTypeId) {
+        List<String> members = resourceTypeId != null ? resourceMembers.get(resourceTypeId) : null;
+        return members != null ? members : Collections.emptyList();
+    }
+
+    /**
+     * A private working copy to spend holdings from while planning.
+     */
+    public Ledger ledger() {
+        return new Ledger();
+    }
+
+    /**
+     * Mutable copy of the snapshot's counts. Every take returns how much was actually available.
+     */
+    public final class Ledger {
+        private final Map<String, Long> remaining = new LinkedHashMap<>();
+
+        private Ledger() {}
+
+        public long available(String itemId) {
+            Long left = remaining.get(itemId);
+            return left != null ? left : count(itemId);
+        }
+
+        public long availableResource(String resourceTypeId) {
+            List<String> members = resourceMembers.get(resourceTypeId);
+            if (members == null) return 0;
+            long total = 0;
+            for (String member : members) total += available(member);
+            return total;
+        }
+
+        public long take(String itemId, long amount) {
+            long taken = Math.min(available(itemId), Math.max(0, amount));
+            if (taken > 0) remaining.put(itemId, available(itemId) - taken);
+            return taken;
+        }
+
+        /**
+         * Spend items carrying the resource type, in pool order, until the amount is covered.
+         */
+        public long takeResource(String resourceTypeId, long amount) {
+            List<String> members = resourceMembers.get(resourceTypeId);
+            if (members == null) return 0;
+            long taken = 0;
+            for (String member : members) {
+                if (taken >= amount) break;
+                taken += take(member, amount - taken);
+            }
+            return taken;
+        }
+    }
+}
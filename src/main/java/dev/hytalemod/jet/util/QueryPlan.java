@@ -0,0 +1,198 @@
+package dev.hytalemod.jet.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.IntPredicate;
+
+/**
+ * Compiled item filter: a list of predicates over item ordinals, ordered so the cheapest
+ * and most selective stages reject items first. Built once per query/filter change.
+ * Membership filters backed by bitmaps are AND'ed word-wise into a single mask up front.
+ */
+public final class QueryPlan {
+
+    /**
+     * Filter stages with their relative per-item evaluation cost.
+     */
+    public enum Stage {
+        PACK(1),
+        CATEGORY(2),
+        HIDDEN(2),
+        NAMESPACE(3),
+        TEXT(8),
+        TAG(20),
+        INVENTORY(40);
+
+        private final int cost;
+
+        Stage(int cost) {
+            this.cost = cost;
+        }
+
+        public int getCost() {
+            return cost;
+        }
+    }
+
+    private static final QueryPlan EMPTY = new QueryPlan(new Stage[0], new IntPredicate[0], null, 0);
+
+    private final Stage[] stages;
+    private final IntPredicate[] predicates;
+    private final BitSet mask;
+    private final int maskedStages;
+
+    private QueryPlan(Stage[] stages, IntPredicate[] predicates, BitSet mask, int maskedStages) {
+        this.stages = stages;
+        this.predicates = predicates;
+        this.mask = mask;
+        this.maskedStages = maskedStages;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static QueryPlan empty() {
+        return EMPTY;
+    }
+
+    public boolean test(int ordinal) {
+        if (mask != null && !mask.get(ordinal)) return false;
+        for (IntPredicate predicate : predicates) {
+            if (!predicate.test(ordinal)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Run the plan and return the matching ordinals in ascending order.
+     *
+     * @param candidates sorted ordinals to consider, or null for every ordinal below universe
+     * @param universe   number of ordinals in the catalogue
+     */
+    public int[] run(int[] candidates, int universe) {
+        int[] result = new int[16];
+        int n = 0;
+        if (candidates != null) {
+            for (int ordinal : candidates) {
+                if (test(ordinal)) {
+                    if (n == result.length) result = Arrays.copyOf(result, n * 2);
+                    result[n++] = ordinal;
+                }
+            }
+        } else if (mask != null) {
+            // Only visit ordinals that survived the bitmap filters
+            for (int ordinal = mask.nextSetBit(0); ordinal >= 0 && ordinal < universe; ordinal = mask.nextSetBit(ordinal + 1)) {
+                if (passesPredicates(ordinal)) {
+                    if (n == result.length) result = Arrays.copyOf(result, n * 2);
+                    result[n++] = ordinal;
+                }
+            }
+        } else {
+            for (int ordinal = 0; ordinal < universe; ordinal++) {
+                if (passesPredicates(ordinal)) {
+                    if (n == result.length) result = Arrays.copyOf(result, n * 2);
+                    result[n++] = ordinal;
+                }
+            }
+        }
+        return Arrays.copyOf(result, n);
+    }
+
+    private boolean passesPredicates(int ordinal) {
+        for (IntPredicate predicate : predicates) {
+            if (!predicate.test(ordinal)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Combined bitmap of all membership stages, or null when none were added.
+     */
+    public BitSet getMask() {
+        return mask;
+    }
+
+    public boolean isEmpty() {
+        return stages.length == 0;
+    }
+
+    /**
+     * Number of leading stages answered by the bitmap mask.
+     */
+    public int getMaskedStageCount() {
+        return maskedStages;
+    }
+
+    /**
+     * Stages in evaluation order; bitmap-backed stages come first.
+     */
+    public List<Stage> getStages() {
+        List<Stage> result = new ArrayList<>(stages.length);
+        Collections.addAll(result, stages);
+        return result;
+    }
+
+    public static final class Builder {
+        private final List<Stage> stages = new ArrayList<>();
+        private final List<IntPredicate> predicates = new ArrayList<>();
+        private final List<Double> ranks = new ArrayList<>();
+        private final List<Stage> maskStages = new ArrayList<>();
+        private BitSet mask;
+
+        private Builder() {}
+
+        /**
+         * Adds a membership stage answered by a bitmap over ordinals. The bitmap is not modified.
+         */
+        public Builder restrict(Stage stage, BitSet bits) {
+            if (mask == null) {
+                mask = (BitSet) bits.clone();
+            } else {
+                mask.and(bits);
+            }
+            maskStages.add(stage);
+            return this;
+        }
+
+        public Builder add(Stage stage, IntPredicate predicate) {
+            return add(stage, 0.5, predicate);
+        }
+
+        /**
+         * Adds a stage with an estimated fraction of items it lets through (0..1).
+         * Stages run in ascending cost / (1 - passRate), the classic predicate ordering rank.
+         */
+        public Builder add(Stage stage, double passRate, IntPredicate predicate) {
+            double rejectRate = Math.max(0.01, 1.0 - Math.min(1.0, Math.max(0.0, passRate)));
+            stages.add(stage);
+            predicates.add(predicate);
+            ranks.add(stage.getCost() / rejectRate);
+            return this;
+        }
+
+        public QueryPlan build() {
+            if (stages.isEmpty() && mask == null) return EMPTY;
+            Integer[] order = new Integer[stages.size()];
+            for (int i = 0; i < order.length; i++) order[i] = i;
+            Arrays.sort(order, (a, b) -> {
+                int c = Double.compare(ranks.get(a), ranks.get(b));
+                return c != 0 ? c : Integer.compare(stages.get(a).ordinal(), stages.get(b).ordinal());
+            });
+
+            Stage[] sortedStages = new Stage[maskStages.size() + order.length];
+            IntPredicate[] sortedPredicates = new IntPredicate[order.length];
+            for (int i = 0; i < maskStages.size(); i++) {
+                sortedStages[i] = maskStages.get(i);
+            }
+            for (int i = 0; i < order.length; i++) {
+                sortedStages[maskStages.size() + i] = stages.get(order[i]);
+                sortedPredicates[i] = predicates.get(order[i]);
+            }
+            return new QueryPlan(sortedStages, sortedPredicates, mask, maskStages.size());
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package dev.hytalemod.jet.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Bounded LRU cache with single-flight loading: concurrent misses for the same key wait for
+ * one computation instead of each computing the value.
+ */
+public final class ResultCache<K, V> {
+
+    private final int capacity;
+    private final Map<K, CompletableFuture<V>> entries;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+
+    public ResultCache(int capacity) {
+        this.capacity = capacity;
+        this.entries = new LinkedHashMap<K, CompletableFuture<V>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, CompletableFuture<V>> eldest) {
+                return size() > ResultCache.this.capacity;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached value for the key, computing it at most once across concurrent callers.
+     */
+    public V get(K key, Supplier<V> loader) {
+        CompletableFuture<V> future;
+        boolean owner = false;
+        synchronized (entries) {
+            future = entries.get(key);
+            if (future == null) {
+                future = new CompletableFuture<>();
+                entries.put(key, future);
+                owner = true;
+                misses.incrementAndGet();
+            } else if (future.isDone()) {
+                hits.incrementAndGet();
+            } else {
+                coalesced.incrementAndGet();
+            }
+        }
+
+        if (owner) {
+            try {
+                future.complete(loader.get());
+            } catch (RuntimeException e) {
+                // Don't cache failures; the next caller retries
+                synchronized (entries) {
+                    entries.remove(key, future);
+                }
+                future.completeExceptionally(e);
+                throw e;
+            }
+        }
+
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            throw e;
+        }
+    }
+
+    /**
+     * Replace the value for the key, e.g. after finding the cached one stale.
+     */
+    public void put(K key, V value) {
+        synchronized (entries) {
+            entries.put(key, CompletableFuture.completedFuture(value));
+        }
+    }
+
+    public void invalidateAll() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Callers that waited on another caller's in-flight computation.
+     */
+    public long getCoalesced() {
+        return coalesced.get();
+    }
+}
@@ -5,38 +5,57 @@ package dev.hytalemod.jet.util;
 import com.hypixel.hytale.server.core.asset.type.item.config.Item;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.function.Function;
+import java.util.function.IntFunction;
 
 /**
- * Advanced search query parser supporting namespace filtering and exclusion
+ * Advanced search query parser supporting namespace filtering and exclusion.
+ *
+ * Syntax:
+ *   iron sword        - either term matches (OR, the default between bare terms)
+ *   iron AND ingot    - both terms match
+ *   iron OR copper    - explicit OR
+ *   NOT ore, -ore     - term must not match; negations always restrict their whole group
+ *   "iron ingot"      - quoted phrase, matched as one term
+ *   ~mithril          - typo-tolerant term, resolved through the token index
+ *   (a OR b) AND c    - grouping
+ *   @mymod            - namespace filter
+ *
+ * The query is parsed once into an expression tree; compile() turns it into QueryPlan stages.
+ * Fuzzy terms must be bound to ordinal sets with bindFuzzy() before they narrow anything;
+ * unbound they fall back to substring matching.
  */
 public class SearchParser {
 
     private String namespaceFilter = null;
     private final List<String> includeTerms = new ArrayList<>();
     private final List<String> excludeTerms = new ArrayList<>();
+    private Node root;
+    private int negationDepth;
+    private boolean usesOperators; // AND / OR / NOT / parentheses present
+    private final String query;
+    private final boolean forceFuzzy;
+    private final List<FuzzyTerm> fuzzyTerms = new ArrayList<>();
 
     public SearchParser(String query) {
+        this(query, false);
+    }
+
+    /**
+     * @param forceFuzzy treat every term as typo-tolerant, as if prefixed with ~
+     */
+    public SearchParser(String query, boolean forceFuzzy) {
+        this.query = query;
+        this.forceFuzzy = forceFuzzy;
         if (query == null || query.trim().isEmpty()) {
             return;
         }
 
-        String[] tokens = query.toLowerCase().trim().split("\\s+");
-
-        for (String token : tokens) {
-            if (token.startsWith("@")) {
-                // Namespace filter: @common, @mod_name
-                namespaceFilter = token.substring(1);
-            } else if (token.startsWith("-")) {
-                // Exclusion: -text
-                if (token.length() > 1) {
-                    excludeTerms.add(token.substring(1));
-                }
-            } else {
-                // Regular search term
-                includeTerms.add(token);
-            }
-        }
+        List<Token> tokens = tokenize(query.trim());
+        int[] pos = {0};
+        root = parseGroup(tokens, pos, true);
     }
 
     public boolean matches(Item item) {
@@ -45,53 +64,74 @@ public class SearchParser {
 
     public boolean matches(Item item, String translatedName) {
         String itemId = item.getId().toLowerCase();
-
-        // Check namespace filter (@mod_name)
-        if (namespaceFilter != null) {
-            String namespace = extractNamespace(itemId);
-            if (!namespace.contains(namespaceFilter)) {
-                return false;
-            }
-        }
-
-        // Prepare translated name for searching if provided
         String searchableTranslation = null;
         if (translatedName != null && !translatedName.isEmpty()) {
             searchableTranslation = translatedName.toLowerCase();
         }
+        return matches(itemId, extractNamespace(itemId), searchableTranslation);
+    }
 
-        // Check exclusions (-term) - if any exclusion term matches, item is filtered out
-        for (String excludeTerm : excludeTerms) {
-            if (itemId.contains(excludeTerm)) {
-                return false;
-            }
-            // Also check translated name
-            if (searchableTranslation != null && searchableTranslation.contains(excludeTerm)) {
-                return false;
-            }
+    /**
+     * Match against pre-lowercased fields, e.g. from a SearchIndex. lowerName may be null.
+     */
+    public boolean matches(String lowerId, String namespace, String lowerName) {
+        // Check namespace filter (@mod_name)
+        if (namespaceFilter != null && !namespace.contains(namespaceFilter)) {
+            return false;
         }
+        return matchesText(lowerId, lowerName);
+    }
 
-        // Check include terms - any term must match (OR logic, not AND)
-        if (!includeTerms.isEmpty()) {
-            boolean anyMatch = false;
-            for (String includeTerm : includeTerms) {
-                // Check item ID
-                if (itemId.contains(includeTerm)) {
-                    anyMatch = true;
-                    break;
-                }
-                // Also check translated name
-                if (searchableTranslation != null && searchableTranslation.contains(includeTerm)) {
-                    anyMatch = true;
-                    break;
-                }
-            }
-            if (!anyMatch) {
-                return false;
-            }
+    /**
+     * Evaluate only the text expression (terms, phrases and boolean operators).
+     */
+    public boolean matchesText(String lowerId, String lowerName) {
+        return root == null || root.matches(-1, lowerId, lowerName);
+    }
+
+    /**
+     * Resolve every fuzzy term to the sorted ordinals of items with a token within its edit distance.
+     */
+    public void bindFuzzy(Function<String, int[]> fuzzyFind) {
+        for (FuzzyTerm term : fuzzyTerms) {
+            term.bind(fuzzyFind);
         }
+    }
 
-        return true;
+    public boolean hasFuzzyTerms() {
+        return !fuzzyTerms.isEmpty();
+    }
+
+    /**
+     * The same query with every term made typo-tolerant, or null if that would change nothing.
+     */
+    public SearchParser fuzzyVariant() {
+        if (forceFuzzy || includeTerms.isEmpty()) return null;
+        return new SearchParser(query, true);
+    }
+
+    /**
+     * Sorted candidate ordinals for the text expression, using the given substring lookup
+     * for each term. Returns null when the expression cannot narrow the catalogue (e.g. a bare NOT).
+     */
+    public int[] candidates(Function<String, int[]> find) {
+        return root == null ? null : root.candidates(find);
+    }
+
+    /**
+     * Add this query's namespace and text stages to a plan over item ordinals.
+     */
+    public QueryPlan.Builder compile(QueryPlan.Builder plan, IntFunction<String> lowerIds,
+                                     IntFunction<String> namespaces, IntFunction<String> lowerNames) {
+        if (namespaceFilter != null) {
+            String ns = namespaceFilter;
+            plan.add(QueryPlan.Stage.NAMESPACE, 0.2, ordinal -> namespaces.apply(ordinal).contains(ns));
+        }
+        if (root != null) {
+            Node expression = root;
+            plan.add(QueryPlan.Stage.TEXT, 0.1, ordinal -> expression.matches(ordinal, lowerIds.apply(ordinal), lowerNames.apply(ordinal)));
+        }
+        return plan;
     }
 
     private String extractNamespace(String itemId) {
@@ -103,18 +143,425 @@ public class SearchParser {
     }
 
     public boolean isEmpty() {
-        return namespaceFilter == null && includeTerms.isEmpty() && excludeTerms.isEmpty();
+        return namespaceFilter == null && root == null;
     }
 
     public String getNamespaceFilter() {
         return namespaceFilter;
     }
 
+    /**
+     * All positive terms and phrases, in query order.
+     */
     public List<String> getIncludeTerms() {
         return includeTerms;
     }
 
+    /**
+     * Negated terms that restrict the whole query (top-level -term / NOT term).
+     */
     public List<String> getExcludeTerms() {
         return excludeTerms;
     }
+
+    /**
+     * True when everything this query matches is guaranteed to be matched by the previous query,
+     * so the previous results can be refined instead of rescanning the catalogue.
+     * Only plain term/exclusion/namespace queries are compared; operator queries never qualify.
+     */
+    public boolean narrows(SearchParser previous) {
+        if (previous == null || previous.isEmpty()) return !hasFuzzyTerms();
+        if (usesOperators || previous.usesOperators) return false;
+        if (hasFuzzyTerms() || previous.hasFuzzyTerms()) return false;
+
+        // Namespace: a longer filter containing the old one is stricter
+        if (previous.namespaceFilter != null
+                && (namespaceFilter == null || !namespaceFilter.contains(previous.namespaceFilter))) {
+            return false;
+        }
+
+        // Exclusions: every old exclusion must still be present verbatim ("-woo" -> "-wood" widens)
+        if (!excludeTerms.containsAll(previous.excludeTerms)) return false;
+
+        // Includes are OR'ed: each new term must extend some old term
+        if (previous.includeTerms.isEmpty()) return true;
+        if (includeTerms.isEmpty()) return false;
+        for (String term : includeTerms) {
+            boolean extendsOld = false;
+            for (String old : previous.includeTerms) {
+                if (term.contains(old)) {
+                    extendsOld = true;
+                    break;
+                }
+            }
+            if (!extendsOld) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Printable form of the parsed expression, for tests and debugging.
+     */
+    public String describe() {
+        return root == null ? "" : root.toString();
+    }
+
+    // ==================== Tokenizer ====================
+
+    private enum TokenType { TERM, FUZZY, AND, OR, NOT, OPEN, CLOSE }
+
+    private static final class Token {
+        final TokenType type;
+        final String text;
+        final boolean negated;
+
+        Token(TokenType type, String text, boolean negated) {
+            this.type = type;
+            this.text = text;
+            this.negated = negated;
+        }
+    }
+
+    private List<Token> tokenize(String query) {
+        List<Token> tokens = new ArrayList<>();
+        int i = 0;
+        int length = query.length();
+        while (i < length) {
+            char c = query.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+                continue;
+            }
+            if (c == '(' || c == ')') {
+                usesOperators = true;
+                tokens.add(new Token(c == '(' ? TokenType.OPEN : TokenType.CLOSE, null, false));
+                i++;
+                continue;
+            }
+
+            boolean negated = false;
+            if (c == '-') {
+                negated = true;
+                i++;
+                if (i >= length || Character.isWhitespace(query.charAt(i))) {
+                    continue; // Bare "-" is ignored
+                }
+                c = query.charAt(i);
+            }
+
+            if (c == '"') {
+                int end = query.indexOf('"', i + 1);
+                if (end < 0) end = length;
+                String phrase = query.substring(i + 1, end).toLowerCase().trim().replaceAll("\\s+", " ");
+                i = Math.min(length, end + 1);
+                if (!phrase.isEmpty()) {
+                    tokens.add(new Token(forceFuzzy && !negated ? TokenType.FUZZY : TokenType.TERM, phrase, negated));
+                }
+                continue;
+            }
+
+            int start = i;
+            while (i < length && !Character.isWhitespace(query.charAt(i))
+                    && query.charAt(i) != '(' && query.charAt(i) != ')') {
+                i++;
+            }
+            String word = query.substring(start, i);
+
+            if (!negated && word.equals("AND")) {
+                usesOperators = true;
+                tokens.add(new Token(TokenType.AND, null, false));
+            } else if (!negated && word.equals("OR")) {
+                usesOperators = true;
+                tokens.add(new Token(TokenType.OR, null, false));
+            } else if (!negated && word.equals("NOT")) {
+                usesOperators = true;
+                tokens.add(new Token(TokenType.NOT, null, false));
+            } else if (!negated && word.startsWith("@")) {
+                // Namespace filter: @common, @mod_name
+                namespaceFilter = word.substring(1).toLowerCase();
+            } else if (word.startsWith("~")) {
+                // Typo-tolerant term: ~mithrill
+                if (word.length() > 1) {
+                    tokens.add(new Token(TokenType.FUZZY, word.substring(1).toLowerCase(), negated));
+                }
+            } else {
+                tokens.add(new Token(forceFuzzy && !negated ? TokenType.FUZZY : TokenType.TERM, word.toLowerCase(), negated));
+            }
+        }
+        return tokens;
+    }
+
+    // ==================== Parser ====================
+
+    /**
+     * group := and ([OR] and)*   - adjacency means OR, negated operands restrict the group
+     */
+    private Node parseGroup(List<Token> tokens, int[] pos, boolean topLevel) {
+        List<Node> positive = new ArrayList<>();
+        List<Node> negative = new ArrayList<>();
+
+        while (pos[0] < tokens.size()) {
+            TokenType type = tokens.get(pos[0]).type;
+            if (type == TokenType.CLOSE) {
+                if (!topLevel) break;
+                pos[0]++; // Stray ")" is ignored
+                continue;
+            }
+            if (type == TokenType.OR || type == TokenType.AND) {
+                pos[0]++; // Dangling operator
+                continue;
+            }
+
+            Node operand = parseAnd(tokens, pos, topLevel);
+            if (operand instanceof Not) {
+                negative.add(operand);
+                if (topLevel && ((Not) operand).child instanceof Term) {
+                    excludeTerms.add(((Term) ((Not) operand).child).text);
+                }
+            } else if (operand != null) {
+                positive.add(operand);
+            }
+
+            if (pos[0] < tokens.size() && tokens.get(pos[0]).type == TokenType.OR) {
+                pos[0]++;
+            }
+        }
+
+        Node group = positive.isEmpty() ? null : positive.size() == 1 ? positive.get(0) : new Or(positive);
+        if (negative.isEmpty()) return group;
+
+        List<Node> all = new ArrayList<>();
+        if (group != null) all.add(group);
+        all.addAll(negative);
+        return all.size() == 1 ? all.get(0) : new And(all);
+    }
+
+    /**
+     * and := unary (AND unary)*
+     */
+    private Node parseAnd(List<Token> tokens, int[] pos, boolean topLevel) {
+        List<Node> operands = new ArrayList<>();
+        Node first = parseUnary(tokens, pos, topLevel);
+        if (first != null) operands.add(first);
+
+        while (pos[0] < tokens.size() && tokens.get(pos[0]).type == TokenType.AND) {
+            pos[0]++;
+            Node next = parseUnary(tokens, pos, topLevel);
+            if (next != null) operands.add(next);
+        }
+
+        if (operands.isEmpty()) return null;
+        return operands.size() == 1 ? operands.get(0) : new And(operands);
+    }
+
+    /**
+     * unary := NOT unary | -term | term | "phrase" | ( group )
+     */
+    private Node parseUnary(List<Token> tokens, int[] pos, boolean topLevel) {
+        if (pos[0] >= tokens.size()) return null;
+        Token token = tokens.get(pos[0]);
+        switch (token.type) {
+            case NOT: {
+                pos[0]++;
+                negationDepth++;
+                Node child = parseUnary(tokens, pos, false);
+                negationDepth--;
+                return child != null ? new Not(child) : null;
+            }
+            case OPEN: {
+                pos[0]++;
+                Node group = parseGroup(tokens, pos, false);
+                if (pos[0] < tokens.size() && tokens.get(pos[0]).type == TokenType.CLOSE) {
+                    pos[0]++;
+                }
+                return group;
+            }
+            case TERM:
+            case FUZZY: {
+                pos[0]++;
+                Term term;
+                if (token.type == TokenType.FUZZY) {
+                    FuzzyTerm fuzzy = new FuzzyTerm(token.text);
+                    fuzzyTerms.add(fuzzy);
+                    term = fuzzy;
+                } else {
+                    term = new Term(token.text);
+                }
+                if (token.negated) return new Not(term);
+                if (negationDepth == 0) includeTerms.add(token.text);
+                return term;
+            }
+            default:
+                return null;
+        }
+    }
+
+    // ==================== Expression tree ====================
+
+    private interface Node {
+        boolean matches(int ordinal, String lowerId, String lowerName);
+
+        int[] candidates(Function<String, int[]> find);
+    }
+
+    private static class Term implements Node {
+        final String text;
+        final String idText; // Phrases match IDs with underscores in place of spaces
+
+        Term(String text) {
+            this.text = text;
+            this.idText = text.replace(' ', '_');
+        }
+
+        @Override
+        public boolean matches(int ordinal, String lowerId, String lowerName) {
+            return lowerId.contains(idText) || (lowerName != null && lowerName.contains(text));
+        }
+
+        @Override
+        public int[] candidates(Function<String, int[]> find) {
+            int[] result = find.apply(text);
+            return idText.equals(text) ? result : TrigramIndex.union(result, find.apply(idText));
+        }
+
+        @Override
+        public String toString() {
+            return text.indexOf(' ') >= 0 ? "\"" + text + "\"" : text;
+        }
+    }
+
+    private static final class FuzzyTerm extends Term {
+        private int[] resolved; // Sorted ordinals, null until bound
+
+        FuzzyTerm(String text) {
+            super(text);
+        }
+
+        void bind(Function<String, int[]> fuzzyFind) {
+            // Each word of a fuzzy phrase must match (within its own distance)
+            int[] result = null;
+            for (String word : TokenIndex.tokenize(text)) {
+                int[] next = fuzzyFind.apply(word);
+                result = result == null ? next : TrigramIndex.intersect(result, next);
+            }
+            resolved = result != null ? result : new int[0];
+        }
+
+        @Override
+        public boolean matches(int ordinal, String lowerId, String lowerName) {
+            if (resolved == null || ordinal < 0) return super.matches(ordinal, lowerId, lowerName);
+            return Arrays.binarySearch(resolved, ordinal) >= 0;
+        }
+
+        @Override
+        public int[] candidates(Function<String, int[]> find) {
+            return resolved;
+        }
+
+        @Override
+        public String toString() {
+            return "~" + super.toString();
+        }
+    }
+
+    private static final class Not implements Node {
+        final Node child;
+
+        Not(Node child) {
+            this.child = child;
+        }
+
+        @Override
+        public boolean matches(int ordinal, String lowerId, String lowerName) {
+            return !child.matches(ordinal, lowerId, lowerName);
+        }
+
+        @Override
+        public int[] candidates(Function<String, int[]> find) {
+            return null;
+        }
+
+        @Override
+        public String toString() {
+            return "NOT " + child;
+        }
+    }
+
+    private static final class And implements Node {
+        final Node[] children;
+
+        And(List<Node> children) {
+            this.children = children.toArray(new Node[0]);
+        }
+
+        @Override
+        public boolean matches(int ordinal, String lowerId, String lowerName) {
+            for (Node child : children) {
+                if (!child.matches(ordinal, lowerId, lowerName)) return false;
+            }
+            return true;
+        }
+
+        @Override
+        public int[] candidates(Function<String, int[]> find) {
+            int[] result = null;
+            for (Node child : children) {
+                int[] next = child.candidates(find);
+                if (next == null) continue;
+                result = result == null ? next : TrigramIndex.intersect(result, next);
+            }
+            return result;
+        }
+
+        @Override
+        public String toString() {
+            return join(" AND ");
+        }
+
+        private String join(String separator) {
+            StringBuilder sb = new StringBuilder("(");
+            for (int i = 0; i < children.length; i++) {
+                if (i > 0) sb.append(separator);
+                sb.append(children[i]);
+            }
+            return sb.append(')').toString();
+        }
+    }
+
+    private static final class Or implements Node {
+        final Node[] children;
+
+        Or(List<Node> children) {
+            this.children = children.toArray(new Node[0]);
+        }
+
+        @Override
+        public boolean matches(int ordinal, String lowerId, String lowerName) {
+            for (Node child : children) {
+                if (child.matches(ordinal, lowerId, lowerName)) return true;
+            }
+            return false;
+        }
+
+        @Override
+        public int[] candidates(Function<String, int[]> find) {
+            int[] result = new int[0];
+            for (Node child : children) {
+                int[] next = child.candidates(find);
+                if (next == null) return null;
+                result = TrigramIndex.union(result, next);
+            }
+            return result;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder("(");
+            for (int i = 0; i < children.length; i++) {
+                if (i > 0) sb.append(" OR ");
+                sb.append(children[i]);
+            }
+            return sb.append(')').toString();
+        }
+    }
 }
@@ -0,0 +1,40 @@
+package dev.hytalemod.jet.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Server-wide counters for the item browser's search path.
+ */
+public final class SearchStats {
+
+    // Results narrowed from the previous query vs. evaluated from the full catalogue
+    private static final AtomicLong refineHits = new AtomicLong();
+    private static final AtomicLong refineMisses = new AtomicLong();
+
+    private SearchStats() {}
+
+    public static void recordRefine(boolean hit) {
+        (hit ? refineHits : refineMisses).incrementAndGet();
+    }
+
+    public static long getRefineHits() {
+        return refineHits.get();
+    }
+
+    public static long getRefineMisses() {
+        return refineMisses.get();
+    }
+
+    /**
+     * Total number of recorded evaluations.
+     */
+    public static long getEvaluations() {
+        return refineHits.get() + refineMisses.get();
+    }
+
+    public static String summary() {
+        long hits = refineHits.get();
+        long total = hits + refineMisses.get();
+        return String.format("refine %d/%d (%.0f%%)", hits, total, total > 0 ? hits * 100.0 / total : 0.0);
+    }
+}
@@ -0,0 +1,96 @@
+package dev.hytalemod.jet.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Word-level index over a fixed array of lowercased strings: token -> sorted ordinals,
+ * with a BK-tree over the distinct tokens for typo-tolerant lookups.
+ */
+public final class TokenIndex {
+
+    private static final int MIN_FUZZY_LENGTH = 3;
+
+    private final Map<String, int[]> postings;
+    private final BKTree tree = new BKTree();
+
+    public TokenIndex(String[] texts) {
+        Map<String, int[]> building = new HashMap<>();
+        Map<String, Integer> sizes = new HashMap<>();
+        for (int doc = 0; doc < texts.length; doc++) {
+            if (texts[doc] == null) continue;
+            for (String token : tokenize(texts[doc])) {
+                int[] list = building.get(token);
+                int size = sizes.getOrDefault(token, 0);
+                if (list == null) {
+                    list = new int[2];
+                    building.put(token, list);
+                } else if (list[size - 1] == doc) {
+                    continue;
+                } else if (size == list.length) {
+                    list = Arrays.copyOf(list, size * 2);
+                    building.put(token, list);
+                }
+                list[size] = doc;
+                sizes.put(token, size + 1);
+            }
+        }
+
+        postings = new HashMap<>(building.size() * 2);
+        for (Map.Entry<String, int[]> entry : building.entrySet()) {
+            postings.put(entry.getKey(), Arrays.copyOf(entry.getValue(), sizes.get(entry.getKey())));
+            if (entry.getKey().length() >= MIN_FUZZY_LENGTH) {
+                tree.add(entry.getKey());
+            }
+        }
+    }
+
+    /**
+     * Split a lowercased ID or name into words on namespace, underscore, space and punctuation.
+     */
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean letter = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (letter && start < 0) {
+                start = i;
+            } else if (!letter && start >= 0) {
+                tokens.add(text.substring(start, i));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Edit distance allowed for a term: one typo for short words, two for longer ones.
+     */
+    public static int maxDistance(String term) {
+        if (term.length() < MIN_FUZZY_LENGTH) return 0;
+        return term.length() <= 5 ? 1 : 2;
+    }
+
+    /**
+     * Sorted ordinals containing a token within the term's edit distance.
+     */
+    public int[] fuzzy(String term) {
+        int limit = maxDistance(term);
+        if (limit == 0) {
+            int[] exact = postings.get(term);
+            return exact != null ? exact : new int[0];
+        }
+        int[] result = new int[0];
+        for (String token : tree.search(term, limit)) {
+            result = TrigramIndex.union(result, postings.get(token));
+        }
+        return result;
+    }
+
+    public int tokenCount() {
+        return postings.size();
+    }
+}
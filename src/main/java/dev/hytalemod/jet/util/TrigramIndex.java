@@ -0,0 +1,149 @@
+package dev.hytalemod.jet.util;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Inverted trigram index for substring search over a fixed array of lowercased strings.
+ * Each posting list holds the sorted document ordinals containing that trigram; a query
+ * intersects the lists of its trigrams and verifies only the surviving candidates.
+ */
+public final class TrigramIndex {
+
+    private static final int[] NONE = new int[0];
+
+    private final String[] texts;
+    private final Map<Long, int[]> postings;
+
+    public TrigramIndex(String[] texts) {
+        this.texts = texts;
+
+        Map<Long, int[]> building = new HashMap<>();
+        Map<Long, Integer> sizes = new HashMap<>();
+        for (int doc = 0; doc < texts.length; doc++) {
+            String text = texts[doc];
+            if (text == null) continue;
+            for (int i = 0; i + 3 <= text.length(); i++) {
+                long key = key(text, i);
+                int[] list = building.get(key);
+                int size = sizes.getOrDefault(key, 0);
+                if (list == null) {
+                    list = new int[4];
+                    building.put(key, list);
+                } else if (list[size - 1] == doc) {
+                    continue; // Trigram repeats within the same text
+                } else if (size == list.length) {
+                    list = Arrays.copyOf(list, size * 2);
+                    building.put(key, list);
+                }
+                list[size] = doc;
+                sizes.put(key, size + 1);
+            }
+        }
+
+        postings = new HashMap<>(building.size() * 2);
+        for (Map.Entry<Long, int[]> entry : building.entrySet()) {
+            postings.put(entry.getKey(), Arrays.copyOf(entry.getValue(), sizes.get(entry.getKey())));
+        }
+    }
+
+    /**
+     * Whether a term is long enough to be answered from the posting lists.
+     */
+    public static boolean isIndexable(String term) {
+        return term != null && term.length() >= 3;
+    }
+
+    /**
+     * Sorted ordinals of texts containing the term. Short terms fall back to a linear scan.
+     */
+    public int[] find(String term) {
+        if (term == null || term.isEmpty()) {
+            int[] all = new int[texts.length];
+            for (int i = 0; i < all.length; i++) all[i] = i;
+            return all;
+        }
+        if (!isIndexable(term)) {
+            return scan(term);
+        }
+
+        int count = term.length() - 2;
+        int[][] lists = new int[count][];
+        for (int i = 0; i < count; i++) {
+            int[] list = postings.get(key(term, i));
+            if (list == null) return NONE;
+            lists[i] = list;
+        }
+
+        // Intersect smallest lists first so the candidate set shrinks fastest
+        Arrays.sort(lists, (a, b) -> Integer.compare(a.length, b.length));
+        int[] candidates = lists[0];
+        for (int i = 1; i < lists.length && candidates.length > 0; i++) {
+            candidates = intersect(candidates, lists[i]);
+        }
+
+        // Trigram overlap is necessary but not sufficient; verify the actual substring
+        int[] result = new int[candidates.length];
+        int n = 0;
+        for (int doc : candidates) {
+            if (term.length() == 3 || texts[doc].contains(term)) {
+                result[n++] = doc;
+            }
+        }
+        return n == result.length ? result : Arrays.copyOf(result, n);
+    }
+
+    private int[] scan(String term) {
+        int[] result = new int[16];
+        int n = 0;
+        for (int doc = 0; doc < texts.length; doc++) {
+            String text = texts[doc];
+            if (text != null && text.contains(term)) {
+                if (n == result.length) result = Arrays.copyOf(result, n * 2);
+                result[n++] = doc;
+            }
+        }
+        return Arrays.copyOf(result, n);
+    }
+
+    public int size() {
+        return texts.length;
+    }
+
+    /**
+     * Intersect two sorted ordinal arrays.
+     */
+    public static int[] intersect(int[] a, int[] b) {
+        int[] out = new int[Math.min(a.length, b.length)];
+        int i = 0, j = 0, n = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) i++;
+            else if (a[i] > b[j]) j++;
+            else { out[n++] = a[i]; i++; j++; }
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    /**
+     * Merge two sorted ordinal arrays without duplicates.
+     */
+    public static int[] union(int[] a, int[] b) {
+        if (a.length == 0) return b;
+        if (b.length == 0) return a;
+        int[] out = new int[a.length + b.length];
+        int i = 0, j = 0, n = 0;
+        while (i < a.length || j < b.length) {
+            int next;
+            if (j >= b.length || (i < a.length && a[i] < b[j])) next = a[i++];
+            else if (i >= a.length || b[j] < a[i]) next = b[j++];
+            else { next = a[i]; i++; j++; }
+            out[n++] = next;
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    private static long key(String s, int i) {
+        return ((long) s.charAt(i) << 32) | ((long) s.charAt(i + 1) << 16) | s.charAt(i + 2);
+    }
+}
@@ -0,0 +1,145 @@
+package dev.hytalemod.jet.calc;
+
+import dev.hytalemod.jet.registry.RecipeGraphDraft;
+import dev.hytalemod.jet.util.InventorySnapshot;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static dev.hytalemod.jet.calc.Fixtures.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class CraftingCalculatorTest {
+
+    // Sticks feed a lantern both directly and through its torch
+    private static CraftingCalculator lanterns() {
+        return new CraftingCalculator(new RecipeGraphDraft()
+                .recipe("Stick", 0).output("Stick", 4).input("Plank", 2)
+                .recipe("Torch", 0).output("Torch", 1).input("Stick", 1).input("Coal", 1)
+                .recipe("Lantern", 0).output("Lantern", 1).input("Torch", 1).input("Stick", 1)
+                .build());
+    }
+
+    // Ingot from nuggets or from ore, nuggets back from an ingot
+    private static CraftingCalculator cycle() {
+        return new CraftingCalculator(new RecipeGraphDraft()
+                .recipe("Ingot_From_Nuggets", 0).output("Ingot_Iron", 1).input("Nugget_Iron", 9)
+                .recipe("Nuggets_From_Ingot", 0).output("Nugget_Iron", 9).input("Ingot_Iron", 1)
+                .recipe("Ingot_From_Ore", 1).output("Ingot_Iron", 1).input("Ore_Iron", 2)
+                .recipe("Sword_Iron", 1).output("Sword_Iron", 1).input("Ingot_Iron", 3).resourceInput("Wood", 2)
+                .build());
+    }
+
+    @Test
+    @DisplayName("a cycle stops at the item that closes it")
+    void cycleStops() {
+        CraftingCalculator calculator = cycle();
+        assertEquals(amounts("Nugget_Iron", 9), calculator.rawMaterials("Ingot_Iron", 1, null));
+        assertEquals(amounts("Ingot_Iron", 1), calculator.rawMaterials("Nugget_Iron", 9, null));
+        assertEquals(amounts("Nugget_Iron", 27).and(CraftingCalculator.RESOURCE_PREFIX + "Wood", 2),
+                calculator.rawMaterials("Sword_Iron", 1, null));
+    }
+
+    @Test
+    @DisplayName("recipe choices pick the alternative recipe")
+    void choicePicksRecipe() {
+        CraftingCalculator calculator = cycle();
+        Map<String, Integer> choices = new HashMap<>();
+        choices.put("Ingot_Iron", 1);
+        assertEquals(2, calculator.choiceCount("Ingot_Iron"));
+        assertEquals(amounts("Ore_Iron", 6).and(CraftingCalculator.RESOURCE_PREFIX + "Wood", 2),
+                calculator.rawMaterials("Sword_Iron", 1, choices));
+    }
+
+    @Test
+    @DisplayName("crafts round up to whole batches")
+    void batchRounding() {
+        CraftingCalculator calculator = new CraftingCalculator(new RecipeGraphDraft()
+                .recipe("Stick", 0).output("Stick", 4).input("Plank", 1)
+                .recipe("Torch", 0).output("Torch", 1).input("Stick", 2).input("Coal", 1)
+                .build());
+        // Two sticks from one batch of four
+        assertEquals(amounts("Plank", 1).and("Coal", 1), calculator.rawMaterials("Torch", 1, null));
+        assertEquals(amounts("Plank", 1).and("Coal", 2), calculator.rawMaterials("Torch", 2, null));
+        assertEquals(amounts("Plank", 2).and("Coal", 3), calculator.rawMaterials("Torch", 3, null));
+    }
+
+    @Test
+    @DisplayName("long recipe chains do not overflow the stack")
+    void longChain() {
+        RecipeGraphDraft draft = new RecipeGraphDraft();
+        for (int i = 0; i < 5000; i++) {
+            draft.recipe("Step_" + i, 0).output("Item_" + i, 1).input("Item_" + (i + 1), 1);
+        }
+        CraftingCalculator calculator = new CraftingCalculator(draft.build());
+        assertEquals(amounts("Item_5000", 2), calculator.rawMaterials("Item_0", 2, null));
+    }
+
+    @Test
+    @DisplayName("unknown items are their own raw material")
+    void unknownItem() {
+        assertEquals(amounts("Stone", 4), cycle().rawMaterials("Stone", 4, null));
+        assertEquals(amounts("Stone", 1), CraftingCalculator.EMPTY.rawMaterials("Stone", 1, null));
+    }
+
+    @Test
+    @DisplayName("an intermediate shared by two branches is counted once")
+    void maxCraftableSharesIntermediates() {
+        CraftingCalculator calculator = lanterns();
+        // One batch of four sticks covers two lanterns; rounding each branch alone would need two batches per lantern
+        assertEquals(2, calculator.maxCraftable("Lantern", null, holding("Plank", 2).and("Coal", 5).snapshot()));
+        assertEquals(4, calculator.maxCraftable("Lantern", null, holding("Plank", 4).and("Coal", 5).snapshot()));
+        assertEquals(2, calculator.maxCraftable("Lantern", null, holding("Plank", 4).and("Coal", 2).snapshot()));
+        assertEquals(0, calculator.maxCraftable("Lantern", null, holding("Coal", 5).snapshot()));
+    }
+
+    @Test
+    @DisplayName("held intermediates are spent before their inputs")
+    void maxCraftableSpendsHeldIntermediates() {
+        CraftingCalculator calculator = lanterns();
+        assertEquals(2, calculator.maxCraftable("Lantern", null, holding("Torch", 2).and("Stick", 2).snapshot()));
+        assertEquals(2, calculator.maxCraftable("Lantern", null, holding("Stick", 1).and("Plank", 2).and("Coal", 5).snapshot()));
+        assertEquals(3, calculator.maxCraftable("Lantern", null, holding("Torch", 1).and("Stick", 1).and("Plank", 2).and("Coal", 5).snapshot()));
+    }
+
+    @Test
+    @DisplayName("max crafts divide the craftable output by the batch size")
+    void maxCrafts() {
+        CraftingCalculator calculator = lanterns();
+        assertEquals(2, calculator.maxCrafts("Stick", holding("Plank", 5).snapshot()));
+        assertEquals(2, calculator.maxCrafts("Lantern", holding("Plank", 2).and("Coal", 5).snapshot()));
+        assertEquals(0, calculator.maxCrafts("Unknown", holding("Plank", 5).snapshot()));
+    }
+
+    @Test
+    @DisplayName("resource pools are spent after items named outright")
+    void maxCraftableSpendsPoolsLast() {
+        CraftingCalculator calculator = new CraftingCalculator(new RecipeGraphDraft()
+                .recipe("Torch", 0).output("Torch", 1).input("Stick", 1).resourceInput("Fuel", 1)
+                .recipe("Stick", 0).output("Stick", 1).input("Plank", 1)
+                .build());
+        // Planks are both the stick's input and fuel; sticks take theirs first
+        assertEquals(2, calculator.maxCraftable("Torch", null, holding("Plank", 4).pool("Fuel", "Plank").snapshot()));
+        assertEquals(4, calculator.maxCraftable("Torch", null, holding("Plank", 4).and("Coal", 9).pool("Fuel", "Coal", "Plank").snapshot()));
+    }
+
+    @Test
+    @DisplayName("max crafts of an alternative recipe plan through that recipe")
+    void maxCraftsAlternative() {
+        CraftingCalculator calculator = cycle();
+        assertEquals(3, calculator.maxCrafts("Ingot_From_Ore", holding("Ore_Iron", 7).snapshot()));
+        assertEquals(1, calculator.maxCrafts("Ingot_From_Nuggets", holding("Nugget_Iron", 9).and("Ore_Iron", 7).snapshot()));
+    }
+
+    @Test
+    @DisplayName("max crafts are answered per snapshot")
+    void maxCraftsPerSnapshot() {
+        CraftingCalculator calculator = lanterns();
+        InventorySnapshot few = holding("Plank", 2).snapshot();
+        assertEquals(1, calculator.maxCrafts("Stick", few));
+        assertEquals(1, calculator.maxCrafts("Stick", few));
+        assertEquals(4, calculator.maxCrafts("Stick", holding("Plank", 8).snapshot()));
+    }
+}
@@ -0,0 +1,76 @@
+package dev.hytalemod.jet.calc;
+
+import dev.hytalemod.jet.util.InventorySnapshot;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Typed builders for the quantities and inventories the calculator tests compare against.
+ */
+final class Fixtures {
+
+    private Fixtures() {}
+
+    /**
+     * Item ID or raw key -> quantity, as the calculator's results are keyed.
+     */
+    static final class Amounts extends LinkedHashMap<String, Long> {
+        Amounts and(String key, long quantity) {
+            put(key, quantity);
+            return this;
+        }
+    }
+
+    /**
+     * Held items and resource pools for one snapshot.
+     */
+    static final class Inventory {
+        private final Map<String, Integer> items = new HashMap<>();
+        private final Map<String, List<String>> pools = new HashMap<>();
+
+        Inventory and(String itemId, int quantity) {
+            items.put(itemId, quantity);
+            return this;
+        }
+
+        Inventory pool(String resourceTypeId, String... itemIds) {
+            pools.put(resourceTypeId, Arrays.asList(itemIds));
+            return this;
+        }
+
+        InventorySnapshot snapshot() {
+            return new InventorySnapshot(items, pools);
+        }
+    }
+
+    static Amounts amounts(String key, long quantity) {
+        return new Amounts().and(key, quantity);
+    }
+
+    static Inventory holding(String itemId, int quantity) {
+        return new Inventory().and(itemId, quantity);
+    }
+
+    static InventorySnapshot emptyInventory() {
+        return new InventorySnapshot(Collections.emptyMap(), Collections.emptyMap());
+    }
+
+    /**
+     * Item IDs of a set of the calculator's item ordinals.
+     */
+    static Set<String> itemIds(CraftingCalculator calculator, BitSet items) {
+        Set<String> ids = new LinkedHashSet<>();
+        for (int item = items.nextSetBit(0); item >= 0; item = items.nextSetBit(item + 1)) {
+            ids.add(calculator.getGraph().getItemId(item));
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,68 @@
+package dev.hytalemod.jet.calc;
+
+import dev.hytalemod.jet.registry.RecipeGraphDraft;
+import dev.hytalemod.jet.util.InventorySnapshot;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+
+import java.util.Set;
+
+import static dev.hytalemod.jet.calc.Fixtures.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReachabilityTest {
+
+    private static final CraftingCalculator CALCULATOR = new CraftingCalculator(new RecipeGraphDraft()
+            .recipe("Plank", 0).output("Plank", 4).input("Log", 1)
+            .recipe("Stick", 0).output("Stick", 4).input("Plank", 2)
+            .recipe("Torch", 0).output("Torch", 4).input("Stick", 1).input("Coal", 1)
+            .recipe("Ingot_Iron", 1).output("Ingot_Iron", 1).input("Ore_Iron", 2)
+            .recipe("Pickaxe_Iron", 1).output("Pickaxe_Iron", 1).input("Ingot_Iron", 3).input("Stick", 2)
+            .recipe("Workbench", 0).output("Workbench", 1).resourceInput("Wood", 4)
+            .build());
+
+    @Test
+    @DisplayName("intermediates carry reachability through a chain")
+    void reachesThroughIntermediates() {
+        InventorySnapshot snapshot = holding("Log", 1).and("Coal", 1).snapshot();
+        assertEquals(Set.of("Plank"), itemIds(CALCULATOR, CALCULATOR.craftableWith(snapshot)));
+        assertEquals(Set.of("Plank", "Stick", "Torch"), itemIds(CALCULATOR, CALCULATOR.reachableWith(snapshot)));
+    }
+
+    @Test
+    @DisplayName("a step short on quantity stops the chain")
+    void quantitiesLimitTheChain() {
+        Set<String> shortOfOre = itemIds(CALCULATOR, CALCULATOR.reachableWith(holding("Ore_Iron", 4).and("Log", 1).snapshot()));
+        assertTrue(shortOfOre.contains("Ingot_Iron"));
+        assertFalse(shortOfOre.contains("Pickaxe_Iron"));
+
+        Set<String> enough = itemIds(CALCULATOR, CALCULATOR.reachableWith(holding("Ore_Iron", 6).and("Log", 1).snapshot()));
+        assertTrue(enough.contains("Pickaxe_Iron"));
+    }
+
+    @Test
+    @DisplayName("resource inputs count held pool members, not crafted ones")
+    void resourcesFromPools() {
+        Set<String> fromLog = itemIds(CALCULATOR, CALCULATOR.reachableWith(holding("Log", 1).snapshot()));
+        assertFalse(fromLog.contains("Workbench"));
+
+        Set<String> fromPlanks = itemIds(CALCULATOR, CALCULATOR.reachableWith(holding("Plank", 4).pool("Wood", "Plank").snapshot()));
+        assertEquals(Set.of("Stick", "Workbench"), fromPlanks);
+    }
+
+    @Test
+    @DisplayName("a loop that yields more than it takes settles")
+    void growingLoopSettles() {
+        CraftingCalculator calculator = new CraftingCalculator(new RecipeGraphDraft()
+                .recipe("Split", 0).output("Shard", 2).input("Crystal", 1)
+                .recipe("Fuse", 0).output("Crystal", 1).input("Shard", 1)
+                .build());
+        assertEquals(Set.of("Shard", "Crystal"), itemIds(calculator, calculator.reachableWith(holding("Crystal", 1).snapshot())));
+    }
+
+    @Test
+    @DisplayName("an empty inventory reaches nothing")
+    void nothingHeld() {
+        assertTrue(CALCULATOR.reachableWith(emptyInventory()).isEmpty());
+    }
+}
@@ -0,0 +1,82 @@
+package dev.hytalemod.jet.calc;
+
+import dev.hytalemod.jet.registry.RecipeGraphDraft;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+
+import java.util.Collections;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecipeSolverTest {
+
+    // A gear cast from an ingot on a higher bench, or carved from more stone by hand
+    private static CraftingCalculator gears() {
+        return new CraftingCalculator(new RecipeGraphDraft()
+                .recipe("Ingot_Iron", 1).output("Ingot_Iron", 1).input("Ore_Iron", 2)
+                .recipe("Gear_Cast", 2).output("Gear", 1).input("Ingot_Iron", 1)
+                .recipe("Gear_Carved", 1).output("Gear", 1).input("Stone", 3)
+                .build());
+    }
+
+    @Test
+    @DisplayName("each objective picks its own cheapest recipe")
+    void objectivesDiffer() {
+        CraftingCalculator calculator = gears();
+
+        RecipeSolver raw = calculator.solver(RecipeSolver.Objective.RAW_ITEMS);
+        assertEquals(2.0, raw.cost("Gear"));
+        assertEquals(Collections.singletonMap("Gear", 0), raw.choicesFor("Gear"));
+
+        RecipeSolver crafts = calculator.solver(RecipeSolver.Objective.CRAFTS);
+        assertEquals(1.0, crafts.cost("Gear"));
+        assertEquals(Collections.singletonMap("Gear", 1), crafts.choicesFor("Gear"));
+
+        RecipeSolver tier = calculator.solver(RecipeSolver.Objective.BENCH_TIER);
+        assertEquals(1.0, tier.cost("Gear"));
+        assertEquals(Collections.singletonMap("Gear", 1), tier.choicesFor("Gear"));
+    }
+
+    @Test
+    @DisplayName("ties keep the first recipe")
+    void tiesKeepFirst() {
+        CraftingCalculator calculator = new CraftingCalculator(new RecipeGraphDraft()
+                .recipe("Torch_Coal", 0).output("Torch", 4).input("Stick", 1).input("Coal", 1)
+                .recipe("Torch_Resin", 0).output("Torch", 4).input("Stick", 1).input("Resin", 1)
+                .build());
+        for (RecipeSolver.Objective objective : RecipeSolver.Objective.values()) {
+            assertEquals(Collections.singletonMap("Torch", 0), calculator.solver(objective).choicesFor("Torch"), objective.name());
+        }
+    }
+
+    @Test
+    @DisplayName("a bench tier tie keeps the first recipe even when another has fewer raw items")
+    void tierTieIgnoresRawCost() {
+        // Both recipes need tier 1; the second is cheaper in raw items but the tier objective cannot tell
+        CraftingCalculator calculator = new CraftingCalculator(new RecipeGraphDraft()
+                .recipe("Wall_Thick", 1).output("Wall", 1).input("Stone", 8)
+                .recipe("Wall_Thin", 1).output("Wall", 1).input("Stone", 2)
+                .build());
+        assertEquals(Collections.singletonMap("Wall", 0),
+                calculator.solver(RecipeSolver.Objective.BENCH_TIER).choicesFor("Wall"));
+        assertEquals(Collections.singletonMap("Wall", 1),
+                calculator.solver(RecipeSolver.Objective.RAW_ITEMS).choicesFor("Wall"));
+    }
+
+    @Test
+    @DisplayName("a cycle is costed through its way out")
+    void cycleCosts() {
+        CraftingCalculator calculator = new CraftingCalculator(new RecipeGraphDraft()
+                .recipe("Ingot_From_Nuggets", 0).output("Ingot_Iron", 1).input("Nugget_Iron", 9)
+                .recipe("Nuggets_From_Ingot", 0).output("Nugget_Iron", 9).input("Ingot_Iron", 1)
+                .recipe("Ingot_From_Ore", 1).output("Ingot_Iron", 1).input("Ore_Iron", 2)
+                .build());
+        RecipeSolver solver = calculator.solver(RecipeSolver.Objective.RAW_ITEMS);
+        assertEquals(2.0, solver.cost("Ingot_Iron"));
+        assertEquals(2.0 / 9, solver.cost("Nugget_Iron"), 1e-9);
+        Map<String, Integer> choices = solver.choicesFor("Nugget_Iron");
+        assertEquals(Collections.singletonMap("Ingot_Iron", 1), choices);
+        assertTrue(Double.isNaN(solver.cost("Unknown")));
+    }
+}
@@ -0,0 +1,79 @@
+package dev.hytalemod.jet.calc;
+
+import dev.hytalemod.jet.registry.RecipeGraphDraft;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static dev.hytalemod.jet.calc.Fixtures.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShoppingListTest {
+
+    private static final CraftingCalculator CALCULATOR = new CraftingCalculator(new RecipeGraphDraft()
+            .recipe("Stick", 0).output("Stick", 4).input("Plank", 2)
+            .recipe("Torch", 0).output("Torch", 1).input("Stick", 1).input("Coal", 1)
+            .recipe("Ladder", 0).output("Ladder", 1).input("Stick", 2)
+            .build());
+
+    @Test
+    @DisplayName("an intermediate shared by two pins is crafted once")
+    void sharedIntermediateOnce() {
+        ShoppingList list = CALCULATOR.shoppingList();
+        list.addItem("Torch");
+        list.addItem("Ladder");
+        // Three sticks fit one batch of four, where planning each pin alone would craft two batches
+        assertEquals(amounts("Torch", 1).and("Ladder", 1).and("Stick", 1), list.getCrafts());
+        assertEquals(amounts("Plank", 2).and("Coal", 1), list.getRawMaterials());
+        assertEquals(amounts("Plank", 2).and("Coal", 1), CALCULATOR.rawMaterials("Torch", 1, null));
+    }
+
+    @Test
+    @DisplayName("pinned recipes count one craft each")
+    void pinnedRecipe() {
+        ShoppingList list = CALCULATOR.shoppingList();
+        list.addRecipe("Ladder");
+        list.addItem("Torch");
+        assertEquals(amounts("Ladder", 1).and("Torch", 1).and("Stick", 1), list.getCrafts());
+        assertEquals(amounts("Plank", 2).and("Coal", 1), list.getRawMaterials());
+        assertFalse(list.addRecipe("Unknown"));
+    }
+
+    @Test
+    @DisplayName("pinned items nothing crafts are listed as raw")
+    void rawPin() {
+        ShoppingList list = CALCULATOR.shoppingList();
+        list.addItem("Coal");
+        list.addItem("Torch");
+        assertEquals(amounts("Plank", 2).and("Coal", 2), list.getRawMaterials());
+    }
+
+    @Test
+    @DisplayName("removing every pin leaves an empty list")
+    void removeAfterAdd() {
+        ShoppingList list = CALCULATOR.shoppingList();
+        list.addItem("Torch");
+        list.addRecipe("Ladder");
+        list.getRawMaterials();
+        assertTrue(list.removeItem("Torch"));
+        assertTrue(list.removeRecipe("Ladder"));
+        assertFalse(list.removeItem("Torch"));
+
+        assertTrue(list.isEmpty());
+        assertEquals(Collections.emptyMap(), list.getRawMaterials());
+        assertEquals(Collections.emptyMap(), list.getCrafts());
+    }
+
+    @Test
+    @DisplayName("sync applies only the differences")
+    void syncDifferences() {
+        ShoppingList list = CALCULATOR.shoppingList();
+        assertTrue(list.sync(Arrays.asList("Torch", "Ladder"), Collections.emptyList()));
+        assertFalse(list.sync(Arrays.asList("Ladder", "Torch"), Collections.emptyList()));
+        assertTrue(list.sync(Collections.singletonList("Ladder"), Collections.emptyList()));
+        assertEquals(amounts("Ladder", 1).and("Stick", 1), list.getCrafts());
+        assertEquals(amounts("Plank", 2), list.getRawMaterials());
+    }
+}
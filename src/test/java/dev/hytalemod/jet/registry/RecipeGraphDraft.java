@@ -0,0 +1,84 @@
+package dev.hytalemod.jet.registry;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds a small {@link RecipeGraph} from plain IDs and quantities, for tests that cannot construct recipe assets.
+ */
+public final class RecipeGraphDraft {
+
+    private static final class Recipe {
+        final String id;
+        final int benchTier;
+        final List<String> outputItems = new ArrayList<>();
+        final List<Integer> outputQuantities = new ArrayList<>();
+        final List<String> inputItems = new ArrayList<>();
+        final List<String> inputResources = new ArrayList<>();
+        final List<Integer> inputQuantities = new ArrayList<>();
+
+        Recipe(String id, int benchTier) {
+            this.id = id;
+            this.benchTier = benchTier;
+        }
+    }
+
+    private final List<Recipe> recipes = new ArrayList<>();
+
+    /**
+     * Start a recipe; following outputs and inputs belong to it.
+     */
+    public RecipeGraphDraft recipe(String recipeId, int benchTier) {
+        recipes.add(new Recipe(recipeId, benchTier));
+        return this;
+    }
+
+    public RecipeGraphDraft output(String itemId, int quantity) {
+        Recipe recipe = current();
+        recipe.outputItems.add(itemId);
+        recipe.outputQuantities.add(quantity);
+        return this;
+    }
+
+    public RecipeGraphDraft input(String itemId, int quantity) {
+        return addInput(itemId, null, quantity);
+    }
+
+    public RecipeGraphDraft resourceInput(String resourceTypeId, int quantity) {
+        return addInput(null, resourceTypeId, quantity);
+    }
+
+    public RecipeGraph build() {
+        int count = recipes.size();
+        String[] ids = new String[count];
+        int[] tiers = new int[count];
+        String[][] outputItems = new String[count][];
+        int[][] outputQuantities = new int[count][];
+        String[][] inputItems = new String[count][];
+        String[][] inputResources = new String[count][];
+        int[][] inputQuantities = new int[count][];
+        for (int r = 0; r < count; r++) {
+            Recipe recipe = recipes.get(r);
+            ids[r] = recipe.id;
+            tiers[r] = recipe.benchTier;
+            outputItems[r] = recipe.outputItems.toArray(new String[0]);
+            outputQuantities[r] = recipe.outputQuantities.stream().mapToInt(Integer::intValue).toArray();
+            inputItems[r] = recipe.inputItems.toArray(new String[0]);
+            inputResources[r] = recipe.inputResources.toArray(new String[0]);
+            inputQuantities[r] = recipe.inputQuantities.stream().mapToInt(Integer::intValue).toArray();
+        }
+        return RecipeGraph.of(ids, tiers, outputItems, outputQuantities, inputItems, inputResources, inputQuantities);
+    }
+
+    private RecipeGraphDraft addInput(String itemId, String resourceTypeId, int quantity) {
+        Recipe recipe = current();
+        recipe.inputItems.add(itemId);
+        recipe.inputResources.add(resourceTypeId);
+        recipe.inputQuantities.add(quantity);
+        return this;
+    }
+
+    private Recipe current() {
+        return recipes.get(recipes.size() - 1);
+    }
+}
@@ -0,0 +1,56 @@
+package dev.hytalemod.jet.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CoalescerTest {
+
+    @Test
+    @DisplayName("burst fires once after it goes quiet")
+    void firesAfterQuiet() {
+        Coalescer<String> coalescer = new Coalescer<>(100, 500);
+        coalescer.offer("a", 0);
+        coalescer.offer("a", 50);
+        coalescer.offer("a", 90);
+        assertEquals(190, coalescer.nextDue());
+        assertTrue(coalescer.drain(150).isEmpty());
+        assertEquals(Collections.singletonList("a"), coalescer.drain(190));
+        assertTrue(coalescer.drain(1000).isEmpty());
+        assertTrue(coalescer.isEmpty());
+    }
+
+    @Test
+    @DisplayName("endless burst fires at the latency cap")
+    void capsLatency() {
+        Coalescer<String> coalescer = new Coalescer<>(100, 500);
+        for (long t = 0; t < 500; t += 50) coalescer.offer("a", t);
+        assertEquals(500, coalescer.nextDue());
+        assertEquals(Collections.singletonList("a"), coalescer.drain(500));
+    }
+
+    @Test
+    @DisplayName("keys due together drain together")
+    void drainsTogether() {
+        Coalescer<String> coalescer = new Coalescer<>(100, 500);
+        coalescer.offer("a", 0);
+        coalescer.offer("b", 10);
+        coalescer.offer("c", 200);
+        assertEquals(Arrays.asList("a", "b"), coalescer.drain(110));
+        assertEquals(300, coalescer.nextDue());
+    }
+
+    @Test
+    @DisplayName("cancelled keys never fire")
+    void cancels() {
+        Coalescer<String> coalescer = new Coalescer<>(100, 500);
+        coalescer.offer("a", 0);
+        coalescer.cancel("a");
+        assertEquals(Long.MAX_VALUE, coalescer.nextDue());
+        assertTrue(coalescer.drain(1000).isEmpty());
+    }
+}
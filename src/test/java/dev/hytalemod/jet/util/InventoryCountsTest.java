@@ -0,0 +1,129 @@
+package dev.hytalemod.jet.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InventoryCountsTest {
+
+    private static Map<String, Integer> items(Object... pairs) {
+        Map<String, Integer> items = new HashMap<>();
+        for (int i = 0; i < pairs.length; i += 2) items.put((String) pairs[i], (Integer) pairs[i + 1]);
+        return items;
+    }
+
+    private static Map<String, Set<String>> pool(String resourceTypeId, String... itemIds) {
+        Map<String, Set<String>> pools = new HashMap<>();
+        pools.put(resourceTypeId, new LinkedHashSet<>(Arrays.asList(itemIds)));
+        return pools;
+    }
+
+    @Test
+    @DisplayName("totals sum every section")
+    void sumsSections() {
+        InventoryCounts counts = new InventoryCounts(2);
+        assertTrue(counts.isDirty(0));
+        counts.setSection(0, items("Plank_Oak", 3, "Ingot_Iron", 1), pool("Wood", "Plank_Oak"));
+        counts.setSection(1, items("Plank_Oak", 2, "Log_Oak", 4), pool("Wood", "Plank_Oak", "Log_Oak"));
+        assertFalse(counts.isDirty(1));
+
+        InventorySnapshot snapshot = counts.snapshot();
+        assertEquals(5, snapshot.count("Plank_Oak"));
+        assertEquals(1, snapshot.count("Ingot_Iron"));
+        assertEquals(9, snapshot.resourceCount("Wood"));
+    }
+
+    @Test
+    @DisplayName("rescanning a section replaces only its counts")
+    void replacesSection() {
+        InventoryCounts counts = new InventoryCounts(2);
+        counts.setSection(0, items("Plank_Oak", 3), pool("Wood", "Plank_Oak"));
+        counts.setSection(1, items("Plank_Oak", 2), Collections.emptyMap());
+        counts.markDirty(0);
+        assertTrue(counts.isDirty(0));
+        counts.setSection(0, items("Ingot_Iron", 1), Collections.emptyMap());
+
+        InventorySnapshot snapshot = counts.snapshot();
+        assertEquals(2, snapshot.count("Plank_Oak"));
+        assertEquals(1, snapshot.count("Ingot_Iron"));
+        assertEquals(2, snapshot.resourceCount("Wood"));
+    }
+
+    @Test
+    @DisplayName("items no longer held drop out of the snapshot and its pools")
+    void dropsEmptied() {
+        InventoryCounts counts = new InventoryCounts(1);
+        counts.setSection(0, items("Log_Oak", 4), pool("Wood", "Log_Oak"));
+        counts.setSection(0, Collections.emptyMap(), Collections.emptyMap());
+        InventorySnapshot snapshot = counts.snapshot();
+        assertTrue(snapshot.getItems().isEmpty());
+        assertTrue(snapshot.getResourceTypes().isEmpty());
+    }
+
+    @Test
+    @DisplayName("snapshot and version are kept until a rescan finds a difference")
+    void sharesSnapshot() {
+        InventoryCounts counts = new InventoryCounts(1);
+        counts.setSection(0, items("Log_Oak", 4), Collections.emptyMap());
+        InventorySnapshot first = counts.snapshot();
+        long version = counts.getVersion();
+        assertSame(first, counts.snapshot());
+
+        counts.markDirty(0);
+        counts.setSection(0, items("Log_Oak", 4), Collections.emptyMap());
+        assertSame(first, counts.snapshot());
+        assertEquals(version, counts.getVersion());
+
+        counts.setSection(0, items("Log_Oak", 3), Collections.emptyMap());
+        assertNotSame(first, counts.snapshot());
+        assertNotEquals(version, counts.getVersion());
+    }
+
+    @Test
+    @DisplayName("changed items are handed out once")
+    void takesChanged() {
+        InventoryCounts counts = new InventoryCounts(2);
+        counts.setSection(0, items("Plank_Oak", 3, "Log_Oak", 1), Collections.emptyMap());
+        counts.setSection(1, items("Ingot_Iron", 2), Collections.emptyMap());
+        assertNull(counts.takeChanged());
+
+        counts.setSection(0, items("Plank_Oak", 3, "Stick", 2), Collections.emptyMap());
+        assertEquals(new HashSet<>(Arrays.asList("Log_Oak", "Stick")), counts.takeChanged());
+        assertTrue(counts.takeChanged().isEmpty());
+    }
+
+    @Test
+    @DisplayName("a stale table rescans every section without a version bump when nothing changed")
+    void staleRescan() {
+        InventoryCounts counts = new InventoryCounts(2);
+        assertTrue(counts.markStale(1_000, 30_000));
+        counts.setSection(0, items("Log_Oak", 4), Collections.emptyMap());
+        counts.setSection(1, Collections.emptyMap(), Collections.emptyMap());
+        long version = counts.getVersion();
+
+        assertFalse(counts.markStale(20_000, 30_000));
+        assertFalse(counts.isDirty(0));
+        assertTrue(counts.markStale(31_000, 30_000));
+        assertTrue(counts.isDirty(0));
+        assertTrue(counts.isDirty(1));
+
+        counts.setSection(0, items("Log_Oak", 4), Collections.emptyMap());
+        counts.setSection(1, Collections.emptyMap(), Collections.emptyMap());
+        assertEquals(version, counts.getVersion());
+
+        // A change no event reported shows up at the next verification
+        counts.markStale(61_000, 30_000);
+        counts.setSection(0, items("Log_Oak", 5), Collections.emptyMap());
+        assertEquals(5, counts.snapshot().count("Log_Oak"));
+        assertNotEquals(version, counts.getVersion());
+    }
+}
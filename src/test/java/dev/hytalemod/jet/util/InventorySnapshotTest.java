@@ -0,0 +1,76 @@
+package dev.hytalemod.jet.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InventorySnapshotTest {
+
+    private static InventorySnapshot snapshot() {
+        Map<String, Integer> items = new HashMap<>();
+        items.put("Plank_Oak", 3);
+        items.put("Log_Oak", 2);
+        items.put("Ingot_Iron", 5);
+        Map<String, List<String>> pools = new HashMap<>();
+        pools.put("Wood", Arrays.asList("Plank_Oak", "Log_Oak"));
+        return new InventorySnapshot(items, pools);
+    }
+
+    @Test
+    @DisplayName("counts items and resource pools")
+    void counts() {
+        InventorySnapshot snapshot = snapshot();
+        assertEquals(5, snapshot.count("Ingot_Iron"));
+        assertEquals(0, snapshot.count("Ingot_Gold"));
+        assertEquals(5, snapshot.resourceCount("Wood"));
+        assertEquals(0, snapshot.resourceCount("Stone"));
+        assertEquals(Collections.singleton("Wood"), snapshot.getResourceTypes());
+    }
+
+    @Test
+    @DisplayName("ledger takes no more than is held")
+    void takeIsCapped() {
+        InventorySnapshot.Ledger ledger = snapshot().ledger();
+        assertEquals(3, ledger.take("Ingot_Iron", 3));
+        assertEquals(2, ledger.take("Ingot_Iron", 3));
+        assertEquals(0, ledger.take("Ingot_Iron", 1));
+        assertEquals(0, ledger.take("Ingot_Gold", 1));
+    }
+
+    @Test
+    @DisplayName("resource pool spends its member items")
+    void poolSpendsMembers() {
+        InventorySnapshot.Ledger ledger = snapshot().ledger();
+        assertEquals(4, ledger.takeResource("Wood", 4));
+        assertEquals(0, ledger.available("Plank_Oak"));
+        assertEquals(1, ledger.available("Log_Oak"));
+        assertEquals(1, ledger.takeResource("Wood", 4));
+        assertEquals(0, ledger.availableResource("Wood"));
+    }
+
+    @Test
+    @DisplayName("items taken directly are gone from their pools")
+    void directTakeShrinksPool() {
+        InventorySnapshot.Ledger ledger = snapshot().ledger();
+        ledger.take("Log_Oak", 2);
+        assertEquals(3, ledger.availableResource("Wood"));
+    }
+
+    @Test
+    @DisplayName("ledgers do not change the snapshot")
+    void ledgersAreIndependent() {
+        InventorySnapshot snapshot = snapshot();
+        snapshot.ledger().take("Ingot_Iron", 5);
+        assertEquals(5, snapshot.count("Ingot_Iron"));
+        assertEquals(5, snapshot.ledger().available("Ingot_Iron"));
+        assertEquals(0, InventorySnapshot.EMPTY.ledger().takeResource("Wood", 1));
+        assertTrue(new InventorySnapshot(Collections.emptyMap(), Collections.emptyMap()).getItems().isEmpty());
+    }
+}
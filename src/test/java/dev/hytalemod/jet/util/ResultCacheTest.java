@@ -0,0 +1,100 @@
+package dev.hytalemod.jet.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResultCacheTest {
+
+    @Test
+    @DisplayName("repeated keys are served from the cache")
+    void cachesValues() {
+        ResultCache<String, Integer> cache = new ResultCache<>(4);
+        AtomicInteger loads = new AtomicInteger();
+        assertEquals(1, cache.get("a", loads::incrementAndGet));
+        assertEquals(1, cache.get("a", loads::incrementAndGet));
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    @DisplayName("put replaces a cached value")
+    void putReplaces() {
+        ResultCache<String, String> cache = new ResultCache<>(4);
+        cache.get("a", () -> "stale");
+        cache.put("a", "fresh");
+        assertEquals("fresh", cache.get("a", () -> "loaded"));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    @DisplayName("least recently used entry is evicted")
+    void evictsLeastRecentlyUsed() {
+        ResultCache<String, String> cache = new ResultCache<>(2);
+        cache.get("a", () -> "a");
+        cache.get("b", () -> "b");
+        cache.get("a", () -> "a"); // "b" is now eldest
+        cache.get("c", () -> "c");
+        assertEquals(2, cache.size());
+        assertEquals("b2", cache.get("b", () -> "b2"));
+        assertEquals("a", cache.get("a", () -> "a2").substring(0, 1));
+    }
+
+    @Test
+    @DisplayName("invalidation drops all entries")
+    void invalidates() {
+        ResultCache<String, String> cache = new ResultCache<>(4);
+        cache.get("a", () -> "old");
+        cache.invalidateAll();
+        assertEquals("new", cache.get("a", () -> "new"));
+    }
+
+    @Test
+    @DisplayName("failed loads are not cached")
+    void failuresNotCached() {
+        ResultCache<String, String> cache = new ResultCache<>(4);
+        assertThrows(IllegalStateException.class, () -> cache.get("a", () -> {
+            throw new IllegalStateException();
+        }));
+        assertEquals("ok", cache.get("a", () -> "ok"));
+    }
+
+    @Test
+    @DisplayName("concurrent misses for one key compute once")
+    void singleFlight() throws Exception {
+        ResultCache<String, Integer> cache = new ResultCache<>(4);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            Future<?>[] futures = new Future<?>[8];
+            for (int i = 0; i < futures.length; i++) {
+                futures[i] = pool.submit(() -> cache.get("view", () -> {
+                    loads.incrementAndGet();
+                    try {
+                        release.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException ignored) {}
+                    return 42;
+                }));
+            }
+            Thread.sleep(100);
+            release.countDown();
+            for (Future<?> future : futures) {
+                assertEquals(42, future.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.getMisses());
+    }
+}
@@ -3,6 +3,13 @@ package dev.hytalemod.jet.util;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
 
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class SearchParserTest {
@@ -105,4 +112,190 @@ class SearchParserTest {
         assertTrue(parser.getExcludeTerms().contains("stone"));
         assertTrue(parser.getExcludeTerms().contains("iron"));
     }
+
+    @Test
+    @DisplayName("indexed match checks id, namespace, and translated name")
+    void indexedMatch() {
+        SearchParser parser = new SearchParser("@hytale ingot -copper");
+        assertTrue(parser.matches("hytale:ingot_iron", "hytale", "iron ingot"));
+        assertFalse(parser.matches("hytale:ingot_copper", "hytale", "copper ingot"));
+        assertFalse(parser.matches("mymod:ingot_iron", "mymod", "iron ingot"));
+        assertTrue(new SearchParser("barre").matches("hytale:ingot_iron", "hytale", "barre de fer"));
+    }
+
+    @Test
+    @DisplayName("explicit AND requires both terms")
+    void explicitAnd() {
+        SearchParser parser = new SearchParser("iron AND ingot");
+        assertTrue(parser.matchesText("hytale:ingot_iron", null));
+        assertFalse(parser.matchesText("hytale:ore_iron", null));
+        assertEquals("(iron AND ingot)", parser.describe());
+    }
+
+    @Test
+    @DisplayName("AND binds tighter than OR")
+    void andBeforeOr() {
+        SearchParser parser = new SearchParser("copper OR iron AND ingot");
+        assertEquals("(copper OR (iron AND ingot))", parser.describe());
+        assertTrue(parser.matchesText("hytale:ore_copper", null));
+        assertFalse(parser.matchesText("hytale:ore_iron", null));
+    }
+
+    @Test
+    @DisplayName("NOT keyword behaves like dash exclusion")
+    void notKeyword() {
+        SearchParser parser = new SearchParser("ingot NOT copper");
+        assertEquals(1, parser.getIncludeTerms().size());
+        assertEquals("copper", parser.getExcludeTerms().get(0));
+        assertTrue(parser.matchesText("hytale:ingot_iron", null));
+        assertFalse(parser.matchesText("hytale:ingot_copper", null));
+    }
+
+    @Test
+    @DisplayName("lowercase and/or/not are plain search terms")
+    void lowercaseKeywords() {
+        SearchParser parser = new SearchParser("ore or");
+        assertEquals(2, parser.getIncludeTerms().size());
+        assertTrue(parser.getIncludeTerms().contains("or"));
+    }
+
+    @Test
+    @DisplayName("quoted phrase matches as one term against names and ids")
+    void quotedPhrase() {
+        SearchParser parser = new SearchParser("\"Iron Ingot\" -\"copper ore\"");
+        assertEquals("iron ingot", parser.getIncludeTerms().get(0));
+        assertEquals("copper ore", parser.getExcludeTerms().get(0));
+        assertTrue(parser.matchesText("hytale:ingot_iron", "iron ingot"));
+        assertTrue(parser.matchesText("hytale:iron_ingot", null));
+        assertFalse(parser.matchesText("hytale:ingot_iron", "ingot of iron"));
+    }
+
+    @Test
+    @DisplayName("parentheses group alternatives")
+    void grouping() {
+        SearchParser parser = new SearchParser("(iron OR copper) AND ore");
+        assertTrue(parser.matchesText("hytale:ore_copper", null));
+        assertFalse(parser.matchesText("hytale:ingot_copper", null));
+    }
+
+    @Test
+    @DisplayName("candidates follow the boolean structure")
+    void candidates() {
+        Map<String, int[]> postings = new HashMap<>();
+        postings.put("iron", new int[]{1, 2, 5});
+        postings.put("ingot", new int[]{2, 3, 5});
+        postings.put("copper", new int[]{3, 4});
+        Function<String, int[]> find = term -> postings.getOrDefault(term, new int[0]);
+
+        assertArrayEquals(new int[]{2, 5}, new SearchParser("iron AND ingot").candidates(find));
+        assertArrayEquals(new int[]{1, 2, 3, 4, 5}, new SearchParser("iron copper").candidates(find));
+        assertNull(new SearchParser("NOT iron").candidates(find));
+    }
+
+    @Test
+    @DisplayName("compiled plan orders stages by cost and selectivity")
+    void planOrdering() {
+        String[] ids = {"hytale:ingot_iron", "mymod:ingot_iron", "hytale:ore_iron"};
+        String[] namespaces = {"hytale", "mymod", "hytale"};
+        SearchParser parser = new SearchParser("@hytale ingot");
+
+        QueryPlan.Builder builder = QueryPlan.builder()
+                .add(QueryPlan.Stage.INVENTORY, ordinal -> true)
+                .add(QueryPlan.Stage.PACK, 0.5, ordinal -> true);
+        QueryPlan plan = parser.compile(builder, i -> ids[i], i -> namespaces[i], i -> null).build();
+
+        assertEquals(List.of(QueryPlan.Stage.PACK, QueryPlan.Stage.NAMESPACE, QueryPlan.Stage.TEXT, QueryPlan.Stage.INVENTORY),
+                plan.getStages());
+        assertTrue(plan.test(0));
+        assertFalse(plan.test(1));
+        assertFalse(plan.test(2));
+    }
+
+    @Test
+    @DisplayName("empty query compiles to an empty plan")
+    void emptyPlan() {
+        QueryPlan plan = new SearchParser("").compile(QueryPlan.builder(), i -> "", i -> "", i -> null).build();
+        assertTrue(plan.isEmpty());
+        assertTrue(plan.test(0));
+    }
+
+    @Test
+    @DisplayName("bitmap stages are intersected before text predicates")
+    void bitmapStages() {
+        String[] ids = {"a:iron", "a:copper", "b:iron", "b:iron_ore"};
+        BitSet pack = new BitSet();
+        pack.set(2);
+        pack.set(3);
+        BitSet visible = new BitSet();
+        visible.set(0, 3);
+
+        QueryPlan.Builder builder = QueryPlan.builder()
+                .restrict(QueryPlan.Stage.PACK, pack)
+                .restrict(QueryPlan.Stage.HIDDEN, visible);
+        QueryPlan plan = new SearchParser("iron").compile(builder, i -> ids[i], i -> "", i -> null).build();
+
+        assertEquals(2, plan.getMaskedStageCount());
+        assertEquals(QueryPlan.Stage.TEXT, plan.getStages().get(2));
+        assertArrayEquals(new int[]{2}, plan.run(null, ids.length));
+        assertArrayEquals(new int[]{2}, plan.run(new int[]{0, 2, 3}, ids.length));
+        assertTrue(pack.get(3), "restrict must not modify the source bitmap");
+    }
+
+    @Test
+    @DisplayName("extending a term narrows the previous query")
+    void narrowsOnExtension() {
+        assertTrue(new SearchParser("iron").narrows(new SearchParser("iro")));
+        assertTrue(new SearchParser("iron").narrows(new SearchParser("")));
+        assertTrue(new SearchParser("iron -ore").narrows(new SearchParser("iron")));
+        assertTrue(new SearchParser("@hytale iron").narrows(new SearchParser("iron")));
+    }
+
+    @Test
+    @DisplayName("deletions and widening changes do not narrow")
+    void doesNotNarrowOnWidening() {
+        assertFalse(new SearchParser("iro").narrows(new SearchParser("iron")));
+        assertFalse(new SearchParser("iron -wood").narrows(new SearchParser("iron -woo")));
+        assertFalse(new SearchParser("iron").narrows(new SearchParser("iron -ore")));
+        assertFalse(new SearchParser("iron copper").narrows(new SearchParser("iron")));
+        assertFalse(new SearchParser("").narrows(new SearchParser("iron")));
+        assertFalse(new SearchParser("iron AND ingot").narrows(new SearchParser("iron")));
+    }
+
+    @Test
+    @DisplayName("tilde terms use the bound fuzzy ordinals")
+    void fuzzyTerm() {
+        SearchParser parser = new SearchParser("~mithrill AND ingot");
+        assertTrue(parser.hasFuzzyTerms());
+        assertEquals(Arrays.asList("mithrill", "ingot"), parser.getIncludeTerms());
+
+        String[] ids = {"hytale:ingot_mithril", "hytale:ore_mithril", "hytale:ingot_iron"};
+        parser.bindFuzzy(term -> term.equals("mithrill") ? new int[]{0, 1} : new int[0]);
+        QueryPlan plan = parser.compile(QueryPlan.builder(), i -> ids[i], i -> "hytale", i -> null).build();
+        assertArrayEquals(new int[]{0}, plan.run(parser.candidates(term -> new int[]{0, 1, 2}), ids.length));
+    }
+
+    @Test
+    @DisplayName("fuzzy variant makes every term typo-tolerant")
+    void fuzzyVariant() {
+        SearchParser variant = new SearchParser("@hytale mithrill -ore").fuzzyVariant();
+        assertNotNull(variant);
+        assertTrue(variant.hasFuzzyTerms());
+        assertEquals("hytale", variant.getNamespaceFilter());
+        assertEquals(Arrays.asList("ore"), variant.getExcludeTerms());
+        assertNull(variant.fuzzyVariant());
+        assertNull(new SearchParser("-ore").fuzzyVariant());
+        assertFalse(variant.narrows(new SearchParser("mithril")));
+    }
+
+    @Test
+    @DisplayName("fuzzy variant keeps exclusions exact")
+    void fuzzyVariantExcludesExactly() {
+        SearchParser variant = new SearchParser("ingto -ore").fuzzyVariant();
+        assertNotNull(variant);
+
+        String[] ids = {"hytale:ingot_iron", "hytale:ingot_ore", "hytale:ingot_orb"};
+        variant.bindFuzzy(term -> term.equals("ingto") ? new int[]{0, 1, 2} : new int[]{1, 2});
+        QueryPlan plan = variant.compile(QueryPlan.builder(), i -> ids[i], i -> "hytale", i -> null).build();
+        assertArrayEquals(new int[]{0, 2}, plan.run(variant.candidates(term -> new int[]{0, 1, 2}), ids.length));
+    }
 }
@@ -0,0 +1,56 @@
+package dev.hytalemod.jet.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenIndexTest {
+
+    private final TokenIndex index = new TokenIndex(new String[]{
+            "hytale:ingot_mithril", "hytale:ore_adamantite", "hytale:ingot_iron", "mymod:iron_sword", "hytale:plank"
+    });
+
+    @Test
+    @DisplayName("ids split into words on namespace and underscores")
+    void tokenize() {
+        assertEquals(Arrays.asList("hytale", "ingot", "iron"), TokenIndex.tokenize("hytale:ingot_iron"));
+        assertEquals(Arrays.asList("iron", "sword"), TokenIndex.tokenize("iron sword"));
+    }
+
+    @Test
+    @DisplayName("misspelled words find the intended item")
+    void typos() {
+        assertArrayEquals(new int[]{0}, index.fuzzy("mithrill"));
+        assertArrayEquals(new int[]{1}, index.fuzzy("adamantine"));
+        assertArrayEquals(new int[]{2, 3}, index.fuzzy("irn"));
+    }
+
+    @Test
+    @DisplayName("allowed distance grows with term length")
+    void distanceLimits() {
+        assertEquals(0, TokenIndex.maxDistance("ir"));
+        assertEquals(1, TokenIndex.maxDistance("iron"));
+        assertEquals(2, TokenIndex.maxDistance("mithril"));
+        assertEquals(0, index.fuzzy("xyzzyq").length);
+    }
+
+    @Test
+    @DisplayName("bk-tree search agrees with a brute-force scan")
+    void treeMatchesScan() {
+        List<String> words = Arrays.asList("iron", "iron", "icon", "ivory", "copper", "cooper", "clipper", "mithril");
+        BKTree tree = new BKTree();
+        words.forEach(tree::add);
+        assertEquals(7, tree.size());
+
+        for (String query : new String[]{"iron", "coper", "mithrl", "zzz"}) {
+            List<String> found = tree.search(query, 2);
+            for (String word : words) {
+                assertEquals(BKTree.distance(query, word, Integer.MAX_VALUE) <= 2, found.contains(word), query + " / " + word);
+            }
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package dev.hytalemod.jet.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TrigramIndexTest {
+
+    private final TrigramIndex index = new TrigramIndex(new String[]{
+            "hytale:ingot_iron", "hytale:ore_iron_stone", "hytale:ingot_copper", "mymod:iron_sword", "hytale:plank"
+    });
+
+    @Test
+    @DisplayName("long terms are answered from posting lists")
+    void indexedLookup() {
+        assertArrayEquals(new int[]{0, 1, 3}, index.find("iron"));
+        assertArrayEquals(new int[]{0, 2}, index.find("ingot_"));
+    }
+
+    @Test
+    @DisplayName("candidates sharing trigrams are verified against the full term")
+    void verifiesCandidates() {
+        // Items 0 and 3 share "iro"/"ron" but only item 1 holds the whole term
+        assertArrayEquals(new int[]{1}, index.find("ore_iron"));
+    }
+
+    @Test
+    @DisplayName("short terms fall back to a scan")
+    void shortTerms() {
+        assertFalse(TrigramIndex.isIndexable("ir"));
+        assertArrayEquals(new int[]{0, 1, 3}, index.find("ir"));
+    }
+
+    @Test
+    @DisplayName("missing trigram yields no results")
+    void noMatch() {
+        assertEquals(0, index.find("diamond").length);
+    }
+
+    @Test
+    @DisplayName("union merges sorted ordinals without duplicates")
+    void union() {
+        assertArrayEquals(new int[]{1, 2, 3, 5, 6}, TrigramIndex.union(new int[]{1, 3, 5}, new int[]{2, 3, 6}));
+    }
+}